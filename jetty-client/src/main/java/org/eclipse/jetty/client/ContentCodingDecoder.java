@@ -0,0 +1,91 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.http.ContentCoding;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.component.Destroyable;
+
+/**
+ * {@link ContentDecoder} for the encoding of a {@link ContentCoding}.
+ */
+public class ContentCodingDecoder implements ContentDecoder, Destroyable
+{
+    private final ContentCoding.Decoder decoder;
+
+    public ContentCodingDecoder(ContentCoding.Decoder decoder)
+    {
+        this.decoder = decoder;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer)
+    {
+        return decoder.decode(buffer);
+    }
+
+    @Override
+    public void release(ByteBuffer decoded)
+    {
+        decoder.release(decoded);
+    }
+
+    @Override
+    public void destroy()
+    {
+        decoder.destroy();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), decoder);
+    }
+
+    /**
+     * Specialized {@link ContentDecoder.Factory} for the encoding of a {@link ContentCoding}.
+     */
+    public static class Factory extends ContentDecoder.Factory
+    {
+        private final ContentCoding contentCoding;
+        private final ByteBufferPool byteBufferPool;
+        private final int bufferSize;
+
+        public Factory(ContentCoding contentCoding, ByteBufferPool byteBufferPool)
+        {
+            this(contentCoding, byteBufferPool, GZIPContentDecoder.DEFAULT_BUFFER_SIZE);
+        }
+
+        public Factory(ContentCoding contentCoding, ByteBufferPool byteBufferPool, int bufferSize)
+        {
+            super(contentCoding.getEncoding());
+            this.contentCoding = contentCoding;
+            this.byteBufferPool = byteBufferPool;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public ContentDecoder newContentDecoder()
+        {
+            return new ContentCodingDecoder(contentCoding.newDecoder(byteBufferPool, bufferSize));
+        }
+    }
+}
@@ -54,6 +54,7 @@ import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
 import org.eclipse.jetty.client.util.FormContentProvider;
+import org.eclipse.jetty.http.ContentCoding;
 import org.eclipse.jetty.http.HttpCompliance;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
@@ -216,6 +217,11 @@ public class HttpClient extends ContainerLifeCycle
         handlers.put(new ProxyAuthenticationProtocolHandler(this));
 
         decoderFactories.add(new GZIPContentDecoder.Factory(byteBufferPool));
+        // Other content codings, such as br or zstd, if they are available.
+        for (ContentCoding contentCoding : ContentCoding.getContentCodings())
+        {
+            decoderFactories.add(new ContentCodingDecoder.Factory(contentCoding, byteBufferPool));
+        }
 
         cookieManager = newCookieManager();
         cookieStore = cookieManager.getCookieStore();
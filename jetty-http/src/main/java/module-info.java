@@ -16,6 +16,7 @@
 // ========================================================================
 //
 
+import org.eclipse.jetty.http.ContentCoding;
 import org.eclipse.jetty.http.Http1FieldPreEncoder;
 import org.eclipse.jetty.http.HttpFieldPreEncoder;
 
@@ -26,6 +27,7 @@ module org.eclipse.jetty.http
 
     requires transitive org.eclipse.jetty.io;
 
+    uses ContentCoding;
     uses HttpFieldPreEncoder;
 
     provides HttpFieldPreEncoder with Http1FieldPreEncoder;
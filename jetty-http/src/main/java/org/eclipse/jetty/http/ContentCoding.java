@@ -0,0 +1,240 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.component.Destroyable;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>A content coding, as used in the {@code Accept-Encoding} and
+ * {@code Content-Encoding} headers, that creates {@link Encoder}s to
+ * compress content and {@link Decoder}s to decompress it.</p>
+ * <p>The {@code gzip} coding is always available as {@link GzipContentCoding}.
+ * Other codings, such as {@code br} or {@code zstd}, usually need native
+ * libraries and are provided by separate jars, that are discovered with the
+ * {@link ServiceLoader} by {@link #getContentCodings()}.</p>
+ * <p>Implementations are expected to pool the native resources of their
+ * encoders and decoders, as {@link GzipContentCoding} does with its
+ * {@link org.eclipse.jetty.util.compression.DeflaterPool}, and to return
+ * them to the pool when the encoder is {@link Encoder#release() released}
+ * or the decoder is {@link Decoder#destroy() destroyed}.
+ * Implementations whose pools must be started and stopped, such as
+ * {@link GzipContentCoding}, are {@link org.eclipse.jetty.util.component.LifeCycle}s
+ * that the user of the content coding is expected to manage.</p>
+ */
+public interface ContentCoding
+{
+    /**
+     * @return the format of this coding, whose encoding is the {@code Content-Encoding} token
+     */
+    CompressedContentFormat getFormat();
+
+    /**
+     * @return the {@code Content-Encoding} token of this coding
+     */
+    default String getEncoding()
+    {
+        return getFormat()._encoding;
+    }
+
+    /**
+     * @return an encoder, that must be {@link Encoder#release() released} after use
+     */
+    Encoder newEncoder();
+
+    /**
+     * @param pool the pool to acquire decoded buffers from, or null
+     * @param bufferSize the size of the decoded buffers
+     * @return a decoder, that must be {@link Decoder#destroy() destroyed} after use
+     */
+    Decoder newDecoder(ByteBufferPool pool, int bufferSize);
+
+    /**
+     * <p>Returns the content codings available, that is the content codings
+     * discovered with the {@link ServiceLoader}, followed by a {@link GzipContentCoding}
+     * if no discovered content coding has the {@code gzip} encoding.</p>
+     *
+     * @return a new list of content codings
+     */
+    static List<ContentCoding> getContentCodings()
+    {
+        Logger log = Log.getLogger(ContentCoding.class);
+        List<ContentCoding> codings = new ArrayList<>();
+        Iterator<ContentCoding> iter = ServiceLoader.load(ContentCoding.class).iterator();
+        while (iter.hasNext())
+        {
+            try
+            {
+                ContentCoding coding = iter.next();
+                if (getContentCoding(codings, coding.getEncoding()) == null)
+                    codings.add(coding);
+            }
+            catch (Error | RuntimeException e)
+            {
+                log.debug(e);
+            }
+        }
+        if (getContentCoding(codings, GzipContentCoding.GZIP) == null)
+            codings.add(new GzipContentCoding());
+        if (log.isDebugEnabled())
+            log.debug("Content codings loaded: {}", codings);
+        return codings;
+    }
+
+    /**
+     * @param codings the content codings to search
+     * @param encoding the encoding to search for
+     * @return the content coding with the given encoding, or null if there is none
+     */
+    static ContentCoding getContentCoding(Collection<ContentCoding> codings, String encoding)
+    {
+        for (ContentCoding coding : codings)
+        {
+            if (coding.getEncoding().equalsIgnoreCase(encoding))
+                return coding;
+        }
+        return null;
+    }
+
+    /**
+     * <p>Selects the content coding to use for a response, given the values of
+     * the {@code Accept-Encoding} headers of the request.</p>
+     * <p>The acceptable encodings are tried in order of quality, with the wildcard
+     * {@code *} matching any content coding, and the ties in quality are broken by
+     * the order of the given content codings, so that the server preference is used.</p>
+     *
+     * @param codings the content codings, in order of preference
+     * @param acceptEncoding the values of the {@code Accept-Encoding} headers, or null
+     * @return the content coding to use, or null if no content coding is acceptable
+     */
+    static ContentCoding select(List<ContentCoding> codings, List<String> acceptEncoding)
+    {
+        if (codings.isEmpty() || acceptEncoding == null || acceptEncoding.isEmpty())
+            return null;
+
+        String[] preferred = new String[codings.size()];
+        for (int i = 0; i < preferred.length; i++)
+        {
+            preferred[i] = codings.get(i).getEncoding();
+        }
+        QuotedQualityCSV values = new QuotedQualityCSV(preferred);
+        for (String value : acceptEncoding)
+        {
+            values.addValue(value);
+        }
+        for (String value : values)
+        {
+            if ("*".equals(value))
+                return codings.get(0);
+            ContentCoding coding = getContentCoding(codings, value);
+            if (coding != null)
+                return coding;
+        }
+        return null;
+    }
+
+    /**
+     * <p>Compresses content, with an API modelled on {@link java.util.zip.Deflater}.</p>
+     * <p>The input is set with {@link #setInput(ByteBuffer)} and compressed with
+     * {@link #encode(ByteBuffer, boolean)} until {@link #needsInput()} returns true.
+     * After the last input, {@link #finish()} is called and {@link #encode(ByteBuffer, boolean)}
+     * is called until {@link #isFinished()} returns true.</p>
+     */
+    interface Encoder
+    {
+        /**
+         * @return the format of the encoded content
+         */
+        CompressedContentFormat getFormat();
+
+        /**
+         * <p>Sets the content to compress, which is consumed, moving its position,
+         * as it is compressed, so it must not be modified until {@link #needsInput()}
+         * returns true.</p>
+         *
+         * @param input the content to compress
+         */
+        void setInput(ByteBuffer input);
+
+        /**
+         * @return whether the input has been consumed and more input is needed
+         */
+        boolean needsInput();
+
+        /**
+         * <p>Signals that the content set with the last call to {@link #setInput(ByteBuffer)} is the last.</p>
+         */
+        void finish();
+
+        /**
+         * @return whether all the compressed content, including any trailer, has been produced
+         */
+        boolean isFinished();
+
+        /**
+         * <p>Compresses content into the space of the given buffer, between its position and its limit.</p>
+         *
+         * @param output the buffer to compress to, in fill mode
+         * @param flush whether all the content compressed so far must be produced, so that it can be decoded
+         * @return the number of compressed bytes produced
+         */
+        int encode(ByteBuffer output, boolean flush);
+
+        /**
+         * <p>Releases the resources of this encoder, that cannot be used any more.</p>
+         */
+        void release();
+    }
+
+    /**
+     * <p>Decompresses content.</p>
+     */
+    interface Decoder extends Destroyable
+    {
+        /**
+         * <p>Decompresses the bytes in the given buffer, which may not all be consumed
+         * if the returned buffer is not empty, in which case this method must be called
+         * again once the returned buffer has been consumed, even if all the compressed
+         * bytes have been consumed, until it returns an empty buffer.</p>
+         *
+         * @param compressed the compressed bytes
+         * @return a buffer containing the decompressed bytes, possibly empty
+         */
+        ByteBuffer decode(ByteBuffer compressed);
+
+        /**
+         * @param decoded a buffer returned by {@link #decode(ByteBuffer)}, once it has been consumed
+         */
+        void release(ByteBuffer decoded);
+
+        /**
+         * @return whether the end of the compressed content has been decoded
+         */
+        boolean isFinished();
+    }
+}
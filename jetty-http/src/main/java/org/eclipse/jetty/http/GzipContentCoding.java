@@ -0,0 +1,218 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+
+/**
+ * <p>The {@code gzip} {@link ContentCoding}, that encodes with the
+ * {@link Deflater}s of a {@link DeflaterPool} and decodes with a
+ * {@link GZIPContentDecoder}.</p>
+ */
+public class GzipContentCoding extends ContainerLifeCycle implements ContentCoding
+{
+    public static final String GZIP = "gzip";
+    private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final DeflaterPool _deflaterPool;
+
+    public GzipContentCoding()
+    {
+        this(new DeflaterPool(CompressionPool.INFINITE_CAPACITY, Deflater.DEFAULT_COMPRESSION, true));
+        // The pool only retains released deflaters while it is running,
+        // so the default pool is started and stopped with this coding.
+        manage(_deflaterPool);
+    }
+
+    /**
+     * @param deflaterPool the pool of {@link Deflater}s, which must be created with {@code nowrap=true}
+     */
+    public GzipContentCoding(DeflaterPool deflaterPool)
+    {
+        _deflaterPool = deflaterPool;
+        addBean(deflaterPool, false);
+    }
+
+    public DeflaterPool getDeflaterPool()
+    {
+        return _deflaterPool;
+    }
+
+    @Override
+    public CompressedContentFormat getFormat()
+    {
+        return CompressedContentFormat.GZIP;
+    }
+
+    @Override
+    public Encoder newEncoder()
+    {
+        return newEncoder(_deflaterPool.acquire(), _deflaterPool::release);
+    }
+
+    /**
+     * @param level the compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     * @return an encoder with the given compression level, that must be {@link Encoder#release() released} after use
+     */
+    public Encoder newEncoder(int level)
+    {
+        Deflater deflater = _deflaterPool.acquire();
+        deflater.setLevel(level);
+        return newEncoder(deflater, _deflaterPool::release);
+    }
+
+    @Override
+    public Decoder newDecoder(ByteBufferPool pool, int bufferSize)
+    {
+        return new GzipDecoder(pool, bufferSize);
+    }
+
+    /**
+     * <p>Creates a gzip {@link Encoder} that uses the given {@link Deflater}.</p>
+     *
+     * @param deflater the deflater, which must be created with {@code nowrap=true}
+     * @param recycle called with the deflater when the encoder is released
+     * @return a new gzip encoder
+     */
+    public static Encoder newEncoder(Deflater deflater, Consumer<Deflater> recycle)
+    {
+        return new GzipEncoder(deflater, recycle);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s}", getClass().getSimpleName(), hashCode(), _deflaterPool);
+    }
+
+    private static class GzipEncoder implements Encoder
+    {
+        private final CRC32 _crc = new CRC32();
+        private final Consumer<Deflater> _recycle;
+        private Deflater _deflater;
+        private ByteBuffer _pending = ByteBuffer.wrap(GZIP_HEADER).asReadOnlyBuffer();
+        private boolean _trailer;
+
+        private GzipEncoder(Deflater deflater, Consumer<Deflater> recycle)
+        {
+            _deflater = deflater;
+            _recycle = recycle;
+        }
+
+        @Override
+        public CompressedContentFormat getFormat()
+        {
+            return CompressedContentFormat.GZIP;
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _crc.update(input.slice());
+            _deflater.setInput(input);
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return _deflater.needsInput();
+        }
+
+        @Override
+        public void finish()
+        {
+            _deflater.finish();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _trailer && !_pending.hasRemaining();
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush)
+        {
+            // Write any header or trailer bytes not yet written.
+            int produced = BufferUtil.put(_pending, output);
+            if (_pending.hasRemaining() || _trailer)
+                return produced;
+
+            produced += _deflater.deflate(output, flush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+            // The deflater keeps a reference to the input buffer, which the caller
+            // may refill once consumed, so it must not be seen as new input.
+            if (_deflater.needsInput())
+                _deflater.setInput(BufferUtil.EMPTY_BUFFER);
+
+            if (_deflater.finished())
+            {
+                ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                trailer.putInt((int)_crc.getValue());
+                trailer.putInt((int)_deflater.getBytesRead());
+                trailer.flip();
+                _pending = trailer;
+                _trailer = true;
+                produced += BufferUtil.put(_pending, output);
+            }
+            return produced;
+        }
+
+        @Override
+        public void release()
+        {
+            Deflater deflater = _deflater;
+            _deflater = null;
+            if (deflater != null)
+                _recycle.accept(deflater);
+        }
+
+        @Override
+        public String toString()
+        {
+            Deflater deflater = _deflater;
+            return String.format("%s@%x{%s%s}", getClass().getSimpleName(), hashCode(), deflater, isFinished() ? "(finished)" : "");
+        }
+    }
+
+    private static class GzipDecoder extends GZIPContentDecoder implements Decoder
+    {
+        private GzipDecoder(ByteBufferPool pool, int bufferSize)
+        {
+            super(pool, bufferSize);
+        }
+
+        @Override
+        protected boolean decodedChunk(ByteBuffer chunk)
+        {
+            // Return each chunk from decode(), rather than aggregating them.
+            super.decodedChunk(chunk);
+            return true;
+        }
+    }
+}
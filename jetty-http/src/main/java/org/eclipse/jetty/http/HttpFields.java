@@ -44,13 +44,37 @@ import org.eclipse.jetty.util.log.Logger;
  * single thread.
  *
  * <p>The cookie handling provided by this class is guided by the Servlet specification and RFC6265.
+ *
+ * <p>The fields are held in an array in the order they are added, which is searched linearly.
+ * When there are more than {@link #INDEX_THRESHOLD} fields, a lookup by name builds an open
+ * addressing index of the field names, that is kept up to date as fields are added and is
+ * rebuilt by the next lookup after fields are removed, so that requests with many headers
+ * can be looked up in constant time.
  */
 public class HttpFields implements Iterable<HttpField>
 {
     private static final Logger LOG = Log.getLogger(HttpFields.class);
 
+    /**
+     * The number of fields above which lookups by name use an index.
+     */
+    public static final int INDEX_THRESHOLD = 16;
+
+    private static final int[] HEADER_HASHES = new int[HttpHeader.values().length];
+
+    static
+    {
+        for (HttpHeader header : HttpHeader.values())
+        {
+            HEADER_HASHES[header.ordinal()] = HttpField.nameHashCode(header.asString());
+        }
+    }
+
     private HttpField[] _fields;
     private int _size;
+    private boolean _indexed;
+    private int[] _index; // open addressing table of the position + 1 of the first field of each name
+    private int[] _next; // the position of the next field with the same name, or -1
 
     /**
      * Initialize an empty HttpFields.
@@ -146,44 +170,41 @@ public class HttpFields implements Iterable<HttpField>
 
     public HttpField getField(HttpHeader header)
     {
-        for (int i = 0; i < _size; i++)
-        {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                return f;
-        }
-        return null;
+        int i = first(header);
+        return i < 0 ? null : _fields[i];
     }
 
     public HttpField getField(String name)
     {
-        for (int i = 0; i < _size; i++)
-        {
-            HttpField f = _fields[i];
-            if (f.getName().equalsIgnoreCase(name))
-                return f;
-        }
-        return null;
+        int i = first(name);
+        return i < 0 ? null : _fields[i];
     }
 
     public List<HttpField> getFields(HttpHeader header)
     {
         List<HttpField> fields = null;
-        for (int i = 0; i < _size; i++)
+        for (int i = first(header); i >= 0; i = next(header, i))
         {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-            {
-                if (fields == null)
-                    fields = new ArrayList<>();
-                fields.add(f);
-            }
+            if (fields == null)
+                fields = new ArrayList<>();
+            fields.add(_fields[i]);
         }
         return fields == null ? Collections.emptyList() : fields;
     }
 
     public boolean contains(HttpField field)
     {
+        if (index())
+        {
+            for (int i = indexOf(field); i >= 0; i = _next[i])
+            {
+                HttpField f = _fields[i];
+                if (f.isSameName(field) && (f.equals(field) || f.contains(field.getValue())))
+                    return true;
+            }
+            return false;
+        }
+
         for (int i = _size; i-- > 0; )
         {
             HttpField f = _fields[i];
@@ -195,10 +216,9 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header, String value)
     {
-        for (int i = _size; i-- > 0; )
+        for (int i = first(header); i >= 0; i = next(header, i))
         {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header && f.contains(value))
+            if (_fields[i].contains(value))
                 return true;
         }
         return false;
@@ -206,10 +226,9 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(String name, String value)
     {
-        for (int i = _size; i-- > 0; )
+        for (int i = first(name); i >= 0; i = next(name, i))
         {
-            HttpField f = _fields[i];
-            if (f.getName().equalsIgnoreCase(name) && f.contains(value))
+            if (_fields[i].contains(value))
                 return true;
         }
         return false;
@@ -217,46 +236,24 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header)
     {
-        for (int i = _size; i-- > 0; )
-        {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                return true;
-        }
-        return false;
+        return first(header) >= 0;
     }
 
     public boolean containsKey(String name)
     {
-        for (int i = _size; i-- > 0; )
-        {
-            HttpField f = _fields[i];
-            if (f.getName().equalsIgnoreCase(name))
-                return true;
-        }
-        return false;
+        return first(name) >= 0;
     }
 
     public String get(HttpHeader header)
     {
-        for (int i = 0; i < _size; i++)
-        {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                return f.getValue();
-        }
-        return null;
+        int i = first(header);
+        return i < 0 ? null : _fields[i].getValue();
     }
 
     public String get(String header)
     {
-        for (int i = 0; i < _size; i++)
-        {
-            HttpField f = _fields[i];
-            if (f.getName().equalsIgnoreCase(header))
-                return f.getValue();
-        }
-        return null;
+        int i = first(header);
+        return i < 0 ? null : _fields[i].getValue();
     }
 
     /**
@@ -268,11 +265,9 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getValuesList(HttpHeader header)
     {
         final List<String> list = new ArrayList<>();
-        for (int i = 0; i < _size; i++)
+        for (int i = first(header); i >= 0; i = next(header, i))
         {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                list.add(f.getValue());
+            list.add(_fields[i].getValue());
         }
         return list;
     }
@@ -286,11 +281,9 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getValuesList(String name)
     {
         final List<String> list = new ArrayList<>();
-        for (int i = 0; i < _size; i++)
+        for (int i = first(name); i >= 0; i = next(name, i))
         {
-            HttpField f = _fields[i];
-            if (f.getName().equalsIgnoreCase(name))
-                list.add(f.getValue());
+            list.add(_fields[i].getValue());
         }
         return list;
     }
@@ -306,15 +299,11 @@ public class HttpFields implements Iterable<HttpField>
     public boolean addCSV(HttpHeader header, String... values)
     {
         QuotedCSV existing = null;
-        for (int i = 0; i < _size; i++)
+        for (int i = first(header); i >= 0; i = next(header, i))
         {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-            {
-                if (existing == null)
-                    existing = new QuotedCSV(false);
-                existing.addValue(f.getValue());
-            }
+            if (existing == null)
+                existing = new QuotedCSV(false);
+            existing.addValue(_fields[i].getValue());
         }
 
         String value = addCSV(existing, values);
@@ -337,15 +326,11 @@ public class HttpFields implements Iterable<HttpField>
     public boolean addCSV(String name, String... values)
     {
         QuotedCSV existing = null;
-        for (int i = 0; i < _size; i++)
+        for (int i = first(name); i >= 0; i = next(name, i))
         {
-            HttpField f = _fields[i];
-            if (f.getName().equalsIgnoreCase(name))
-            {
-                if (existing == null)
-                    existing = new QuotedCSV(false);
-                existing.addValue(f.getValue());
-            }
+            if (existing == null)
+                existing = new QuotedCSV(false);
+            existing.addValue(_fields[i].getValue());
         }
         String value = addCSV(existing, values);
         if (value != null)
@@ -403,14 +388,11 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getCSV(HttpHeader header, boolean keepQuotes)
     {
         QuotedCSV values = null;
-        for (HttpField f : this)
+        for (int i = first(header); i >= 0; i = next(header, i))
         {
-            if (f.getHeader() == header)
-            {
-                if (values == null)
-                    values = new QuotedCSV(keepQuotes);
-                values.addValue(f.getValue());
-            }
+            if (values == null)
+                values = new QuotedCSV(keepQuotes);
+            values.addValue(_fields[i].getValue());
         }
         return values == null ? Collections.emptyList() : values.getValues();
     }
@@ -426,14 +408,11 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getCSV(String name, boolean keepQuotes)
     {
         QuotedCSV values = null;
-        for (HttpField f : this)
+        for (int i = first(name); i >= 0; i = next(name, i))
         {
-            if (f.getName().equalsIgnoreCase(name))
-            {
-                if (values == null)
-                    values = new QuotedCSV(keepQuotes);
-                values.addValue(f.getValue());
-            }
+            if (values == null)
+                values = new QuotedCSV(keepQuotes);
+            values.addValue(_fields[i].getValue());
         }
         return values == null ? Collections.emptyList() : values.getValues();
     }
@@ -461,14 +440,11 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getQualityCSV(HttpHeader header, ToIntFunction<String> secondaryOrdering)
     {
         QuotedQualityCSV values = null;
-        for (HttpField f : this)
+        for (int i = first(header); i >= 0; i = next(header, i))
         {
-            if (f.getHeader() == header)
-            {
-                if (values == null)
-                    values = new QuotedQualityCSV(secondaryOrdering);
-                values.addValue(f.getValue());
-            }
+            if (values == null)
+                values = new QuotedQualityCSV(secondaryOrdering);
+            values.addValue(_fields[i].getValue());
         }
 
         return values == null ? Collections.emptyList() : values.getValues();
@@ -484,14 +460,11 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getQualityCSV(String name)
     {
         QuotedQualityCSV values = null;
-        for (HttpField f : this)
+        for (int i = first(name); i >= 0; i = next(name, i))
         {
-            if (f.getName().equalsIgnoreCase(name))
-            {
-                if (values == null)
-                    values = new QuotedQualityCSV();
-                values.addValue(f.getValue());
-            }
+            if (values == null)
+                values = new QuotedQualityCSV();
+            values.addValue(_fields[i].getValue());
         }
         return values == null ? Collections.emptyList() : values.getValues();
     }
@@ -504,7 +477,7 @@ public class HttpFields implements Iterable<HttpField>
      */
     public Enumeration<String> getValues(final String name)
     {
-        for (int i = 0; i < _size; i++)
+        for (int i = first(name); i >= 0 && i < _size; i++)
         {
             final HttpField f = _fields[i];
 
@@ -554,6 +527,12 @@ public class HttpFields implements Iterable<HttpField>
 
     public void put(HttpField field)
     {
+        if (index() && indexOf(field) < 0)
+        {
+            add(field);
+            return;
+        }
+
         boolean put = false;
         for (int i = _size; i-- > 0; )
         {
@@ -563,9 +542,11 @@ public class HttpFields implements Iterable<HttpField>
                 if (put)
                 {
                     System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                    _indexed = false;
                 }
                 else
                 {
+                    // The replacing field has the same name, so the index is still valid
                     _fields[i] = field;
                     put = true;
                 }
@@ -668,6 +649,20 @@ public class HttpFields implements Iterable<HttpField>
             if (_size == _fields.length)
                 _fields = Arrays.copyOf(_fields, _size * 2);
             _fields[_size++] = field;
+            if (_indexed)
+            {
+                if (_size * 2 > _index.length)
+                {
+                    // Rebuild a larger index on the next lookup
+                    _indexed = false;
+                }
+                else
+                {
+                    if (_next.length < _fields.length)
+                        _next = Arrays.copyOf(_next, _fields.length);
+                    indexField(_size - 1);
+                }
+            }
         }
     }
 
@@ -702,6 +697,9 @@ public class HttpFields implements Iterable<HttpField>
      */
     public HttpField remove(HttpHeader name)
     {
+        if (index() && indexOf(name) < 0)
+            return null;
+
         HttpField removed = null;
         for (int i = _size; i-- > 0; )
         {
@@ -710,6 +708,7 @@ public class HttpFields implements Iterable<HttpField>
             {
                 removed = f;
                 System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                _indexed = false;
             }
         }
         return removed;
@@ -723,6 +722,9 @@ public class HttpFields implements Iterable<HttpField>
      */
     public HttpField remove(String name)
     {
+        if (index() && indexOf(name) < 0)
+            return null;
+
         HttpField removed = null;
         for (int i = _size; i-- > 0; )
         {
@@ -731,6 +733,7 @@ public class HttpFields implements Iterable<HttpField>
             {
                 removed = f;
                 System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                _indexed = false;
             }
         }
         return removed;
@@ -904,6 +907,7 @@ public class HttpFields implements Iterable<HttpField>
     public void clear()
     {
         _size = 0;
+        _indexed = false;
     }
 
     public void addAll(HttpFields fields)
@@ -981,6 +985,170 @@ public class HttpFields implements Iterable<HttpField>
         return value.substring(0, i).trim();
     }
 
+    /**
+     * @param header the header
+     * @return the position of the first field with the header, or -1 if there is none
+     */
+    private int first(HttpHeader header)
+    {
+        if (index())
+        {
+            int i = indexOf(header);
+            while (i >= 0 && _fields[i].getHeader() != header)
+            {
+                i = _next[i];
+            }
+            return i;
+        }
+        return next(header, -1);
+    }
+
+    private int next(HttpHeader header, int i)
+    {
+        if (_indexed)
+        {
+            i = _next[i];
+            while (i >= 0 && _fields[i].getHeader() != header)
+            {
+                i = _next[i];
+            }
+            return i;
+        }
+        while (++i < _size)
+        {
+            if (_fields[i].getHeader() == header)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param name the case-insensitive field name
+     * @return the position of the first field with the name, or -1 if there is none
+     */
+    private int first(String name)
+    {
+        if (index())
+            return indexOf(name);
+        return next(name, -1);
+    }
+
+    private int next(String name, int i)
+    {
+        if (_indexed)
+            return _next[i];
+        while (++i < _size)
+        {
+            if (_fields[i].getName().equalsIgnoreCase(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * <p>Builds the index of the field names, if there are enough fields to need one.</p>
+     *
+     * @return whether the index can be used
+     */
+    private boolean index()
+    {
+        if (_indexed)
+            return true;
+        if (_size <= INDEX_THRESHOLD)
+            return false;
+
+        // Keep the load factor of the table below 0.5, so that probing is short
+        int length = Integer.highestOneBit(_size * 4 - 1);
+        if (_index == null || _index.length < length)
+            _index = new int[length];
+        else
+            Arrays.fill(_index, 0);
+        if (_next == null || _next.length < _fields.length)
+            _next = new int[_fields.length];
+        for (int i = 0; i < _size; i++)
+        {
+            indexField(i);
+        }
+        _indexed = true;
+        return true;
+    }
+
+    private void indexField(int position)
+    {
+        HttpField field = _fields[position];
+        _next[position] = -1;
+        int mask = _index.length - 1;
+        int slot = spread(field.nameHashCode()) & mask;
+        while (true)
+        {
+            int first = _index[slot] - 1;
+            if (first < 0)
+            {
+                _index[slot] = position + 1;
+                return;
+            }
+            if (_fields[first].isSameName(field))
+            {
+                // Append to the fields with the same name, in order
+                int last = first;
+                while (_next[last] >= 0)
+                {
+                    last = _next[last];
+                }
+                _next[last] = position;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int indexOf(HttpField field)
+    {
+        int mask = _index.length - 1;
+        int slot = spread(field.nameHashCode()) & mask;
+        while (true)
+        {
+            int first = _index[slot] - 1;
+            if (first < 0 || _fields[first].isSameName(field))
+                return first;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int indexOf(HttpHeader header)
+    {
+        int mask = _index.length - 1;
+        int slot = spread(HEADER_HASHES[header.ordinal()]) & mask;
+        while (true)
+        {
+            int first = _index[slot] - 1;
+            if (first < 0)
+                return -1;
+            HttpField f = _fields[first];
+            if (f.getHeader() == header || header.is(f.getName()))
+                return first;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int indexOf(String name)
+    {
+        int mask = _index.length - 1;
+        int slot = spread(HttpField.nameHashCode(name)) & mask;
+        while (true)
+        {
+            int first = _index[slot] - 1;
+            if (first < 0 || _fields[first].getName().equalsIgnoreCase(name))
+                return first;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
     private class ListItr implements ListIterator<HttpField>
     {
         int _cursor;       // index of next element to return
@@ -1009,6 +1177,7 @@ public class HttpFields implements Iterable<HttpField>
             _size--;
             System.arraycopy(_fields, _current + 1, _fields, _current, _size - _current);
             _fields[_size] = null;
+            _indexed = false;
             _cursor = _current;
             _current = -1;
         }
@@ -1046,6 +1215,7 @@ public class HttpFields implements Iterable<HttpField>
             if (_current < 0)
                 throw new IllegalStateException();
             _fields[_current] = field;
+            _indexed = false;
         }
 
         @Override
@@ -1055,6 +1225,7 @@ public class HttpFields implements Iterable<HttpField>
             System.arraycopy(_fields, _cursor, _fields, _cursor + 1, _size++);
             _fields[_cursor++] = field;
             _current = -1;
+            _indexed = false;
         }
     }
 }
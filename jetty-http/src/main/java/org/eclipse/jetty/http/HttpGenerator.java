@@ -600,6 +600,22 @@ public class HttpGenerator
             for (int f = 0; f < n; f++)
             {
                 HttpField field = fields.getField(f);
+                if (field instanceof PreEncodedHttpField)
+                {
+                    // Copy a block of pre encoded fields at once, if it is still intact.
+                    PreEncodedHttpFields block = ((PreEncodedHttpField)field).getBlock();
+                    if (block != null && block.isIn(fields, f))
+                    {
+                        block.putTo(header, HttpVersion.HTTP_1_0);
+                        if (block.contains(HttpHeader.CONTENT_TYPE))
+                            contentType = true;
+                        if (block.contains(HttpHeader.SERVER))
+                            send = send & ~SEND_SERVER;
+                        f += block.size() - 1;
+                        continue;
+                    }
+                }
+
                 HttpHeader h = field.getHeader();
                 if (h == null)
                     putTo(field, header);
@@ -76,6 +76,16 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.WHITESPACE_AFTER_F
  * is used to help the parsing of subsequent messages.
  * </p>
  * <p>
+ * The per parser Trie persists for the life of a persistent connection, so that
+ * the fields repeated by every request of a connection (eg. Cookie, User-Agent)
+ * are parsed as the same {@link HttpField} instance without allocating any
+ * {@link String}. Well known repeating headers are cached when first seen, while
+ * other headers are cached only when they are seen again with the same value, so
+ * that headers unique to each request (eg. request ids) do not fill the cache.
+ * When the Trie is full, it grows from {@link #getHeaderCacheSize()} up to
+ * {@link #getMaxHeaderCacheSize()}.
+ * </p>
+ * <p>
  * The parser can work in varying compliance modes:
  * <dl>
  * <dt>RFC7230</dt><dd>(default) Compliance with RFC7230</dd>
@@ -92,6 +102,8 @@ public class HttpParser
     public static final Logger LOG = Log.getLogger(HttpParser.class);
     public static final int INITIAL_URI_LENGTH = 256;
     private static final int MAX_CHUNK_LENGTH = Integer.MAX_VALUE / 16 - 16;
+    private static final int MAX_HEADER_CACHE_SIZE = Character.MAX_VALUE;
+    private static final int SEEN_FIELDS = 32;
 
     /**
      * Cache of common {@link HttpField}s including: <UL>
@@ -179,10 +191,13 @@ public class HttpParser
     private boolean _headResponse;
     private boolean _cr;
     private ByteBuffer _contentChunk;
-    private Trie<HttpField> _fieldCache;
+    private ArrayTernaryTrie<HttpField> _fieldCache;
+    private int _fieldCacheSize;
+    private int[] _seenFields;
     private int _length;
     private final StringBuilder _string = new StringBuilder();
     private int _headerCacheSize = 1024;
+    private int _maxHeaderCacheSize = 4096;
     private boolean _headerCacheCaseSensitive;
 
     static
@@ -303,6 +318,28 @@ public class HttpParser
         _headerCacheSize = headerCacheSize;
     }
 
+    /**
+     * @return the maximum size that the per connection header cache may grow to, when full
+     */
+    public int getMaxHeaderCacheSize()
+    {
+        return _maxHeaderCacheSize;
+    }
+
+    /**
+     * <p>Sets the maximum size that the per connection header cache may grow to.</p>
+     * <p>The header cache starts with {@link #getHeaderCacheSize()} and doubles its size
+     * when it is full, up to this maximum, so that connections repeating large headers
+     * (eg. Cookie) can cache them, while other connections do not use more memory.
+     * A value not greater than the header cache size disables the growth.</p>
+     *
+     * @param maxHeaderCacheSize the maximum size of the header cache
+     */
+    public void setMaxHeaderCacheSize(int maxHeaderCacheSize)
+    {
+        _maxHeaderCacheSize = maxHeaderCacheSize;
+    }
+
     public boolean isHeaderCacheCaseSensitive()
     {
         return _headerCacheCaseSensitive;
@@ -864,7 +901,10 @@ public class HttpParser
                             // Should we try to cache header fields?
                             int headerCache = getHeaderCacheSize();
                             if (_fieldCache == null && _version.getVersion() >= HttpVersion.HTTP_1_1.getVersion() && headerCache > 0)
-                                _fieldCache = new ArrayTernaryTrie<>(headerCache);
+                            {
+                                _fieldCacheSize = Math.min(headerCache, MAX_HEADER_CACHE_SIZE);
+                                _fieldCache = new ArrayTernaryTrie<>(_fieldCacheSize);
+                            }
 
                             setState(State.HEADER);
 
@@ -1032,16 +1072,28 @@ public class HttpParser
                         break;
 
                     default:
+                        // Other headers are cached only if they repeat, and their values must then match exactly
+                        if (_fieldCache != null && _field == null && _valueString != null && isRepeatedField())
+                        {
+                            _field = new RepeatedField(_header, caseInsensitiveHeader(_headerString, _header.asString()), _valueString);
+                            addToConnectionTrie = true;
+                        }
                         break;
                 }
 
-                if (addToConnectionTrie && !_fieldCache.isFull() && _header != null && _valueString != null)
+                if (addToConnectionTrie && _valueString != null)
                 {
                     if (_field == null)
                         _field = new HttpField(_header, caseInsensitiveHeader(_headerString, _header.asString()), _valueString);
-                    _fieldCache.put(_field);
+                    cacheField(_field);
                 }
             }
+            else if (_fieldCache != null && _field == null && _headerString != null && _valueString != null && isRepeatedField())
+            {
+                // Unknown headers, such as custom headers of APIs, are cached if they repeat
+                _field = new RepeatedField(null, _headerString, _valueString);
+                cacheField(_field);
+            }
             _handler.parsedHeader(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
         }
 
@@ -1050,6 +1102,52 @@ public class HttpParser
         _field = null;
     }
 
+    /**
+     * <p>Tracks the hash of the current field in a small table of the fields seen
+     * by previous messages, so that only fields that repeat are cached.</p>
+     *
+     * @return whether the current field was seen before
+     */
+    private boolean isRepeatedField()
+    {
+        if (_seenFields == null)
+            _seenFields = new int[SEEN_FIELDS];
+        int hash = 31 * _headerString.hashCode() + _valueString.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (SEEN_FIELDS - 1);
+        if (_seenFields[index] == hash)
+            return true;
+        _seenFields[index] = hash;
+        return false;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int index, String value)
+    {
+        for (int i = 0; i < value.length(); i++)
+        {
+            if (buffer.get(index + i) != (byte)value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private void cacheField(HttpField field)
+    {
+        if (_fieldCache.put(field))
+            return;
+
+        // The cache is full, so grow it if allowed and try again,
+        // with enough room for the field in the worst case
+        int needed = _fieldCacheSize + field.toString().length();
+        int size = Math.min(Math.max(_fieldCacheSize * 2, needed), Math.min(getMaxHeaderCacheSize(), MAX_HEADER_CACHE_SIZE));
+        if (size <= _fieldCacheSize)
+            return;
+        _fieldCache = new ArrayTernaryTrie<>(_fieldCache, (double)size / _fieldCacheSize);
+        _fieldCacheSize = size;
+        if (debugEnabled)
+            LOG.debug("Header cache grown to {} for {}", size, this);
+        _fieldCache.put(field);
+    }
+
     private void parsedTrailer()
     {
         // handler last header if any.  Delayed to here just in case there was a continuation line (above)
@@ -1226,6 +1324,9 @@ public class HttpParser
                                 {
                                     String n = cachedField.getName();
                                     String v = cachedField.getValue();
+                                    // The cache is case insensitive, but the values of the repeated fields, such as
+                                    // entity tags or tokens, are only reused when they match exactly.
+                                    boolean exactValue = isHeaderCacheCaseSensitive() || cachedField instanceof RepeatedField;
 
                                     if (CASE_SENSITIVE_FIELD_NAME.isAllowedBy(_complianceMode))
                                     {
@@ -1239,12 +1340,12 @@ public class HttpParser
                                         }
                                     }
 
-                                    if (v != null && isHeaderCacheCaseSensitive())
+                                    if (v != null && exactValue)
                                     {
-                                        String ev = BufferUtil.toString(buffer, buffer.position() + n.length() + 1, v.length(), StandardCharsets.ISO_8859_1);
-                                        if (!v.equals(ev))
+                                        int index = buffer.position() + n.length() + 1;
+                                        if (!matches(buffer, index, v))
                                         {
-                                            v = ev;
+                                            v = BufferUtil.toString(buffer, index, v.length(), StandardCharsets.ISO_8859_1);
                                             cachedField = new HttpField(cachedField.getHeader(), n, v);
                                         }
                                     }
@@ -1401,6 +1502,7 @@ public class HttpParser
                             _string.append(t.getChar());
                             _length = _string.length();
                             setState(FieldState.IN_VALUE);
+                            parseFieldValue(buffer);
                             break;
 
                         default:
@@ -1433,6 +1535,7 @@ public class HttpParser
                         case OTEXT: // TODO review? should this be a utf8 string?
                             _string.append(t.getChar());
                             _length = _string.length();
+                            parseFieldValue(buffer);
                             break;
 
                         default:
@@ -1448,6 +1551,50 @@ public class HttpParser
         return false;
     }
 
+    /**
+     * <p>Appends to the field value the {@code SP} and {@code VCHAR} bytes that follow
+     * in the buffer, which are scanned several at a time rather than parsed one by one,
+     * leaving any other byte, such as the {@code CR} ending the value, to {@link #parseFields(ByteBuffer)}.</p>
+     *
+     * @param buffer the buffer positioned after the last byte of the value parsed
+     */
+    private void parseFieldValue(ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        // Leave the byte exceeding the max header size to be rejected by parseFields().
+        if (_maxHeaderBytes > 0)
+            limit = (int)Math.min(limit, (long)position + _maxHeaderBytes - _headerBytes);
+        int length = HttpTokens.countFieldValueBytes(buffer, position, limit);
+        if (length == 0)
+            return;
+
+        if (buffer.hasArray())
+        {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset() + position;
+            for (int i = offset; i < offset + length; i++)
+            {
+                byte b = array[i];
+                _string.append((char)b);
+                if (b != HttpTokens.SPACE)
+                    _length = _string.length();
+            }
+        }
+        else
+        {
+            for (int i = position; i < position + length; i++)
+            {
+                byte b = buffer.get(i);
+                _string.append((char)b);
+                if (b != HttpTokens.SPACE)
+                    _length = _string.length();
+            }
+        }
+        _headerBytes += length;
+        buffer.position(position + length);
+    }
+
     /**
      * Parse until next Event.
      *
@@ -1964,6 +2111,17 @@ public class HttpParser
         void startResponse(HttpVersion version, int status, String reason);
     }
 
+    /**
+     * A field cached because it repeats, whose value is only reused if it matches exactly.
+     */
+    private static class RepeatedField extends HttpField
+    {
+        private RepeatedField(HttpHeader header, String name, String value)
+        {
+            super(header, name, value);
+        }
+    }
+
     @SuppressWarnings("serial")
     private static class IllegalCharacterException extends BadMessageException
     {
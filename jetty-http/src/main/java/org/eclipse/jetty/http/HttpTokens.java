@@ -18,6 +18,9 @@
 
 package org.eclipse.jetty.http;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import org.eclipse.jetty.util.TypeUtil;
 
 /**
@@ -32,6 +35,11 @@ public class HttpTokens
     static final byte SPACE = 0x20;
     static final byte[] CRLF = {CARRIAGE_RETURN, LINE_FEED};
 
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long BELOW_SPACE = 0x6060606060606060L; // 0x80 - SPACE in every byte
+    private static final long ONES = 0x0101010101010101L;
+
     public enum EndOfContent
     {
         UNKNOWN_CONTENT, NO_CONTENT, EOF_CONTENT, CONTENT_LENGTH, CHUNKED_CONTENT
@@ -188,5 +196,43 @@ public class HttpTokens
             }
         }
     }
-}
 
+    /**
+     * <p>Counts the bytes of a field value that can be taken as they are, that is
+     * {@code SP} and {@code VCHAR}, from the given index of the buffer.</p>
+     * <p>The bytes are scanned 8 at a time, as a {@code long} in which the bytes
+     * below {@code SP} or above {@code '~'} are flagged in their high bit, so that
+     * the first of them is found without branching on each byte.</p>
+     *
+     * @param buffer the buffer to scan
+     * @param index the index of the first byte to scan
+     * @param limit the index after the last byte to scan
+     * @return the number of consecutive {@code SP} and {@code VCHAR} bytes from the index
+     */
+    static int countFieldValueBytes(ByteBuffer buffer, int index, int limit)
+    {
+        int i = index;
+        if (limit - i >= 8)
+        {
+            boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+            while (limit - i >= 8)
+            {
+                long word = buffer.getLong(i);
+                long low = word & LOW_BITS;
+                // The high bit of each byte is set for obs-text, below SP and for DEL.
+                long flags = (word | ~(low + BELOW_SPACE) | (low + ONES)) & HIGH_BITS;
+                if (flags != 0)
+                    return i - index + (bigEndian ? Long.numberOfLeadingZeros(flags) : Long.numberOfTrailingZeros(flags)) / 8;
+                i += 8;
+            }
+        }
+        while (i < limit)
+        {
+            byte b = buffer.get(i);
+            if (b < SPACE || b == 0x7F)
+                break;
+            i++;
+        }
+        return i - index;
+    }
+}
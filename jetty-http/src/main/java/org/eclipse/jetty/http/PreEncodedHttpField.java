@@ -76,7 +76,12 @@ public class PreEncodedHttpField extends HttpField
             __encoders[0] = new Http1FieldPreEncoder();
     }
 
-    private static int index(HttpVersion version)
+    static int encoders()
+    {
+        return __encoders.length;
+    }
+
+    static int index(HttpVersion version)
     {
         switch (version)
         {
@@ -92,7 +97,8 @@ public class PreEncodedHttpField extends HttpField
         }
     }
 
-    private final byte[][] _encodedField = new byte[__encoders.length][];
+    final byte[][] _encodedField = new byte[__encoders.length][];
+    PreEncodedHttpFields _block;
 
     public PreEncodedHttpField(HttpHeader header, String name, String value)
     {
@@ -113,6 +119,14 @@ public class PreEncodedHttpField extends HttpField
         this(null, name, value);
     }
 
+    /**
+     * @return the {@link PreEncodedHttpFields} block this field belongs to, or null
+     */
+    public PreEncodedHttpFields getBlock()
+    {
+        return _block;
+    }
+
     public void putTo(ByteBuffer bufferInFillMode, HttpVersion version)
     {
         bufferInFillMode.put(_encodedField[index(version)]);
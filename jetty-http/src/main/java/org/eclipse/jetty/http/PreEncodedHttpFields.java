@@ -0,0 +1,197 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+
+/**
+ * <p>An immutable block of {@link PreEncodedHttpField}s, such as the headers that
+ * a context adds to every response, whose encodings are concatenated so that
+ * the block can be generated with a single buffer copy.</p>
+ * <p>The block is added to a {@link HttpFields} with {@link #addTo(HttpFields)} or
+ * {@link #putTo(HttpFields)}, that add its fields contiguously.  As long as the fields
+ * of the block remain contiguous, the {@link HttpGenerator} copies the encoded block
+ * rather than each field, and the HPACK encoder reuses the encoding of the block while
+ * its dynamic table is unchanged.  If the fields are removed or replaced, the remaining
+ * fields of the block are generated one by one, as any {@link PreEncodedHttpField}.</p>
+ * <p>Fields that describe the framing of the message or the connection, such as
+ * {@code Content-Length} or {@code Connection}, cannot be part of a block.</p>
+ */
+public class PreEncodedHttpFields implements Iterable<HttpField>
+{
+    private static final EnumSet<HttpHeader> UNSUPPORTED = EnumSet.of(
+        HttpHeader.CONTENT_LENGTH,
+        HttpHeader.TRANSFER_ENCODING,
+        HttpHeader.CONNECTION,
+        HttpHeader.KEEP_ALIVE,
+        HttpHeader.PROXY_CONNECTION,
+        HttpHeader.TE,
+        HttpHeader.UPGRADE);
+
+    private final PreEncodedHttpField[] _fields;
+    private final byte[][] _encoded = new byte[PreEncodedHttpField.encoders()][];
+
+    public PreEncodedHttpFields(Collection<HttpField> fields)
+    {
+        this(fields.toArray(new HttpField[0]));
+    }
+
+    /**
+     * @param fields the fields of the block
+     * @throws IllegalArgumentException if a field has no value, is a pseudo header or describes the framing of the message
+     */
+    public PreEncodedHttpFields(HttpField... fields)
+    {
+        _fields = new PreEncodedHttpField[fields.length];
+        for (int i = 0; i < fields.length; i++)
+        {
+            HttpField field = fields[i];
+            HttpHeader header = field.getHeader();
+            if (field.getValue() == null)
+                throw new IllegalArgumentException("No value: " + field);
+            if ((header != null && UNSUPPORTED.contains(header)) || field.getName().startsWith(":"))
+                throw new IllegalArgumentException("Unsupported field: " + field);
+            _fields[i] = new PreEncodedHttpField(header, field.getName(), field.getValue());
+            _fields[i]._block = this;
+        }
+
+        for (int e = 0; e < _encoded.length; e++)
+        {
+            int length = 0;
+            for (PreEncodedHttpField field : _fields)
+            {
+                length += field._encodedField[e].length;
+            }
+            byte[] encoded = new byte[length];
+            int offset = 0;
+            for (PreEncodedHttpField field : _fields)
+            {
+                byte[] bytes = field._encodedField[e];
+                System.arraycopy(bytes, 0, encoded, offset, bytes.length);
+                offset += bytes.length;
+            }
+            _encoded[e] = encoded;
+        }
+    }
+
+    public int size()
+    {
+        return _fields.length;
+    }
+
+    public HttpField getField(int index)
+    {
+        return _fields[index];
+    }
+
+    public boolean contains(HttpHeader header)
+    {
+        for (HttpField field : _fields)
+        {
+            if (field.getHeader() == header)
+                return true;
+        }
+        return false;
+    }
+
+    public String get(HttpHeader header)
+    {
+        for (HttpField field : _fields)
+        {
+            if (field.getHeader() == header)
+                return field.getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<HttpField> iterator()
+    {
+        return Arrays.<HttpField>asList(_fields).iterator();
+    }
+
+    /**
+     * @param fields the fields to check
+     * @param index the index of the first field of this block in the given fields
+     * @return whether all the fields of this block are in the given fields, contiguously and in order, from the given index
+     */
+    public boolean isIn(HttpFields fields, int index)
+    {
+        if (index < 0 || index + _fields.length > fields.size())
+            return false;
+        for (int i = 0; i < _fields.length; i++)
+        {
+            if (fields.getField(index + i) != _fields[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Adds the fields of this block, contiguously, after the given fields.</p>
+     *
+     * @param fields the fields to add the fields of this block to
+     */
+    public void addTo(HttpFields fields)
+    {
+        for (HttpField field : _fields)
+        {
+            fields.add(field);
+        }
+    }
+
+    /**
+     * <p>Removes the fields with the same names as the fields of this block from
+     * the given fields, then adds the fields of this block contiguously.</p>
+     *
+     * @param fields the fields to put the fields of this block to
+     */
+    public void putTo(HttpFields fields)
+    {
+        for (HttpField field : _fields)
+        {
+            if (field.getHeader() == null)
+                fields.remove(field.getName());
+            else
+                fields.remove(field.getHeader());
+        }
+        addTo(fields);
+    }
+
+    /**
+     * <p>Copies the encoding of all the fields of this block to the given buffer.</p>
+     *
+     * @param bufferInFillMode the buffer to copy to
+     * @param version the version of HTTP to copy the encoding of
+     */
+    public void putTo(ByteBuffer bufferInFillMode, HttpVersion version)
+    {
+        bufferInFillMode.put(_encoded[PreEncodedHttpField.index(version)]);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), Arrays.toString(_fields));
+    }
+}
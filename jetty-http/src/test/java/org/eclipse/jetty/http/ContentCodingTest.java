@@ -0,0 +1,178 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentCodingTest
+{
+    private static final ContentCoding BR = new ContentCoding()
+    {
+        @Override
+        public CompressedContentFormat getFormat()
+        {
+            return CompressedContentFormat.BR;
+        }
+
+        @Override
+        public Encoder newEncoder()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Decoder newDecoder(ByteBufferPool pool, int bufferSize)
+        {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    public void testGzipAvailable()
+    {
+        ContentCoding gzip = ContentCoding.getContentCoding(ContentCoding.getContentCodings(), "gzip");
+        assertThat(gzip.getFormat(), is(CompressedContentFormat.GZIP));
+    }
+
+    @Test
+    public void testSelect()
+    {
+        ContentCoding gzip = new GzipContentCoding();
+        List<ContentCoding> codings = Arrays.asList(BR, gzip);
+
+        assertThat(ContentCoding.select(codings, Collections.singletonList("gzip")), is(gzip));
+        assertThat(ContentCoding.select(codings, Collections.singletonList("gzip, deflate, br")), is(BR));
+        assertThat(ContentCoding.select(codings, Arrays.asList("gzip", "br;q=0.5")), is(gzip));
+        assertThat(ContentCoding.select(codings, Collections.singletonList("br;q=0, gzip")), is(gzip));
+        assertThat(ContentCoding.select(codings, Collections.singletonList("*")), is(BR));
+        assertThat(ContentCoding.select(codings, Collections.singletonList("deflate, identity")), nullValue());
+        assertThat(ContentCoding.select(codings, Collections.emptyList()), nullValue());
+        assertThat(ContentCoding.select(codings, null), nullValue());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testGzipEncodeDecode(boolean direct) throws Exception
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+        {
+            builder.append("content ").append(i % 97).append(' ');
+        }
+        byte[] data = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        ContentCoding coding = new GzipContentCoding();
+        ContentCoding.Encoder encoder = coding.newEncoder();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ByteBuffer output = direct ? BufferUtil.allocateDirect(64) : BufferUtil.allocate(64);
+        int offset = 0;
+        while (!encoder.isFinished())
+        {
+            if (encoder.needsInput() && offset < data.length)
+            {
+                int length = Math.min(1024, data.length - offset);
+                ByteBuffer input = direct ? BufferUtil.allocateDirect(length) : BufferUtil.allocate(length);
+                BufferUtil.append(input, data, offset, length);
+                offset += length;
+                encoder.setInput(input);
+                if (offset == data.length)
+                    encoder.finish();
+            }
+            BufferUtil.clearToFill(output);
+            encoder.encode(output, false);
+            BufferUtil.flipToFlush(output, 0);
+            encoded.write(BufferUtil.toArray(output));
+        }
+        encoder.release();
+
+        byte[] compressed = encoded.toByteArray();
+        assertThat(Arrays.equals(data, new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()), is(true));
+
+        ContentCoding.Decoder decoder = coding.newDecoder(null, 1024);
+        ByteBuffer input = ByteBuffer.wrap(compressed);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        while (true)
+        {
+            ByteBuffer buffer = decoder.decode(input);
+            if (!buffer.hasRemaining() && !input.hasRemaining())
+                break;
+            decoded.write(BufferUtil.toArray(buffer));
+            decoder.release(buffer);
+        }
+        assertTrue(decoder.isFinished());
+        decoder.destroy();
+        assertThat(Arrays.equals(data, decoded.toByteArray()), is(true));
+    }
+
+    @Test
+    public void testGzipEncodeReusedInputBuffer() throws Exception
+    {
+        byte[] data = "a response that is written and flushed one byte at a time".getBytes(StandardCharsets.UTF_8);
+
+        ContentCoding.Encoder encoder = new GzipContentCoding().newEncoder();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ByteBuffer output = BufferUtil.allocate(64);
+        // Like HttpOutput, refill the same buffer once the encoder has consumed it.
+        ByteBuffer input = BufferUtil.allocate(16);
+        for (int i = 0; i <= data.length; i++)
+        {
+            if (i < data.length)
+            {
+                BufferUtil.clear(input);
+                BufferUtil.append(input, data[i]);
+                assertTrue(encoder.needsInput());
+                encoder.setInput(input);
+            }
+            else
+            {
+                encoder.finish();
+            }
+            do
+            {
+                BufferUtil.clearToFill(output);
+                encoder.encode(output, true);
+                BufferUtil.flipToFlush(output, 0);
+                encoded.write(BufferUtil.toArray(output));
+            }
+            while (!encoder.needsInput() || i == data.length && !encoder.isFinished());
+        }
+        encoder.release();
+
+        byte[] decoded = new GZIPInputStream(new ByteArrayInputStream(encoded.toByteArray())).readAllBytes();
+        assertThat(new String(decoded, StandardCharsets.UTF_8), is(new String(data, StandardCharsets.UTF_8)));
+    }
+}
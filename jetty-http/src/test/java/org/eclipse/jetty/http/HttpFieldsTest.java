@@ -692,6 +692,70 @@ public class HttpFieldsTest
         assertFalse(fields.containsKey(keyName), "containsKey('" + keyName + "')");
     }
 
+    @Test
+    public void testIndexedLookup()
+    {
+        for (int size : new int[]{4, HttpFields.INDEX_THRESHOLD + 1, 80})
+        {
+            HttpFields fields = new HttpFields();
+            fields.add(HttpHeader.HOST, "localhost");
+            fields.add(HttpHeader.ACCEPT, "text/html");
+            for (int i = 0; i < size; i++)
+            {
+                fields.add("X-Header-" + i, "value" + i);
+            }
+            fields.add("accept", "application/json");
+            fields.add("X-HEADER-0", "other0");
+
+            assertEquals(size + 4, fields.size());
+            assertEquals("localhost", fields.get(HttpHeader.HOST));
+            assertEquals("localhost", fields.get("HOST"));
+            assertEquals("text/html", fields.get(HttpHeader.ACCEPT));
+            assertEquals("value0", fields.get("x-header-0"));
+            assertEquals("value" + (size - 1), fields.getField("X-Header-" + (size - 1)).getValue());
+            assertThat(fields.getValuesList(HttpHeader.ACCEPT), Matchers.contains("text/html", "application/json"));
+            assertThat(fields.getValuesList("X-Header-0"), Matchers.contains("value0", "other0"));
+            assertThat(fields.getCSV("Accept", false), Matchers.contains("text/html", "application/json"));
+            assertTrue(fields.contains(HttpHeader.ACCEPT, "application/json"));
+            assertTrue(fields.contains("x-header-0", "other0"));
+            assertTrue(fields.contains(new HttpField("X-Header-1", "value1")));
+            assertFalse(fields.contains(new HttpField("X-Header-1", "value2")));
+            assertTrue(fields.containsKey("X-Header-" + (size / 2)));
+            assertFalse(fields.containsKey("X-Header-" + size));
+            assertFalse(fields.contains(HttpHeader.COOKIE));
+            assertNull(fields.get(HttpHeader.COOKIE));
+
+            fields.put("X-Header-0", "put0");
+            fields.put("X-Header-" + size, "put" + size);
+            assertThat(fields.getValuesList("X-Header-0"), Matchers.contains("put0"));
+            assertEquals("put" + size, fields.get("X-Header-" + size));
+            assertEquals(size + 4, fields.size());
+
+            assertEquals("text/html", fields.remove(HttpHeader.ACCEPT).getValue());
+            assertNull(fields.remove("X-Missing"));
+            assertFalse(fields.contains(HttpHeader.ACCEPT));
+            assertEquals("localhost", fields.get(HttpHeader.HOST));
+            assertEquals("value1", fields.get("X-Header-1"));
+            assertEquals(size + 2, fields.size());
+
+            // The iteration order is the order the fields were added
+            Iterator<HttpField> iterator = fields.iterator();
+            assertEquals("Host", iterator.next().getName());
+            for (int i = 1; i < size; i++)
+            {
+                assertEquals("value" + i, iterator.next().getValue());
+            }
+            assertEquals("put0", iterator.next().getValue());
+            assertEquals("put" + size, iterator.next().getValue());
+            assertFalse(iterator.hasNext());
+
+            fields.clear();
+            assertNull(fields.get("X-Header-1"));
+            fields.add("X-Header-1", "again");
+            assertEquals("again", fields.get("X-Header-1"));
+        }
+    }
+
     @Test
     public void testPreventNullField()
     {
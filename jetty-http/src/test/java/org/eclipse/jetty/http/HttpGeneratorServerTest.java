@@ -230,6 +230,47 @@ public class HttpGeneratorServerTest
         gen.reset();
     }
 
+    @Test
+    public void testPreEncodedHttpFields() throws Exception
+    {
+        PreEncodedHttpFields block = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.SERVER, "SomeServer"),
+            new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+            new HttpField("X-Content-Type-Options", "nosniff"));
+        String encoded = "Server: SomeServer\r\nContent-Type: application/json\r\nX-Content-Type-Options: nosniff\r\n";
+        assertSame(block, ((PreEncodedHttpField)block.getField(2)).getBlock());
+
+        ByteBuffer header = BufferUtil.allocate(8096);
+        HttpFields fields = new HttpFields();
+        fields.add(HttpHeader.SERVER, "OtherServer");
+        fields.add("X-Before", "before");
+        block.putTo(fields);
+        fields.add("X-After", "after");
+        assertEquals(5, fields.size());
+
+        HttpGenerator gen = new HttpGenerator(true, false);
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 0);
+        gen.generateResponse(info, false, header, null, null, true);
+        String head = BufferUtil.toString(header);
+        BufferUtil.clear(header);
+        assertThat(head, startsWith("HTTP/1.1 200 OK\r\nX-Before: before\r\n" + encoded + "X-After: after\r\n"));
+        assertThat(head, not(containsString("Server: Jetty(10.x.x)")));
+        assertThat(head, not(containsString("OtherServer")));
+
+        // Once the block is broken, its remaining fields are generated one by one.
+        fields.remove("X-Content-Type-Options");
+        gen.reset();
+        gen.generateResponse(info, false, header, null, null, true);
+        head = BufferUtil.toString(header);
+        BufferUtil.clear(header);
+        assertThat(head, startsWith("HTTP/1.1 200 OK\r\nX-Before: before\r\nServer: SomeServer\r\nContent-Type: application/json\r\nX-After: after\r\n"));
+        assertThat(head, not(containsString("Server: Jetty(10.x.x)")));
+
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(HttpHeader.CONTENT_LENGTH, "10")));
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(HttpHeader.CONNECTION, "close")));
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField("X-Null", null)));
+    }
+
     @Test
     public void testResponseIncorrectContentLength() throws Exception
     {
@@ -31,6 +31,8 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.eclipse.jetty.http.HttpCompliance.Violation.CASE_INSENSITIVE_METHOD;
 import static org.eclipse.jetty.http.HttpCompliance.Violation.CASE_SENSITIVE_FIELD_NAME;
@@ -44,6 +46,7 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -2108,6 +2111,164 @@ public class HttpParserTest
         assertSame(field, _fields.get(0));
     }
 
+    @Test
+    @SuppressWarnings("ReferenceEquality")
+    public void testCachedRepeatedField()
+    {
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Api-Key: 0123456789\r\n" +
+                "X-Request-Id: 1\r\n" +
+                "\r\n"));
+        assertNull(parser.getFieldCache().get("X-Api-Key: 0123456789"));
+
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Api-Key: 0123456789\r\n" +
+                "X-Request-Id: 2\r\n" +
+                "\r\n"));
+        HttpField field = _fields.get(1);
+        assertSame(field, parser.getFieldCache().get("X-Api-Key: 0123456789"));
+        assertNull(parser.getFieldCache().get("X-Request-Id: 2"));
+
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Api-Key: 0123456789\r\n" +
+                "X-Request-Id: 3\r\n" +
+                "\r\n"));
+        assertSame(field, _fields.get(1));
+        assertEquals("3", _fields.get(2).getValue());
+    }
+
+    @Test
+    public void testCachedRepeatedFieldMatchesValueCase()
+    {
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        assertFalse(parser.isHeaderCacheCaseSensitive());
+
+        for (int i = 0; i < 2; i++)
+        {
+            parseAll(parser, BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "If-None-Match: \"abcdef\"\r\n" +
+                    "X-Token: abcdef\r\n" +
+                    "\r\n"));
+        }
+        assertNotNull(parser.getFieldCache().get("If-None-Match: \"abcdef\""));
+        assertNotNull(parser.getFieldCache().get("X-Token: abcdef"));
+
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "If-None-Match: \"ABCdef\"\r\n" +
+                "X-Token: ABCdef\r\n" +
+                "\r\n"));
+        assertEquals("\"ABCdef\"", _fields.get(1).getValue());
+        assertEquals("ABCdef", _fields.get(2).getValue());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testScannedFieldValues(boolean direct)
+    {
+        StringBuilder visible = new StringBuilder();
+        for (char c = ' '; c <= '~'; c++)
+        {
+            visible.append(c);
+        }
+        String request = "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "X-Visible: " + visible + "\r\n" +
+            "X-Trailing-Spaces: value with spaces         \r\n" +
+            "X-Tab: before\tafter the tab\r\n" +
+            "X-Obs-Text: caf\u00e9 and more text after it\r\n" +
+            "X-Lf-Only: 0123456789abcdef0123456789\n" +
+            "X-Short: a\r\n" +
+            "\r\n";
+        byte[] bytes = request.getBytes(StandardCharsets.ISO_8859_1);
+
+        // Parse the request from every offset of the buffer, so that the 8 byte words are not aligned.
+        for (int offset = 0; offset < 8; offset++)
+        {
+            ByteBuffer buffer = direct ? BufferUtil.allocateDirect(offset + bytes.length) : BufferUtil.allocate(offset + bytes.length);
+            BufferUtil.clearToFill(buffer);
+            buffer.position(offset);
+            buffer.put(bytes);
+            buffer.flip().position(offset);
+
+            _fields.clear();
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parseAll(parser, buffer);
+
+            assertNull(_bad);
+            assertEquals(7, _fields.size());
+            assertEquals(visible.toString().trim(), _fields.get(1).getValue());
+            assertEquals("value with spaces", _fields.get(2).getValue());
+            assertEquals("before\tafter the tab", _fields.get(3).getValue());
+            assertEquals("caf\u00e9 and more text after it", _fields.get(4).getValue());
+            assertEquals("0123456789abcdef0123456789", _fields.get(5).getValue());
+            assertEquals("a", _fields.get(6).getValue());
+        }
+    }
+
+    @Test
+    public void testScannedFieldValueTooLarge()
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Large: 0123456789012345678901234567890123456789\r\n" +
+                "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler, 48);
+        parseAll(parser, buffer);
+        assertEquals("431", _bad);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testCachedFieldGrows(boolean grow)
+    {
+        StringBuilder cookie = new StringBuilder();
+        for (int i = 0; i < 20; i++)
+        {
+            if (i > 0)
+                cookie.append("; ");
+            cookie.append("name").append(i).append("=value").append(i);
+        }
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Cookie: " + cookie + "\r\n" +
+                "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setHeaderCacheSize(64);
+        parser.setMaxHeaderCacheSize(grow ? 1024 : 64);
+        parseAll(parser, buffer);
+        HttpField field = _fields.get(1);
+        assertEquals(cookie.toString(), field.getValue());
+
+        buffer.position(0);
+        parseAll(parser, buffer);
+        if (grow)
+            assertSame(field, _fields.get(1));
+        else
+            assertNotSame(field, _fields.get(1));
+        assertEquals(cookie.toString(), _fields.get(1).getValue());
+    }
+
     @Test
     public void testParseRequest()
     {
@@ -29,7 +29,9 @@ import java.util.concurrent.Executor;
 
 import org.eclipse.jetty.alpn.client.ALPNClientConnectionFactory;
 import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
+import org.eclipse.jetty.http2.FIFOSchedulingStrategy;
 import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.SchedulingStrategy;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
@@ -115,6 +117,7 @@ public class HTTP2Client extends ContainerLifeCycle
     private int maxConcurrentPushedStreams = 32;
     private int maxSettingsKeys = SettingsFrame.DEFAULT_MAX_KEYS;
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private SchedulingStrategy.Factory schedulingStrategyFactory = FIFOSchedulingStrategy::new;
     private long streamIdleTimeout;
 
     public HTTP2Client()
@@ -173,6 +176,16 @@ public class HTTP2Client extends ContainerLifeCycle
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    public SchedulingStrategy.Factory getSchedulingStrategyFactory()
+    {
+        return schedulingStrategyFactory;
+    }
+
+    public void setSchedulingStrategyFactory(SchedulingStrategy.Factory schedulingStrategyFactory)
+    {
+        this.schedulingStrategyFactory = schedulingStrategyFactory;
+    }
+
     @ManagedAttribute("The number of selectors")
     public int getSelectors()
     {
@@ -63,6 +63,7 @@ public class HTTP2ClientConnectionFactory implements ClientConnectionFactory
         final FlowControlStrategy flowControl = client.getFlowControlStrategyFactory().newFlowControlStrategy();
         final HTTP2ClientSession session = new HTTP2ClientSession(scheduler, endPoint, generator, listener, flowControl);
         session.setMaxRemoteStreams(client.getMaxConcurrentPushedStreams());
+        session.setSchedulingStrategy(client.getSchedulingStrategyFactory().newSchedulingStrategy());
         long streamIdleTimeout = client.getStreamIdleTimeout();
         if (streamIdleTimeout > 0)
             session.setStreamIdleTimeout(streamIdleTimeout);
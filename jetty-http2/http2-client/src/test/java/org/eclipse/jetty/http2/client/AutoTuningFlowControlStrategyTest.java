@@ -0,0 +1,119 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.AutoTuningFlowControlStrategy;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.Promise;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AutoTuningFlowControlStrategyTest extends AbstractTest
+{
+    @Test
+    public void testRecvWindowsGrowWhenSenderIsWindowLimited() throws Exception
+    {
+        int length = 16 * 1024 * 1024;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame requestFrame)
+            {
+                MetaData.Response metaData = new MetaData.Response(HttpVersion.HTTP_2, 200, new HttpFields());
+                HeadersFrame responseFrame = new HeadersFrame(stream.getId(), metaData, null, false);
+                Callback.Completable completable = new Callback.Completable();
+                stream.headers(responseFrame, completable);
+                completable.thenRun(() -> stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP));
+                return null;
+            }
+        });
+
+        int sessionRecvWindowLimit = 4 * 1024 * 1024;
+        int streamRecvWindowLimit = 2 * 1024 * 1024;
+        AtomicReference<AutoTuningFlowControlStrategy> strategyRef = new AtomicReference<>();
+        client.setFlowControlStrategyFactory(() ->
+        {
+            AutoTuningFlowControlStrategy strategy = new AutoTuningFlowControlStrategy(sessionRecvWindowLimit, streamRecvWindowLimit);
+            strategy.setMinPingInterval(0);
+            strategyRef.set(strategy);
+            return strategy;
+        });
+
+        AtomicInteger pings = new AtomicInteger();
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                pings.incrementAndGet();
+            }
+        });
+        MetaData.Request metaData = newRequest("GET", new HttpFields());
+        HeadersFrame requestFrame = new HeadersFrame(metaData, null, true);
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(requestFrame, new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                received.addAndGet(frame.remaining());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        assertEquals(length, received.get());
+
+        // The PINGs that measure the round trip time are not notified.
+        assertEquals(0, pings.get());
+
+        AutoTuningFlowControlStrategy strategy = strategyRef.get();
+        assertThat(strategy.getWindowUpdates(), greaterThan(0L));
+        assertThat(strategy.getMaxSessionRecvWindow(), greaterThan(FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+        assertThat(strategy.getMaxSessionRecvWindow(), lessThanOrEqualTo(sessionRecvWindowLimit));
+        assertThat(strategy.getInitialStreamRecvWindow(), greaterThan(FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+        assertThat(strategy.getInitialStreamRecvWindow(), lessThanOrEqualTo(streamRecvWindowLimit));
+        assertThat(((HTTP2Session)session).getRecvWindow(), lessThanOrEqualTo(sessionRecvWindowLimit));
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jetty.http2.HTTP2Session;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.PingFrame;
@@ -29,6 +30,7 @@ import org.eclipse.jetty.util.Callback;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PingTest extends AbstractTest
@@ -57,4 +59,46 @@ public class PingTest extends AbstractTest
 
         assertTrue(latch.await(5, TimeUnit.SECONDS));
     }
+
+    @Test
+    public void testConcurrentPings() throws Exception
+    {
+        start(new ServerSessionListener.Adapter());
+
+        int threads = 8;
+        int pings = 100;
+        CountDownLatch replies = new CountDownLatch(threads * pings);
+        CountDownLatch callbacks = new CountDownLatch(threads * pings);
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                assertTrue(frame.isReply());
+                replies.countDown();
+            }
+        });
+
+        // Queue frames from many threads at once.
+        for (int t = 0; t < threads; ++t)
+        {
+            int thread = t;
+            new Thread(() ->
+            {
+                for (int i = 0; i < pings; ++i)
+                {
+                    session.ping(new PingFrame(thread * pings + i, false), Callback.from(callbacks::countDown));
+                }
+            }).start();
+        }
+
+        assertTrue(callbacks.await(5, TimeUnit.SECONDS));
+        assertTrue(replies.await(5, TimeUnit.SECONDS));
+
+        HTTP2Session http2Session = (HTTP2Session)session;
+        assertEquals(0, http2Session.getFrameQueueSize());
+        assertTrue(http2Session.getMaxFrameQueueSize() > 0);
+        assertTrue(http2Session.getFlushCount() > 0);
+        assertTrue(http2Session.getMaxFlushBatchSize() > 0);
+    }
 }
@@ -40,8 +40,10 @@ public abstract class AbstractFlowControlStrategy implements FlowControlStrategy
 
     private final AtomicLong sessionStall = new AtomicLong();
     private final AtomicLong sessionStallTime = new AtomicLong();
+    private final AtomicLong sessionStallCount = new AtomicLong();
     private final Map<IStream, Long> streamsStalls = new ConcurrentHashMap<>();
     private final AtomicLong streamsStallTime = new AtomicLong();
+    private final AtomicLong streamsStallCount = new AtomicLong();
     private int initialStreamSendWindow;
     private int initialStreamRecvWindow;
 
@@ -185,14 +187,16 @@ public abstract class AbstractFlowControlStrategy implements FlowControlStrategy
 
     protected void onSessionStalled(ISession session)
     {
-        sessionStall.set(System.nanoTime());
+        if (sessionStall.getAndSet(System.nanoTime()) == 0)
+            sessionStallCount.incrementAndGet();
         if (LOG.isDebugEnabled())
             LOG.debug("Session stalled {}", session);
     }
 
     protected void onStreamStalled(IStream stream)
     {
-        streamsStalls.put(stream, System.nanoTime());
+        if (streamsStalls.put(stream, System.nanoTime()) == null)
+            streamsStallCount.incrementAndGet();
         if (LOG.isDebugEnabled())
             LOG.debug("Stream stalled {}", stream);
     }
@@ -232,11 +236,25 @@ public abstract class AbstractFlowControlStrategy implements FlowControlStrategy
         return TimeUnit.NANOSECONDS.toMillis(pastStallTime + currentStallTime);
     }
 
+    @ManagedAttribute(value = "The number of times that the session flow control has stalled", readonly = true)
+    public long getSessionStallCount()
+    {
+        return sessionStallCount.get();
+    }
+
+    @ManagedAttribute(value = "The number of times that the streams flow control has stalled", readonly = true)
+    public long getStreamsStallCount()
+    {
+        return streamsStallCount.get();
+    }
+
     @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
     public void reset()
     {
         sessionStallTime.set(0);
+        sessionStallCount.set(0);
         streamsStallTime.set(0);
+        streamsStallCount.set(0);
     }
 
     @Override
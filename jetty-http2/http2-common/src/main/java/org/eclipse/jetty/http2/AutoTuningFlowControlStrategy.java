@@ -0,0 +1,233 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A {@link BufferingFlowControlStrategy} that grows the receive windows
+ * of the session and of the streams to the bandwidth-delay product of the
+ * connection, so that a sender is not limited by the flow control windows
+ * on links with high bandwidth and high latency.</p>
+ * <p>When data is received, a PING is sent and the bytes of data received
+ * until its reply arrives are counted: they are a sample of the bandwidth-delay
+ * product. When a sample is close to the size of the session receive window,
+ * and the bandwidth measured by the sample is the greatest measured so far,
+ * the sender was limited by the window, so the window is grown to twice the
+ * sample: the session receive window with a {@code WINDOW_UPDATE} frame, and the
+ * stream receive windows with a {@code SETTINGS_INITIAL_WINDOW_SIZE} setting.</p>
+ * <p>The windows are never shrunk, and grow at most up to the given maximum
+ * sizes, which bound the memory that the peer can make this side buffer.
+ * PING frames are sent at most once per {@link #getMinPingInterval() interval},
+ * so that the peer does not consider them as a flood, and are not notified
+ * to the application.</p>
+ */
+@ManagedObject
+public class AutoTuningFlowControlStrategy extends BufferingFlowControlStrategy
+{
+    private final AtomicLong windowUpdates = new AtomicLong();
+    private final int sessionRecvWindowLimit;
+    private final int streamRecvWindowLimit;
+    private long minPingInterval = TimeUnit.MILLISECONDS.toNanos(250);
+    private long pingPayload;
+    private long pingNanoTime;
+    private long lastPingNanoTime;
+    private long pingBytes;
+    private double maxBandwidth;
+    private volatile long roundTripTime;
+    private volatile long bandwidthDelayProduct;
+
+    public AutoTuningFlowControlStrategy()
+    {
+        this(16 * 1024 * 1024, 8 * 1024 * 1024);
+    }
+
+    /**
+     * @param sessionRecvWindowLimit the max size the session receive window can grow to
+     * @param streamRecvWindowLimit the max size the stream receive windows can grow to
+     */
+    public AutoTuningFlowControlStrategy(int sessionRecvWindowLimit, int streamRecvWindowLimit)
+    {
+        super(0.5F);
+        this.sessionRecvWindowLimit = sessionRecvWindowLimit;
+        this.streamRecvWindowLimit = streamRecvWindowLimit;
+    }
+
+    @ManagedAttribute(value = "The max size the session receive window can grow to", readonly = true)
+    public int getSessionRecvWindowLimit()
+    {
+        return sessionRecvWindowLimit;
+    }
+
+    @ManagedAttribute(value = "The max size the stream receive windows can grow to", readonly = true)
+    public int getStreamRecvWindowLimit()
+    {
+        return streamRecvWindowLimit;
+    }
+
+    @ManagedAttribute("The min interval, in milliseconds, between PINGs that measure the round trip time")
+    public long getMinPingInterval()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(minPingInterval);
+    }
+
+    public void setMinPingInterval(long minPingInterval)
+    {
+        this.minPingInterval = TimeUnit.MILLISECONDS.toNanos(minPingInterval);
+    }
+
+    @ManagedAttribute(value = "The last round trip time, in microseconds", readonly = true)
+    public long getRoundTripTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(roundTripTime);
+    }
+
+    @ManagedAttribute(value = "The last estimate, in bytes, of the bandwidth-delay product", readonly = true)
+    public long getBandwidthDelayProduct()
+    {
+        return bandwidthDelayProduct;
+    }
+
+    @ManagedAttribute(value = "The number of times the receive windows have been grown", readonly = true)
+    public long getWindowUpdates()
+    {
+        return windowUpdates.get();
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        super.onDataReceived(session, stream, length);
+
+        // Data is received by a single thread at a time.
+        if (pingNanoTime != 0)
+        {
+            pingBytes += length;
+            return;
+        }
+
+        if (getMaxSessionRecvWindow() >= sessionRecvWindowLimit && getInitialStreamRecvWindow() >= streamRecvWindowLimit)
+            return;
+
+        long now = System.nanoTime();
+        if (lastPingNanoTime != 0 && now - lastPingNanoTime < minPingInterval)
+            return;
+
+        pingPayload = ThreadLocalRandom.current().nextLong();
+        pingNanoTime = now;
+        lastPingNanoTime = now;
+        pingBytes = 0;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Measuring bandwidth-delay product for {}", session);
+        session.ping(new PingFrame(pingPayload, false), Callback.NOOP);
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        if (pingNanoTime == 0 || frame.getPayloadAsLong() != pingPayload)
+            return false;
+
+        long rtt = Math.max(1, System.nanoTime() - pingNanoTime);
+        long bdp = pingBytes;
+        pingNanoTime = 0;
+        roundTripTime = rtt;
+        bandwidthDelayProduct = bdp;
+
+        double bandwidth = (double)bdp / rtt;
+        int sessionWindow = getMaxSessionRecvWindow();
+        int streamWindow = getInitialStreamRecvWindow();
+        if (LOG.isDebugEnabled())
+            LOG.debug("Measured bandwidth-delay product {} bytes, rtt {} us, recv windows {}/{} for {}", bdp, TimeUnit.NANOSECONDS.toMicros(rtt), sessionWindow, streamWindow, session);
+
+        // Grow only when the sender was limited by a window, that is when it
+        // sent in a round trip most of the credit it is guaranteed to have,
+        // since up to bufferRatio of the window is withheld until consumed,
+        // and when the previous growth has increased the bandwidth.
+        double credit = Math.min(sessionWindow, streamWindow) * (1 - getBufferRatio());
+        if (bdp * 3 < credit * 2 || bandwidth <= maxBandwidth)
+            return true;
+        maxBandwidth = bandwidth;
+
+        long window = 2 * bdp;
+        boolean updated = false;
+
+        int newSessionWindow = (int)Math.min(sessionRecvWindowLimit, window);
+        if (newSessionWindow > sessionWindow)
+        {
+            int delta = newSessionWindow - sessionWindow;
+            session.updateRecvWindow(delta);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Growing session recv window by {} to {} for {}", delta, newSessionWindow, session);
+            session.frames(null, Callback.NOOP, new WindowUpdateFrame(0, delta), Frame.EMPTY_ARRAY);
+            updated = true;
+        }
+
+        int newStreamWindow = (int)Math.min(streamRecvWindowLimit, window);
+        if (newStreamWindow > streamWindow)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Growing stream recv window to {} for {}", newStreamWindow, session);
+            Map<Integer, Integer> settings = new HashMap<>();
+            settings.put(SettingsFrame.INITIAL_WINDOW_SIZE, newStreamWindow);
+            // The local stream windows are updated when the SETTINGS frame is sent.
+            session.settings(new SettingsFrame(settings, false), Callback.NOOP);
+            updated = true;
+        }
+
+        if (updated)
+            windowUpdates.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+        windowUpdates.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[sessionRecvWindow=%d/%d,streamRecvWindow=%d/%d,rtt=%dus,bdp=%d,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getMaxSessionRecvWindow(),
+            sessionRecvWindowLimit,
+            getInitialStreamRecvWindow(),
+            streamRecvWindowLimit,
+            getRoundTripTime(),
+            getBandwidthDelayProduct(),
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+}
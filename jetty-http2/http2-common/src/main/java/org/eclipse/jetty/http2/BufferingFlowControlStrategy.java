@@ -81,6 +81,12 @@ public class BufferingFlowControlStrategy extends AbstractFlowControlStrategy
         this.bufferRatio = bufferRatio;
     }
 
+    @ManagedAttribute(value = "The max size of the session flow control receive window", readonly = true)
+    public int getMaxSessionRecvWindow()
+    {
+        return maxSessionRecvWindow.get();
+    }
+
     @Override
     public void onStreamCreated(IStream stream)
     {
@@ -0,0 +1,120 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.FrameType;
+
+/**
+ * <p>A {@link RoundRobinSchedulingStrategy} that shares the bytes of DATA frames
+ * between streams in proportion to their {@link IStream#getWeight() weight},
+ * with the deficit round robin algorithm.</p>
+ * <p>At each round, each stream that has DATA frames to send is credited with
+ * a quantum of bytes proportional to its weight, and can generate DATA frames
+ * while its credit is positive; the bytes of the frames it generates are debited
+ * from its credit, that can become negative, in which case the stream is deferred
+ * until enough rounds have credited it again.
+ * A stream of the default weight 16 is credited with the quantum at each round.</p>
+ */
+public class DeficitRoundRobinSchedulingStrategy extends RoundRobinSchedulingStrategy
+{
+    private final Map<IStream, Deficit> deficits = new HashMap<>();
+    private final int quantum;
+    private int round;
+
+    public DeficitRoundRobinSchedulingStrategy()
+    {
+        this(Frame.DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param quantum the number of bytes credited at each round to the streams of the default weight
+     */
+    public DeficitRoundRobinSchedulingStrategy(int quantum)
+    {
+        if (quantum <= 0)
+            throw new IllegalArgumentException("Invalid quantum " + quantum);
+        this.quantum = quantum;
+    }
+
+    public int getQuantum()
+    {
+        return quantum;
+    }
+
+    @Override
+    protected void schedule(List<IStream> streams)
+    {
+        super.schedule(streams);
+
+        ++round;
+        for (IStream stream : streams)
+        {
+            Deficit deficit = deficits.computeIfAbsent(stream, s -> new Deficit());
+            // Credit is not accumulated beyond one quantum, so that a stream
+            // stalled by flow control does not send a burst afterwards.
+            long credit = Math.max(1, (long)quantum * stream.getWeight() / DEFAULT_WEIGHT);
+            deficit.bytes = Math.min(credit, deficit.bytes + credit);
+            deficit.round = round;
+        }
+        // Streams without DATA frames to send lose their credit.
+        deficits.values().removeIf(deficit -> deficit.round != round);
+    }
+
+    @Override
+    public boolean canGenerate(HTTP2Flusher.Entry entry, int frames)
+    {
+        Deficit deficit = getDeficit(entry);
+        if (deficit == null)
+            return frames == 0;
+        return deficit.bytes > 0;
+    }
+
+    @Override
+    public void onGenerated(HTTP2Flusher.Entry entry, int frameBytes)
+    {
+        Deficit deficit = getDeficit(entry);
+        if (deficit != null)
+            deficit.bytes -= frameBytes;
+    }
+
+    private Deficit getDeficit(HTTP2Flusher.Entry entry)
+    {
+        IStream stream = entry.getStream();
+        if (stream == null || entry.getFrame().getType() != FrameType.DATA)
+            return null;
+        return deficits.get(stream);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[quantum=%d,streams=%d]", getClass().getSimpleName(), hashCode(), quantum, deficits.size());
+    }
+
+    private static class Deficit
+    {
+        private long bytes;
+        private int round;
+    }
+}
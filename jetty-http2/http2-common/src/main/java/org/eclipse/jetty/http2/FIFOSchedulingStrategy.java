@@ -0,0 +1,52 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Queue;
+
+/**
+ * <p>A {@link SchedulingStrategy} that generates the entries in the order they
+ * have been queued, one frame per entry per round.</p>
+ * <p>A stream that has many frames to send can use all the session flow control
+ * window before the streams that have been queued after it.</p>
+ */
+public class FIFOSchedulingStrategy implements SchedulingStrategy
+{
+    @Override
+    public void onRound(Queue<HTTP2Flusher.Entry> entries)
+    {
+    }
+
+    @Override
+    public boolean canGenerate(HTTP2Flusher.Entry entry, int frames)
+    {
+        return frames == 0;
+    }
+
+    @Override
+    public void onGenerated(HTTP2Flusher.Entry entry, int frameBytes)
+    {
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
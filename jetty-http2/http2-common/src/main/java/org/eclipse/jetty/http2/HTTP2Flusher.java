@@ -21,12 +21,16 @@ package org.eclipse.jetty.http2;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
@@ -38,92 +42,186 @@ import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
-
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+
+/**
+ * <p>Generates and writes the frames of a {@link HTTP2Session}.</p>
+ * <p>Entries are queued by any thread without locking, in concurrent queues of which
+ * the flusher, that runs in a single thread at a time, is the only consumer.
+ * A producer that races with the termination of the flusher checks again whether
+ * the flusher is terminated after having queued its entry, and fails the entry
+ * itself if it can still remove it from the queue.</p>
+ * <p>The pending entries are generated in rounds, ordered by the {@link SchedulingStrategy}.</p>
+ */
 public class HTTP2Flusher extends IteratingCallback implements Dumpable
 {
     private static final Logger LOG = Log.getLogger(HTTP2Flusher.class);
     private static final ByteBuffer[] EMPTY_BYTE_BUFFERS = new ByteBuffer[0];
 
-    private final Queue<WindowEntry> windows = new ArrayDeque<>();
-    private final Deque<Entry> entries = new ArrayDeque<>();
+    private final Queue<WindowEntry> windows = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> prependedEntries = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
     private final Queue<Entry> pendingEntries = new ArrayDeque<>();
     private final Set<Entry> processedEntries = new HashSet<>();
+    private final CounterStatistic queuedEntries = new CounterStatistic();
+    private final SampleStatistic flushedEntries = new SampleStatistic();
+    private final SampleStatistic flushedBytes = new SampleStatistic();
+    private final SampleStatistic[] latencies = new SampleStatistic[8];
+    private final AtomicReference<Throwable> terminated = new AtomicReference<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
-    private Throwable terminated;
+    private SchedulingStrategy scheduling = new FIFOSchedulingStrategy();
     private Entry stalledEntry;
 
     public HTTP2Flusher(HTTP2Session session)
     {
         this.session = session;
         this.lease = new ByteBufferPool.Lease(session.getGenerator().getByteBufferPool());
+        for (int i = 0; i < latencies.length; ++i)
+        {
+            latencies[i] = new SampleStatistic();
+        }
+    }
+
+    public SchedulingStrategy getSchedulingStrategy()
+    {
+        return scheduling;
+    }
+
+    /**
+     * @param scheduling the strategy that orders the frames of the streams, to be set before the session is used
+     */
+    public void setSchedulingStrategy(SchedulingStrategy scheduling)
+    {
+        this.scheduling = Objects.requireNonNull(scheduling);
     }
 
     public void window(IStream stream, WindowUpdateFrame frame)
     {
-        Throwable closed;
-        synchronized (this)
-        {
-            closed = terminated;
-            if (closed == null)
-                windows.offer(new WindowEntry(stream, frame));
-        }
+        if (terminated.get() != null)
+            return;
+        windows.offer(new WindowEntry(stream, frame));
         // Flush stalled data.
-        if (closed == null)
-            iterate();
+        iterate();
     }
 
+    /**
+     * <p>Queues an entry to be processed before the entries that are appended.</p>
+     *
+     * @param entry the entry to queue
+     * @return whether the entry has been queued, otherwise it has been failed
+     */
     public boolean prepend(Entry entry)
     {
-        Throwable closed;
-        synchronized (this)
-        {
-            closed = terminated;
-            if (closed == null)
-            {
-                entries.offerFirst(entry);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Prepended {}, entries={}", entry, entries.size());
-            }
-        }
-        if (closed == null)
-            return true;
-        closed(entry, closed);
-        return false;
+        return offer(prependedEntries, entry, "Prepended");
     }
 
+    /**
+     * @param entry the entry to queue
+     * @return whether the entry has been queued, otherwise it has been failed
+     */
     public boolean append(Entry entry)
     {
-        Throwable closed;
-        synchronized (this)
+        return offer(entries, entry, "Appended");
+    }
+
+    private boolean offer(Queue<Entry> queue, Entry entry, String action)
+    {
+        Throwable closed = terminated.get();
+        if (closed == null)
         {
-            closed = terminated;
-            if (closed == null)
-            {
-                entries.offer(entry);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Appended {}, entries={}", entry, entries.size());
-            }
+            queuedEntries.increment();
+            queue.offer(entry);
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} {}, entries={}", action, entry, queuedEntries.getCurrent());
+
+            // If the flusher has been terminated concurrently, the entry may have been
+            // queued after the queues have been failed, so fail it unless it was taken.
+            closed = terminated.get();
+            if (closed == null || !queue.remove(entry))
+                return true;
+            queuedEntries.decrement();
         }
-        if (closed == null)
-            return true;
         closed(entry, closed);
         return false;
     }
 
     private int getWindowQueueSize()
     {
-        synchronized (this)
-        {
-            return windows.size();
-        }
+        return windows.size();
     }
 
+    /**
+     * @return the number of entries queued and not yet taken by the flusher
+     */
     public int getFrameQueueSize()
     {
-        synchronized (this)
+        return (int)queuedEntries.getCurrent();
+    }
+
+    /**
+     * @return the max number of entries queued and not yet taken by the flusher
+     */
+    public int getMaxFrameQueueSize()
+    {
+        return (int)queuedEntries.getMax();
+    }
+
+    /**
+     * @return the number of writes of generated frames
+     */
+    public long getFlushCount()
+    {
+        return flushedEntries.getCount();
+    }
+
+    /**
+     * @return the mean number of entries whose frames are written together
+     */
+    public double getMeanFlushBatchSize()
+    {
+        return flushedEntries.getMean();
+    }
+
+    /**
+     * @return the max number of entries whose frames are written together
+     */
+    public long getMaxFlushBatchSize()
+    {
+        return flushedEntries.getMax();
+    }
+
+    /**
+     * @return the mean number of bytes written together
+     */
+    public double getMeanFlushBytes()
+    {
+        return flushedBytes.getMean();
+    }
+
+    /**
+     * @param urgency the RFC 9218 urgency of the streams, from 0 to 7
+     * @return the statistic of the times, in microseconds, from the creation of the
+     * entries of the streams of the given urgency to the write of all their frames
+     * @see SchedulingStrategy#toUrgency(int)
+     */
+    public SampleStatistic getStreamLatency(int urgency)
+    {
+        return latencies[urgency];
+    }
+
+    /**
+     * <p>Resets the max frame queue size, the flush statistics and the stream latencies.</p>
+     */
+    public void resetStatistics()
+    {
+        queuedEntries.reset();
+        flushedEntries.reset();
+        flushedBytes.reset();
+        for (SampleStatistic latency : latencies)
         {
-            return entries.size();
+            latency.reset();
         }
     }
 
@@ -133,24 +231,20 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("Flushing {}", session);
 
-        synchronized (this)
-        {
-            if (terminated != null)
-                throw terminated;
+        Throwable closed = terminated.get();
+        if (closed != null)
+            throw closed;
 
-            WindowEntry windowEntry;
-            while ((windowEntry = windows.poll()) != null)
-            {
-                windowEntry.perform();
-            }
-
-            Entry entry;
-            while ((entry = entries.poll()) != null)
-            {
-                pendingEntries.offer(entry);
-            }
+        WindowEntry windowEntry;
+        while ((windowEntry = windows.poll()) != null)
+        {
+            windowEntry.perform();
         }
 
+        int taken = take(prependedEntries, pendingEntries) + take(entries, pendingEntries);
+        if (taken > 0)
+            queuedEntries.add(-taken);
+
         if (pendingEntries.isEmpty())
         {
             if (LOG.isDebugEnabled())
@@ -158,13 +252,17 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return Action.IDLE;
         }
 
+        SchedulingStrategy scheduling = getSchedulingStrategy();
         while (true)
         {
             boolean progress = false;
+            boolean deferred = false;
 
             if (pendingEntries.isEmpty())
                 break;
 
+            scheduling.onRound(pendingEntries);
+
             Iterator<Entry> pending = pendingEntries.iterator();
             while (pending.hasNext())
             {
@@ -183,12 +281,21 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                     continue;
                 }
 
+                if (!scheduling.canGenerate(entry, 0))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Deferred {}", entry);
+                    deferred = true;
+                    continue;
+                }
+
                 try
                 {
-                    if (entry.generate(lease))
+                    int frames = generate(scheduling, entry);
+                    if (frames > 0)
                     {
                         if (LOG.isDebugEnabled())
-                            LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
+                            LOG.debug("Generated {} frames, {} frame bytes for {}", frames, entry.getFrameBytesGenerated(), entry);
 
                         progress = true;
 
@@ -225,7 +332,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                 }
             }
 
-            if (!progress)
+            // Entries deferred by the scheduling strategy are
+            // retried at the next round, even without progress.
+            if (!progress && !deferred)
                 break;
 
             if (stalledEntry != null)
@@ -247,6 +356,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return Action.IDLE;
         }
 
+        flushedEntries.record(processedEntries.size());
+        flushedBytes.record(lease.getTotalLength());
+
         if (LOG.isDebugEnabled())
             LOG.debug("Writing {} buffers ({} bytes) - entries processed/pending {}/{}: {}/{}",
                 byteBuffers.size(),
@@ -260,6 +372,33 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return Action.SCHEDULED;
     }
 
+    private int generate(SchedulingStrategy scheduling, Entry entry) throws HpackException
+    {
+        int frames = 0;
+        while (true)
+        {
+            int generated = entry.getFrameBytesGenerated();
+            if (!entry.generate(lease))
+                return frames;
+            ++frames;
+            scheduling.onGenerated(entry, entry.getFrameBytesGenerated() - generated);
+            if (entry.getDataBytesRemaining() == 0 || !scheduling.canGenerate(entry, frames))
+                return frames;
+        }
+    }
+
+    private static int take(Queue<Entry> queue, Collection<Entry> entries)
+    {
+        int taken = 0;
+        Entry entry;
+        while ((entry = queue.poll()) != null)
+        {
+            entries.add(entry);
+            ++taken;
+        }
+        return taken;
+    }
+
     void onFlushed(long bytes) throws IOException
     {
         // A single EndPoint write may be flushed multiple times (for example with SSL).
@@ -287,7 +426,16 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         lease.recycle();
 
-        processedEntries.forEach(Entry::succeeded);
+        long now = System.nanoTime();
+        for (Entry entry : processedEntries)
+        {
+            entry.succeeded();
+            if (entry.stream != null && entry.getDataBytesRemaining() == 0 && !entry.isProtocol())
+            {
+                int urgency = SchedulingStrategy.toUrgency(entry.stream.getWeight());
+                latencies[urgency].record(TimeUnit.NANOSECONDS.toMicros(now - entry.timeStamp));
+            }
+        }
         processedEntries.clear();
 
         if (stalledEntry != null)
@@ -316,21 +464,19 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         lease.recycle();
 
-        Throwable closed;
-        Set<Entry> allEntries;
-        synchronized (this)
-        {
-            closed = terminated;
-            terminated = x;
-            if (LOG.isDebugEnabled())
-                LOG.debug(String.format("%s, entries processed/pending/queued=%d/%d/%d",
-                    closed != null ? "Closing" : "Failing",
-                    processedEntries.size(),
-                    pendingEntries.size(),
-                    entries.size()), x);
-            allEntries = new HashSet<>(entries);
-            entries.clear();
-        }
+        Throwable closed = terminated.getAndSet(x);
+        if (LOG.isDebugEnabled())
+            LOG.debug(String.format("%s, entries processed/pending/queued=%d/%d/%d",
+                closed != null ? "Closing" : "Failing",
+                processedEntries.size(),
+                pendingEntries.size(),
+                queuedEntries.getCurrent()), x);
+
+        // Producers that queue entries after this point fail them.
+        Set<Entry> allEntries = new HashSet<>();
+        int taken = take(prependedEntries, allEntries) + take(entries, allEntries);
+        if (taken > 0)
+            queuedEntries.add(-taken);
 
         allEntries.addAll(processedEntries);
         processedEntries.clear();
@@ -346,14 +492,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
     void terminate(Throwable cause)
     {
-        Throwable closed;
-        synchronized (this)
-        {
-            closed = terminated;
-            terminated = cause;
-            if (LOG.isDebugEnabled())
-                LOG.debug("{}", closed != null ? "Terminated" : "Terminating");
-        }
+        Throwable closed = terminated.getAndSet(cause);
+        if (LOG.isDebugEnabled())
+            LOG.debug("{}", closed != null ? "Terminated" : "Terminating");
         if (closed == null)
             iterate();
     }
@@ -378,18 +519,20 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     @Override
     public String toString()
     {
-        return String.format("%s[window_queue=%d,frame_queue=%d,processed/pending=%d/%d]",
+        return String.format("%s[window_queue=%d,frame_queue=%d,processed/pending=%d/%d,%s]",
             super.toString(),
             getWindowQueueSize(),
             getFrameQueueSize(),
             processedEntries.size(),
-            pendingEntries.size());
+            pendingEntries.size(),
+            scheduling);
     }
 
     public abstract static class Entry extends Callback.Nested
     {
         protected final Frame frame;
         protected final IStream stream;
+        private final long timeStamp = System.nanoTime();
 
         protected Entry(Frame frame, IStream stream, Callback callback)
         {
@@ -398,6 +541,19 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             this.stream = stream;
         }
 
+        public Frame getFrame()
+        {
+            return frame;
+        }
+
+        /**
+         * @return the stream of the frame, or null if the frame belongs to the session
+         */
+        public IStream getStream()
+        {
+            return stream;
+        }
+
         public abstract int getFrameBytesGenerated();
 
         public int getDataBytesRemaining()
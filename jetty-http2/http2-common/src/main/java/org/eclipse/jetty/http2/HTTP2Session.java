@@ -65,6 +65,7 @@ import org.eclipse.jetty.util.MathUtils;
 import org.eclipse.jetty.util.Promise;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.log.Log;
@@ -197,6 +198,17 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         this.initialSessionRecvWindow = initialSessionRecvWindow;
     }
 
+    @ManagedAttribute(value = "The strategy that schedules the frames of the streams", readonly = true)
+    public SchedulingStrategy getSchedulingStrategy()
+    {
+        return flusher.getSchedulingStrategy();
+    }
+
+    public void setSchedulingStrategy(SchedulingStrategy schedulingStrategy)
+    {
+        flusher.setSchedulingStrategy(schedulingStrategy);
+    }
+
     public int getWriteThreshold()
     {
         return writeThreshold;
@@ -284,6 +296,11 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Received {}", frame);
+
+        // Only the weight is used to schedule the frames, the dependencies are ignored.
+        IStream stream = getStream(frame.getStreamId());
+        if (stream != null)
+            stream.updateWeight(frame.getWeight());
     }
 
     @Override
@@ -404,7 +421,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
         if (frame.isReply())
         {
-            notifyPing(this, frame);
+            if (!flowControl.onPingReply(this, frame))
+                notifyPing(this, frame);
         }
         else
         {
@@ -896,6 +914,110 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         return recvWindow.get();
     }
 
+    @ManagedAttribute(value = "The number of times the session flow control send window has stalled", readonly = true)
+    public long getSessionStallCount()
+    {
+        if (flowControl instanceof AbstractFlowControlStrategy)
+            return ((AbstractFlowControlStrategy)flowControl).getSessionStallCount();
+        return 0;
+    }
+
+    @ManagedAttribute(value = "The number of times the streams flow control send windows have stalled", readonly = true)
+    public long getStreamsStallCount()
+    {
+        if (flowControl instanceof AbstractFlowControlStrategy)
+            return ((AbstractFlowControlStrategy)flowControl).getStreamsStallCount();
+        return 0;
+    }
+
+    @ManagedAttribute(value = "The number of frames queued for writing", readonly = true)
+    public int getFrameQueueSize()
+    {
+        return flusher.getFrameQueueSize();
+    }
+
+    @ManagedAttribute(value = "The max number of frames queued for writing", readonly = true)
+    public int getMaxFrameQueueSize()
+    {
+        return flusher.getMaxFrameQueueSize();
+    }
+
+    @ManagedAttribute(value = "The number of writes of frames", readonly = true)
+    public long getFlushCount()
+    {
+        return flusher.getFlushCount();
+    }
+
+    @ManagedAttribute(value = "The mean number of frames written together", readonly = true)
+    public double getMeanFlushBatchSize()
+    {
+        return flusher.getMeanFlushBatchSize();
+    }
+
+    @ManagedAttribute(value = "The max number of frames written together", readonly = true)
+    public long getMaxFlushBatchSize()
+    {
+        return flusher.getMaxFlushBatchSize();
+    }
+
+    @ManagedAttribute(value = "The mean number of bytes written together", readonly = true)
+    public double getMeanFlushBytes()
+    {
+        return flusher.getMeanFlushBytes();
+    }
+
+    @ManagedAttribute(value = "The mean times in ms to write the frames of the streams, by urgency from 0 to 7", readonly = true)
+    public double[] getMeanStreamLatencies()
+    {
+        double[] result = new double[8];
+        for (int urgency = 0; urgency < result.length; ++urgency)
+        {
+            result[urgency] = flusher.getStreamLatency(urgency).getMean() / 1000D;
+        }
+        return result;
+    }
+
+    @ManagedAttribute(value = "The max times in ms to write the frames of the streams, by urgency from 0 to 7", readonly = true)
+    public double[] getMaxStreamLatencies()
+    {
+        double[] result = new double[8];
+        for (int urgency = 0; urgency < result.length; ++urgency)
+        {
+            result[urgency] = flusher.getStreamLatency(urgency).getMax() / 1000D;
+        }
+        return result;
+    }
+
+    @ManagedAttribute(value = "The ratio of the HPACK encoded octets to the octets of the header fields sent", readonly = true)
+    public double getHpackCompressionRatio()
+    {
+        return generator.getHpackEncoder().getCompressionRatio();
+    }
+
+    @ManagedAttribute(value = "The number of header fields sent as an index of the HPACK tables", readonly = true)
+    public long getHpackIndexedFieldCount()
+    {
+        return generator.getHpackEncoder().getIndexedFieldCount();
+    }
+
+    @ManagedAttribute(value = "The number of header fields sent as a literal value with an indexed name", readonly = true)
+    public long getHpackIndexedNameCount()
+    {
+        return generator.getHpackEncoder().getIndexedNameCount();
+    }
+
+    @ManagedAttribute(value = "The number of header fields sent as a literal name and value", readonly = true)
+    public long getHpackLiteralFieldCount()
+    {
+        return generator.getHpackEncoder().getLiteralFieldCount();
+    }
+
+    @ManagedOperation(value = "Resets the statistics of the frames written", impact = "ACTION")
+    public void resetFlushStatistics()
+    {
+        flusher.resetStatistics();
+    }
+
     @Override
     public int updateSendWindow(int delta)
     {
@@ -76,6 +76,8 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
     private long dataDemand;
     private boolean dataInitial;
     private boolean dataProcess;
+    private final boolean priorityHeader;
+    private volatile int weight;
 
     public HTTP2Stream(Scheduler scheduler, ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -86,6 +88,30 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         this.local = local;
         this.dataLength = Long.MIN_VALUE;
         this.dataInitial = true;
+        HttpFields fields = request == null ? null : request.getFields();
+        this.priorityHeader = fields != null && fields.containsKey("priority");
+        this.weight = SchedulingStrategy.toWeight(urgency(request));
+    }
+
+    private static int urgency(MetaData.Request request)
+    {
+        // The RFC 9218 Priority header, for example "u=1, i".
+        HttpFields fields = request == null ? null : request.getFields();
+        String priority = fields == null ? null : fields.get("priority");
+        if (priority != null)
+        {
+            for (String parameter : priority.split(","))
+            {
+                parameter = parameter.trim();
+                if (parameter.length() == 3 && parameter.startsWith("u="))
+                {
+                    int urgency = parameter.charAt(2) - '0';
+                    if (urgency >= 0 && urgency <= 7)
+                        return urgency;
+                }
+            }
+        }
+        return SchedulingStrategy.DEFAULT_URGENCY;
     }
 
     @Override
@@ -580,6 +606,25 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
         }
     }
 
+    @Override
+    public int getWeight()
+    {
+        return weight;
+    }
+
+    @Override
+    public void setWeight(int weight)
+    {
+        this.weight = Math.max(1, Math.min(256, weight));
+    }
+
+    @Override
+    public void updateWeight(int weight)
+    {
+        if (!priorityHeader)
+            setWeight(weight);
+    }
+
     public int getSendWindow()
     {
         return sendWindow.get();
@@ -793,12 +838,13 @@ public class HTTP2Stream extends IdleTimeout implements IStream, Callback, Dumpa
     @Override
     public String toString()
     {
-        return String.format("%s@%x#%d{sendWindow=%s,recvWindow=%s,demand=%d,reset=%b/%b,%s,age=%d,attachment=%s}",
+        return String.format("%s@%x#%d{sendWindow=%s,recvWindow=%s,weight=%d,demand=%d,reset=%b/%b,%s,age=%d,attachment=%s}",
             getClass().getSimpleName(),
             hashCode(),
             getId(),
             sendWindow,
             recvWindow,
+            weight,
             demand(),
             localReset,
             remoteReset,
@@ -114,4 +114,26 @@ public interface IStream extends Stream, Closeable
      * @see #isClosed()
      */
     boolean isRemotelyClosed();
+
+    /**
+     * @return the weight of this stream, from 1 to 256, used to schedule the frames it sends
+     * @see SchedulingStrategy
+     */
+    int getWeight();
+
+    /**
+     * @param weight the weight of this stream, from 1 to 256
+     * @see #getWeight()
+     */
+    void setWeight(int weight);
+
+    /**
+     * <p>Sets the weight of this stream from a HTTP/2 priority, as carried by
+     * PRIORITY frames and HEADERS frames, unless the request of this stream
+     * has a RFC 9218 {@code Priority} header, which has precedence.</p>
+     *
+     * @param weight the weight of the HTTP/2 priority, from 1 to 256
+     * @see #setWeight(int)
+     */
+    void updateWeight(int weight);
 }
@@ -0,0 +1,158 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import org.eclipse.jetty.http2.frames.FrameType;
+
+/**
+ * <p>A {@link SchedulingStrategy} that rotates the streams that send DATA frames,
+ * so that a different stream is the first to use the session flow control window
+ * at each round, and each stream generates one frame per round.</p>
+ * <p>At each round, the entries that do not belong to a stream, such as {@code PING}
+ * or {@code SETTINGS}, are generated first, followed by the entries of the streams
+ * whose first entry is not a DATA frame, such as the {@code HEADERS} of a response,
+ * in the order they have been queued, and finally by the entries of the streams
+ * whose first entry is a DATA frame, in the order chosen by {@link #schedule(List)}.</p>
+ */
+public class RoundRobinSchedulingStrategy implements SchedulingStrategy
+{
+    private final List<HTTP2Flusher.Entry> entries = new ArrayList<>();
+    private final Map<IStream, List<HTTP2Flusher.Entry>> groups = new LinkedHashMap<>();
+    private final List<IStream> streams = new ArrayList<>();
+    private int lastStreamId;
+
+    @Override
+    public void onRound(Queue<HTTP2Flusher.Entry> queue)
+    {
+        if (queue.size() < 2)
+        {
+            scheduleSingle(queue);
+            return;
+        }
+
+        // Entries that close the session, and those after them, keep their positions.
+        HTTP2Flusher.Entry entry;
+        while ((entry = queue.peek()) != null && !isClosing(entry))
+        {
+            queue.poll();
+            IStream stream = entry.getStream();
+            if (stream == null)
+            {
+                entries.add(entry);
+            }
+            else
+            {
+                List<HTTP2Flusher.Entry> group = groups.get(stream);
+                if (group == null)
+                {
+                    group = new ArrayList<>();
+                    groups.put(stream, group);
+                    if (entry.getFrame().getType() == FrameType.DATA)
+                        streams.add(stream);
+                }
+                group.add(entry);
+            }
+        }
+        List<HTTP2Flusher.Entry> tail = queue.isEmpty() ? Collections.emptyList() : new ArrayList<>(queue);
+        queue.clear();
+
+        queue.addAll(entries);
+        entries.clear();
+        for (Map.Entry<IStream, List<HTTP2Flusher.Entry>> group : groups.entrySet())
+        {
+            if (group.getValue().get(0).getFrame().getType() != FrameType.DATA)
+                queue.addAll(group.getValue());
+        }
+        schedule(streams);
+        for (IStream stream : streams)
+        {
+            queue.addAll(groups.get(stream));
+        }
+        streams.clear();
+        groups.clear();
+        queue.addAll(tail);
+    }
+
+    private void scheduleSingle(Queue<HTTP2Flusher.Entry> queue)
+    {
+        HTTP2Flusher.Entry entry = queue.peek();
+        IStream stream = entry == null ? null : entry.getStream();
+        if (stream != null && entry.getFrame().getType() == FrameType.DATA)
+            streams.add(stream);
+        schedule(streams);
+        streams.clear();
+    }
+
+    private boolean isClosing(HTTP2Flusher.Entry entry)
+    {
+        FrameType type = entry.getFrame().getType();
+        return type == FrameType.GO_AWAY || type == FrameType.DISCONNECT;
+    }
+
+    /**
+     * <p>Orders the streams whose first pending entry is a DATA frame.</p>
+     * <p>This implementation orders the streams by id, starting from the first stream
+     * whose id is greater than the id of the first stream of the previous round.</p>
+     *
+     * @param streams the streams, in the order their entries have been queued
+     */
+    protected void schedule(List<IStream> streams)
+    {
+        int size = streams.size();
+        if (size == 0)
+            return;
+        if (size > 1)
+        {
+            streams.sort(Comparator.comparingInt(IStream::getId));
+            int first = 0;
+            while (first < size && streams.get(first).getId() <= lastStreamId)
+            {
+                ++first;
+            }
+            if (first < size)
+                Collections.rotate(streams, -first);
+        }
+        lastStreamId = streams.get(0).getId();
+    }
+
+    @Override
+    public boolean canGenerate(HTTP2Flusher.Entry entry, int frames)
+    {
+        return frames == 0;
+    }
+
+    @Override
+    public void onGenerated(HTTP2Flusher.Entry entry, int frameBytes)
+    {
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
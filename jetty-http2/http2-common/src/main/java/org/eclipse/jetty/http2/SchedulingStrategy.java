@@ -0,0 +1,97 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Queue;
+
+/**
+ * <p>Decides the order in which the {@link HTTP2Flusher} generates the frames
+ * of the streams of a session, and how many frames each stream generates.</p>
+ * <p>The flusher generates frames in rounds: at the beginning of each round the
+ * pending entries are passed to {@link #onRound(Queue)}, that may reorder them,
+ * and then each entry, in order, generates frames while {@link #canGenerate(HTTP2Flusher.Entry, int)}
+ * returns true, within the flow control windows of its stream and of the session.
+ * Entries that cannot generate in a round are deferred to the next round.</p>
+ * <p>A strategy is used by the flusher of a single session, only one thread
+ * at a time, so it does not need to be thread safe.</p>
+ */
+public interface SchedulingStrategy
+{
+    /**
+     * <p>The RFC 9218 urgency of streams that did not signal a priority.</p>
+     */
+    public static final int DEFAULT_URGENCY = 3;
+
+    /**
+     * <p>The RFC 7540 weight of streams that did not signal a priority.</p>
+     */
+    public static final int DEFAULT_WEIGHT = 16;
+
+    /**
+     * <p>Reorders the given pending entries at the beginning of a round.</p>
+     * <p>Implementations must preserve the relative order of the entries of the same
+     * stream, and the position of the entries that close the session, such as
+     * {@code GOAWAY}, with respect to all the other entries.</p>
+     *
+     * @param entries the pending entries, in the order they will be generated
+     */
+    public void onRound(Queue<HTTP2Flusher.Entry> entries);
+
+    /**
+     * @param entry the entry that may generate a frame
+     * @param frames the number of frames already generated by the entry in this round
+     * @return whether the entry can generate a frame now, otherwise it is deferred,
+     * and must be allowed to generate its first frame after a finite number of rounds
+     */
+    public boolean canGenerate(HTTP2Flusher.Entry entry, int frames);
+
+    /**
+     * @param entry the entry that has generated a frame
+     * @param frameBytes the number of bytes of the frame
+     */
+    public void onGenerated(HTTP2Flusher.Entry entry, int frameBytes);
+
+    /**
+     * <p>Converts a RFC 9218 urgency to a RFC 7540 weight, so that the default urgency 3
+     * has the default weight 16, and each urgency level doubles the weight.</p>
+     *
+     * @param urgency the urgency, from 0 (highest) to 7 (lowest)
+     * @return the weight, from 128 to 1
+     */
+    public static int toWeight(int urgency)
+    {
+        return 1 << (7 - Math.max(0, Math.min(7, urgency)));
+    }
+
+    /**
+     * @param weight the weight, from 1 to 256
+     * @return the urgency, from 0 (highest) to 7 (lowest)
+     * @see #toWeight(int)
+     */
+    public static int toUrgency(int weight)
+    {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, weight));
+        return Math.max(0, Math.min(7, 8 - bits));
+    }
+
+    public interface Factory
+    {
+        public SchedulingStrategy newSchedulingStrategy();
+    }
+}
@@ -0,0 +1,221 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.GoAwayFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SchedulingStrategyTest
+{
+    @Test
+    public void testUrgencyWeight()
+    {
+        assertEquals(SchedulingStrategy.DEFAULT_WEIGHT, SchedulingStrategy.toWeight(SchedulingStrategy.DEFAULT_URGENCY));
+        for (int urgency = 0; urgency < 8; ++urgency)
+        {
+            assertEquals(urgency, SchedulingStrategy.toUrgency(SchedulingStrategy.toWeight(urgency)));
+        }
+        assertEquals(0, SchedulingStrategy.toUrgency(256));
+        assertEquals(7, SchedulingStrategy.toUrgency(1));
+
+        assertEquals(SchedulingStrategy.DEFAULT_WEIGHT, newStream(1, null).getWeight());
+        assertEquals(128, newStream(1, "u=0, i").getWeight());
+        assertEquals(1, newStream(1, "i, u=7").getWeight());
+        assertEquals(SchedulingStrategy.DEFAULT_WEIGHT, newStream(1, "u=9").getWeight());
+    }
+
+    @Test
+    public void testPriorityHeaderPrecedence()
+    {
+        IStream stream1 = newStream(1, null);
+        stream1.updateWeight(32);
+        assertEquals(32, stream1.getWeight());
+
+        IStream stream3 = newStream(3, "u=0");
+        stream3.updateWeight(32);
+        assertEquals(128, stream3.getWeight());
+    }
+
+    @Test
+    public void testFIFO()
+    {
+        IStream stream1 = newStream(1, null);
+        IStream stream3 = newStream(3, null);
+        List<HTTP2Flusher.Entry> entries = Arrays.asList(data(stream1), ping(), data(stream3));
+        Queue<HTTP2Flusher.Entry> queue = new ArrayDeque<>(entries);
+
+        SchedulingStrategy scheduling = new FIFOSchedulingStrategy();
+        scheduling.onRound(queue);
+
+        assertEquals(entries, new ArrayList<>(queue));
+        assertTrue(scheduling.canGenerate(entries.get(0), 0));
+        assertFalse(scheduling.canGenerate(entries.get(0), 1));
+    }
+
+    @Test
+    public void testRoundRobin()
+    {
+        IStream stream1 = newStream(1, null);
+        IStream stream3 = newStream(3, null);
+        IStream stream5 = newStream(5, null);
+        IStream stream7 = newStream(7, null);
+        HTTP2Flusher.Entry data1 = data(stream1);
+        HTTP2Flusher.Entry data3 = data(stream3);
+        HTTP2Flusher.Entry ping = ping();
+        HTTP2Flusher.Entry headers7 = headers(stream7);
+        HTTP2Flusher.Entry data5 = data(stream5);
+        HTTP2Flusher.Entry trailers3 = headers(stream3);
+        HTTP2Flusher.Entry goAway = goAway();
+        HTTP2Flusher.Entry data5AfterGoAway = data(stream5);
+        List<HTTP2Flusher.Entry> entries = Arrays.asList(data1, data3, ping, headers7, data5, trailers3, goAway, data5AfterGoAway);
+
+        SchedulingStrategy scheduling = new RoundRobinSchedulingStrategy();
+        Queue<HTTP2Flusher.Entry> queue = new ArrayDeque<>(entries);
+        scheduling.onRound(queue);
+        // Entries without stream first, then streams that do not start with DATA,
+        // then the other streams; the entries of a stream are never reordered.
+        assertEquals(Arrays.asList(ping, headers7, data1, data3, trailers3, data5, goAway, data5AfterGoAway), new ArrayList<>(queue));
+
+        // The next round starts from the next stream.
+        queue = new ArrayDeque<>(entries);
+        scheduling.onRound(queue);
+        assertEquals(Arrays.asList(ping, headers7, data3, trailers3, data5, data1, goAway, data5AfterGoAway), new ArrayList<>(queue));
+
+        queue = new ArrayDeque<>(entries);
+        scheduling.onRound(queue);
+        assertEquals(Arrays.asList(ping, headers7, data5, data1, data3, trailers3, goAway, data5AfterGoAway), new ArrayList<>(queue));
+
+        queue = new ArrayDeque<>(entries);
+        scheduling.onRound(queue);
+        assertEquals(Arrays.asList(ping, headers7, data1, data3, trailers3, data5, goAway, data5AfterGoAway), new ArrayList<>(queue));
+    }
+
+    @Test
+    public void testDeficitRoundRobin()
+    {
+        int quantum = 1000;
+        IStream stream1 = newStream(1, null);
+        IStream stream3 = newStream(3, null);
+        stream3.setWeight(4 * SchedulingStrategy.DEFAULT_WEIGHT);
+        IStream stream5 = newStream(5, null);
+        stream5.setWeight(SchedulingStrategy.DEFAULT_WEIGHT / 4);
+        HTTP2Flusher.Entry data1 = data(stream1);
+        HTTP2Flusher.Entry data3 = data(stream3);
+        HTTP2Flusher.Entry data5 = data(stream5);
+
+        SchedulingStrategy scheduling = new DeficitRoundRobinSchedulingStrategy(quantum);
+        int[] frames = new int[3];
+        for (int round = 0; round < 8; ++round)
+        {
+            Queue<HTTP2Flusher.Entry> queue = new ArrayDeque<>(Arrays.asList(data1, data3, data5));
+            scheduling.onRound(queue);
+            for (HTTP2Flusher.Entry entry : queue)
+            {
+                int generated = 0;
+                while (scheduling.canGenerate(entry, generated))
+                {
+                    scheduling.onGenerated(entry, quantum);
+                    ++generated;
+                }
+                frames[entry.getStream().getId() / 2] += generated;
+            }
+        }
+
+        // The frames are shared in proportion to the weights.
+        assertEquals(8, frames[0]);
+        assertEquals(32, frames[1]);
+        assertEquals(2, frames[2]);
+    }
+
+    private static IStream newStream(int streamId, String priority)
+    {
+        HttpFields fields = new HttpFields();
+        if (priority != null)
+            fields.put("priority", priority);
+        MetaData.Request request = new MetaData.Request("GET", new HttpURI("http://localhost/"), HttpVersion.HTTP_2, fields);
+        return new HTTP2Stream(null, null, streamId, request, false);
+    }
+
+    private static HTTP2Flusher.Entry data(IStream stream)
+    {
+        return new TestEntry(new DataFrame(stream.getId(), ByteBuffer.allocate(1024), true), stream);
+    }
+
+    private static HTTP2Flusher.Entry headers(IStream stream)
+    {
+        return new TestEntry(new HeadersFrame(stream.getId(), new MetaData(HttpVersion.HTTP_2, new HttpFields()), null, true), stream);
+    }
+
+    private static HTTP2Flusher.Entry ping()
+    {
+        return new TestEntry(new PingFrame(false), null);
+    }
+
+    private static HTTP2Flusher.Entry goAway()
+    {
+        return new TestEntry(new GoAwayFrame(7, ErrorCode.NO_ERROR.code, null), null);
+    }
+
+    private static class TestEntry extends HTTP2Flusher.Entry
+    {
+        private TestEntry(Frame frame, IStream stream)
+        {
+            super(frame, stream, Callback.NOOP);
+        }
+
+        @Override
+        public int getFrameBytesGenerated()
+        {
+            return 0;
+        }
+
+        @Override
+        protected boolean generate(ByteBufferPool.Lease lease)
+        {
+            return false;
+        }
+
+        @Override
+        public long onFlushed(long bytes)
+        {
+            return bytes;
+        }
+    }
+}
@@ -30,7 +30,6 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.util.ArrayTernaryTrie;
-import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.Trie;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -190,8 +189,6 @@ public class HpackContext
     private int _maxDynamicTableSizeInBytes;
     private int _dynamicTableSizeInBytes;
     private final DynamicTable _dynamicTable;
-    private final Map<HttpField, Entry> _fieldMap = new HashMap<>();
-    private final Map<String, Entry> _nameMap = new HashMap<>();
 
     HpackContext(int maxDynamicTableSize)
     {
@@ -212,7 +209,7 @@ public class HpackContext
 
     public Entry get(HttpField field)
     {
-        Entry entry = _fieldMap.get(field);
+        Entry entry = _dynamicTable.get(field);
         if (entry == null)
             entry = __staticFieldMap.get(field);
         return entry;
@@ -223,7 +220,7 @@ public class HpackContext
         Entry entry = __staticNameMap.get(name);
         if (entry != null)
             return entry;
-        return _nameMap.get(StringUtil.asciiToLowerCase(name));
+        return _dynamicTable.get(name);
     }
 
     public Entry get(int index)
@@ -260,8 +257,6 @@ public class HpackContext
         }
         _dynamicTableSizeInBytes += size;
         _dynamicTable.add(entry);
-        _fieldMap.put(field, entry);
-        _nameMap.put(field.getLowerCaseName(), entry);
 
         if (LOG.isDebugEnabled())
             LOG.debug(String.format("HdrTbl[%x] added %s", hashCode(), entry));
@@ -319,17 +314,30 @@ public class HpackContext
         return String.format("HpackContext@%x{entries=%d,size=%d,max=%d}", hashCode(), _dynamicTable.size(), _dynamicTableSizeInBytes, _maxDynamicTableSizeInBytes);
     }
 
+    /**
+     * <p>The dynamic table, held in a ring buffer of entries.</p>
+     * <p>The entries are looked up by field and by name with open addressed hash
+     * tables, with linear probing, that hold the slots of the entries in the
+     * ring buffer plus one, zero being an empty bucket.  So adding and evicting
+     * entries, which happens for most fields sent on a connection, does not
+     * allocate map entries, and evicted entries are removed by shifting back
+     * the following buckets of the probe sequence rather than with tombstones.</p>
+     */
     private class DynamicTable
     {
         Entry[] _entries;
         int _size;
         int _offset;
         int _growby;
+        int[] _fieldIndex;
+        int[] _nameIndex;
 
         private DynamicTable(int initCapacity)
         {
             _entries = new Entry[initCapacity];
             _growby = initCapacity;
+            _fieldIndex = new int[indexCapacity(initCapacity)];
+            _nameIndex = new int[_fieldIndex.length];
         }
 
         public void add(Entry entry)
@@ -345,10 +353,13 @@ public class HpackContext
                 }
                 _entries = entries;
                 _offset = 0;
+                reindex();
             }
             int slot = (_size++ + _offset) % _entries.length;
             _entries[slot] = entry;
             entry._slot = slot;
+            put(_fieldIndex, entry._fieldHash, slot, true);
+            put(_nameIndex, entry._nameHash, slot, false);
         }
 
         public int index(Entry entry)
@@ -365,16 +376,104 @@ public class HpackContext
             return _entries[slot];
         }
 
+        public Entry get(HttpField field)
+        {
+            int[] index = _fieldIndex;
+            int mask = index.length - 1;
+            for (int i = spread(field.hashCode()) & mask; index[i] != 0; i = (i + 1) & mask)
+            {
+                Entry entry = _entries[index[i] - 1];
+                if (entry._field.equals(field))
+                    return entry;
+            }
+            return null;
+        }
+
+        public Entry get(String name)
+        {
+            int[] index = _nameIndex;
+            int mask = index.length - 1;
+            for (int i = nameHash(name) & mask; index[i] != 0; i = (i + 1) & mask)
+            {
+                Entry entry = _entries[index[i] - 1];
+                if (entry._field.getName().equalsIgnoreCase(name))
+                    return entry;
+            }
+            return null;
+        }
+
         public int size()
         {
             return _size;
         }
 
+        private void put(int[] index, int hash, int slot, boolean byField)
+        {
+            int mask = index.length - 1;
+            HttpField field = _entries[slot]._field;
+            int i = hash & mask;
+            while (index[i] != 0)
+            {
+                // A more recent entry with the same field or name replaces the older one.
+                HttpField other = _entries[index[i] - 1]._field;
+                if (byField ? other.equals(field) : other.getName().equalsIgnoreCase(field.getName()))
+                    break;
+                i = (i + 1) & mask;
+            }
+            index[i] = slot + 1;
+        }
+
+        private void remove(int[] index, int hash, int slot, boolean byField)
+        {
+            int mask = index.length - 1;
+            int i = hash & mask;
+            while (index[i] != slot + 1)
+            {
+                // Not indexed, as it was replaced by a more recent entry.
+                if (index[i] == 0)
+                    return;
+                i = (i + 1) & mask;
+            }
+
+            // Shift back the buckets of the probe sequence that would not be found once the bucket is emptied.
+            int j = i;
+            while (true)
+            {
+                j = (j + 1) & mask;
+                int value = index[j];
+                if (value == 0)
+                    break;
+                Entry entry = _entries[value - 1];
+                int k = (byField ? entry._fieldHash : entry._nameHash) & mask;
+                if (i <= j ? (i < k && k <= j) : (i < k || k <= j))
+                    continue;
+                index[i] = value;
+                i = j;
+            }
+            index[i] = 0;
+        }
+
+        private void reindex()
+        {
+            _fieldIndex = new int[indexCapacity(_entries.length)];
+            _nameIndex = new int[_fieldIndex.length];
+            // Index from the oldest to the most recent entry, that replaces older entries with the same field or name.
+            for (int i = 0; i < _size; i++)
+            {
+                int slot = (_offset + i) % _entries.length;
+                Entry entry = _entries[slot];
+                put(_fieldIndex, entry._fieldHash, slot, true);
+                put(_nameIndex, entry._nameHash, slot, false);
+            }
+        }
+
         private void evict()
         {
             while (_dynamicTableSizeInBytes > _maxDynamicTableSizeInBytes)
             {
                 Entry entry = _entries[_offset];
+                remove(_fieldIndex, entry._fieldHash, _offset, true);
+                remove(_nameIndex, entry._nameHash, _offset, false);
                 _entries[_offset] = null;
                 _offset = (_offset + 1) % _entries.length;
                 _size--;
@@ -382,10 +481,6 @@ public class HpackContext
                     LOG.debug(String.format("HdrTbl[%x] evict %s", HpackContext.this.hashCode(), entry));
                 _dynamicTableSizeInBytes -= entry.getSize();
                 entry._slot = -1;
-                _fieldMap.remove(entry.getHttpField());
-                String lc = entry.getHttpField().getLowerCaseName();
-                if (entry == _nameMap.get(lc))
-                    _nameMap.remove(lc);
             }
             if (LOG.isDebugEnabled())
                 LOG.debug(String.format("HdrTbl[%x] entries=%d, size=%d, max=%d", HpackContext.this.hashCode(), _dynamicTable.size(), _dynamicTableSizeInBytes, _maxDynamicTableSizeInBytes));
@@ -395,8 +490,12 @@ public class HpackContext
         {
             if (LOG.isDebugEnabled())
                 LOG.debug(String.format("HdrTbl[%x] evictAll", HpackContext.this.hashCode()));
-            _fieldMap.clear();
-            _nameMap.clear();
+            for (int i = 0; i < _size; i++)
+            {
+                _entries[(_offset + i) % _entries.length]._slot = -1;
+            }
+            Arrays.fill(_fieldIndex, 0);
+            Arrays.fill(_nameIndex, 0);
             _offset = 0;
             _size = 0;
             _dynamicTableSizeInBytes = 0;
@@ -404,20 +503,58 @@ public class HpackContext
         }
     }
 
+    /**
+     * @param entries the capacity of the ring buffer
+     * @return a power of 2 capacity for the hash tables, so that they are at most half full
+     */
+    private static int indexCapacity(int entries)
+    {
+        return Integer.highestOneBit(Math.max(entries, 4) * 4 - 1);
+    }
+
+    /**
+     * @param name the name to hash
+     * @return a case insensitive hash of the name, that does not allocate a lower case copy
+     */
+    static int nameHash(String name)
+    {
+        int h = 0;
+        int length = name.length();
+        for (int i = 0; i < length; i++)
+        {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z')
+                c += 0x20;
+            h = 31 * h + c;
+        }
+        return spread(h);
+    }
+
+    private static int spread(int h)
+    {
+        return h ^ (h >>> 16);
+    }
+
     public static class Entry
     {
         final HttpField _field;
+        final int _fieldHash;
+        final int _nameHash;
         int _slot; // The index within it's array
 
         Entry()
         {
             _slot = -1;
             _field = null;
+            _fieldHash = 0;
+            _nameHash = 0;
         }
 
         Entry(HttpField field)
         {
             _field = field;
+            _fieldHash = spread(field.hashCode());
+            _nameHash = nameHash(field.getName());
         }
 
         public int getSize()
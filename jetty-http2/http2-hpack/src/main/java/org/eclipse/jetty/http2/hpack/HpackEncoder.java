@@ -20,9 +20,12 @@ package org.eclipse.jetty.http2.hpack;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jetty.http.HttpField;
@@ -34,6 +37,7 @@ import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.http2.hpack.HpackContext.Entry;
 import org.eclipse.jetty.http2.hpack.HpackContext.StaticEntry;
 import org.eclipse.jetty.util.BufferUtil;
@@ -41,6 +45,19 @@ import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
+/**
+ * <p>The HPACK encoder of the header blocks sent on a connection.</p>
+ * <p>Fields are indexed in the dynamic table with a fixed policy for the well
+ * known headers, such as never indexing {@code authorization}, and, when
+ * {@link #isAdaptiveIndexing() adaptive indexing} is enabled, with a policy
+ * that learns how the values of each header name repeat on the connection:
+ * a field whose value was recently sent is indexed, even if its name is known,
+ * while the fields of names whose values are mostly distinct, such as
+ * {@code :path} for an API or request ids, are not indexed, so that they
+ * do not evict the entries that are referenced.</p>
+ * <p>The encoder records how the fields were represented and the octets saved,
+ * that are reset with {@link #resetStatistics()}.</p>
+ */
 public class HpackEncoder
 {
     private static final Logger LOG = Log.getLogger(HpackEncoder.class);
@@ -82,6 +99,7 @@ public class HpackEncoder
     private static final PreEncodedHttpField C_SCHEME_HTTP = new PreEncodedHttpField(HttpHeader.C_SCHEME, "http");
     private static final PreEncodedHttpField C_SCHEME_HTTPS = new PreEncodedHttpField(HttpHeader.C_SCHEME, "https");
     private static final EnumMap<HttpMethod, PreEncodedHttpField> C_METHODS = new EnumMap<>(HttpMethod.class);
+    private static final int MAX_ENCODED_BLOCKS = 16;
 
     static
     {
@@ -97,11 +115,20 @@ public class HpackEncoder
 
     private final HpackContext _context;
     private final boolean _debug;
+    private final Map<PreEncodedHttpFields, EncodedBlock> _encodedBlocks = new IdentityHashMap<>();
+    private int _generation;
     private int _remoteMaxDynamicTableSize;
     private int _localMaxDynamicTableSize;
     private int _maxHeaderListSize;
     private int _headerListSize;
     private boolean _validateEncoding = true;
+    private final ValueHistory _history = new ValueHistory();
+    private boolean _adaptiveIndexing = true;
+    private long _fieldCount;
+    private long _indexedFieldCount;
+    private long _indexedNameCount;
+    private long _headerBytes;
+    private long _encodedBytes;
 
     public HpackEncoder()
     {
@@ -162,6 +189,88 @@ public class HpackEncoder
         _validateEncoding = validateEncoding;
     }
 
+    /**
+     * @return whether the fields are indexed depending on how their values repeat on the connection
+     */
+    public boolean isAdaptiveIndexing()
+    {
+        return _adaptiveIndexing;
+    }
+
+    /**
+     * @param adaptiveIndexing whether the fields are indexed depending on how their values repeat on the connection
+     */
+    public void setAdaptiveIndexing(boolean adaptiveIndexing)
+    {
+        _adaptiveIndexing = adaptiveIndexing;
+    }
+
+    /**
+     * @return the number of fields encoded
+     */
+    public long getFieldCount()
+    {
+        return _fieldCount;
+    }
+
+    /**
+     * @return the number of fields encoded as an index of the static or dynamic table
+     */
+    public long getIndexedFieldCount()
+    {
+        return _indexedFieldCount;
+    }
+
+    /**
+     * @return the number of fields encoded as a literal value with an indexed name
+     */
+    public long getIndexedNameCount()
+    {
+        return _indexedNameCount;
+    }
+
+    /**
+     * @return the number of fields encoded as a literal name and value
+     */
+    public long getLiteralFieldCount()
+    {
+        return _fieldCount - _indexedFieldCount - _indexedNameCount;
+    }
+
+    /**
+     * @return the number of octets of the names and values of the fields encoded
+     */
+    public long getHeaderBytes()
+    {
+        return _headerBytes;
+    }
+
+    /**
+     * @return the number of octets of the encoded fields
+     */
+    public long getEncodedBytes()
+    {
+        return _encodedBytes;
+    }
+
+    /**
+     * @return the ratio of the octets of the encoded fields to the octets of their names and values, or 0 if no field was encoded
+     */
+    public double getCompressionRatio()
+    {
+        long headerBytes = _headerBytes;
+        return headerBytes == 0 ? 0 : (double)_encodedBytes / headerBytes;
+    }
+
+    public void resetStatistics()
+    {
+        _fieldCount = 0;
+        _indexedFieldCount = 0;
+        _indexedNameCount = 0;
+        _headerBytes = 0;
+        _encodedBytes = 0;
+    }
+
     public void encode(ByteBuffer buffer, MetaData metadata) throws HpackException
     {
         try
@@ -232,8 +341,22 @@ public class HpackEncoder
                         hopHeaders = new HashSet<>();
                     hopHeaders.add(StringUtil.asciiToLowerCase(value));
                 }
-                for (HttpField field : fields)
+                int n = fields.size();
+                for (int f = 0; f < n; f++)
                 {
+                    HttpField field = fields.getField(f);
+                    if (hopHeaders == null && field instanceof PreEncodedHttpField)
+                    {
+                        // Encode a block of pre encoded fields at once, if it is still intact.
+                        PreEncodedHttpFields block = ((PreEncodedHttpField)field).getBlock();
+                        if (block != null && block.isIn(fields, f))
+                        {
+                            encode(buffer, block);
+                            f += block.size() - 1;
+                            continue;
+                        }
+                    }
+
                     HttpHeader header = field.getHeader();
                     if (header != null && IGNORED_HEADERS.contains(header))
                         continue;
@@ -280,6 +403,56 @@ public class HpackEncoder
         buffer.put((byte)0x20);
         NBitInteger.encode(buffer, 5, maxDynamicTableSize);
         _context.resize(maxDynamicTableSize);
+        _generation++;
+    }
+
+    /**
+     * <p>Encodes the fields of a {@link PreEncodedHttpFields} block.</p>
+     * <p>The pre encoded fields may add entries to the dynamic table, and once
+     * they are in the table they are encoded as indexed fields, whose index
+     * depends on the entries added since.  So the encoding of the block is
+     * only reused while the dynamic table is unchanged, which is the usual
+     * case once the block has been sent on the connection.</p>
+     *
+     * @param buffer the buffer to encode to
+     * @param block the block of fields to encode
+     */
+    public void encode(ByteBuffer buffer, PreEncodedHttpFields block)
+    {
+        EncodedBlock encoded = _encodedBlocks.get(block);
+        if (encoded != null && encoded._generation == _generation)
+        {
+            buffer.put(encoded._bytes);
+            _headerListSize += encoded._headerListSize;
+            _fieldCount += block.size();
+            _indexedFieldCount += encoded._indexedFieldCount;
+            _indexedNameCount += encoded._indexedNameCount;
+            _headerBytes += encoded._headerListSize - 32 * block.size();
+            _encodedBytes += encoded._bytes.length;
+            if (LOG.isDebugEnabled())
+                LOG.debug("encode {} to {} octets", block, encoded._bytes.length);
+            return;
+        }
+
+        int generation = _generation;
+        int position = buffer.position();
+        int headerListSize = _headerListSize;
+        long indexedFieldCount = _indexedFieldCount;
+        long indexedNameCount = _indexedNameCount;
+        for (HttpField field : block)
+        {
+            encode(buffer, field);
+        }
+
+        if (_generation == generation)
+        {
+            if (_encodedBlocks.size() >= MAX_ENCODED_BLOCKS)
+                _encodedBlocks.clear();
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(buffer.position()).position(position);
+            _encodedBlocks.put(block, new EncodedBlock(BufferUtil.toArray(slice), generation, _headerListSize - headerListSize,
+                (int)(_indexedFieldCount - indexedFieldCount), (int)(_indexedNameCount - indexedNameCount)));
+        }
     }
 
     public void encode(ByteBuffer buffer, HttpField field)
@@ -289,6 +462,7 @@ public class HpackEncoder
 
         int fieldSize = field.getName().length() + field.getValue().length();
         _headerListSize += fieldSize + 32;
+        int position = buffer.position();
 
         String encoding = null;
 
@@ -310,6 +484,8 @@ public class HpackEncoder
                 NBitInteger.encode(buffer, 7, index);
                 if (_debug)
                     encoding = "IdxField" + (entry.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(7, index));
+                // The value repeated, which is learnt as well.
+                observe(field);
             }
         }
         else
@@ -335,27 +511,23 @@ public class HpackEncoder
                     if (_debug)
                         encoding = indexed ? "PreEncodedIdx" : "PreEncoded";
                 }
-                // has the custom header name been seen before?
-                else if (name == null)
-                {
-                    // unknown name and value, so let's index this just in case it is
-                    // the first time we have seen a custom name or a custom field.
-                    // unless the name is changing, this is worthwhile
-                    indexed = true;
-                    encodeName(buffer, (byte)0x40, 6, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
-                    if (_debug)
-                        encoding = "LitHuffNHuffVIdx";
-                }
                 else
                 {
-                    // known custom name, but unknown value.
-                    // This is probably a custom field with changing value, so don't index.
-                    indexed = false;
-                    encodeName(buffer, (byte)0x00, 4, field.getName(), null);
+                    // Unknown name and value, so let's index this just in case it is
+                    // the first time we have seen a custom name or a custom field,
+                    // unless the values of the name have been mostly distinct so far.
+                    // A known custom name, but unknown value, is probably a custom
+                    // field with changing value, so don't index it unless the value
+                    // has been recently sent, and was evicted or not indexed.
+                    int history = observe(field);
+                    indexed = (history & ValueHistory.HIGH_CARDINALITY) == 0 && (name == null || (history & ValueHistory.REPEATED) != 0);
+                    if (indexed)
+                        encodeName(buffer, (byte)0x40, 6, field.getName(), name);
+                    else
+                        encodeName(buffer, (byte)0x00, 4, field.getName(), name);
                     encodeValue(buffer, true, field.getValue());
                     if (_debug)
-                        encoding = "LitHuffNHuffV!Idx";
+                        encoding = (name == null ? "LitHuffN" : "LitIdxN") + (indexed ? "HuffVIdx" : "HuffV!Idx");
                 }
             }
             else
@@ -388,14 +560,17 @@ public class HpackEncoder
                             (huffman ? "HuffV" : "LitV") +
                             (neverIndex ? "!!Idx" : "!Idx");
                 }
-                else if (fieldSize >= _context.getMaxDynamicTableSize() || header == HttpHeader.CONTENT_LENGTH && field.getValue().length() > 2)
+                else if (fieldSize >= _context.getMaxDynamicTableSize() ||
+                    header == HttpHeader.CONTENT_LENGTH && field.getValue().length() > 2 ||
+                    (observe(field) & ValueHistory.HIGH_CARDINALITY) != 0)
                 {
-                    // Non indexed if field too large or a content length for 3 digits or more
+                    // Non indexed if field too large, a content length for 3 digits or more
+                    // or a field whose values have been mostly distinct so far.
                     indexed = false;
                     encodeName(buffer, (byte)0x00, 4, header.asString(), name);
                     encodeValue(buffer, true, field.getValue());
                     if (_debug)
-                        encoding = "LitIdxNS" + (1 + NBitInteger.octectsNeeded(4, _context.index(name))) + "HuffV!Idx";
+                        encoding = ((name == null) ? "LitHuffN" : ("LitIdxN" + (name.isStatic() ? "S" : "") + (1 + NBitInteger.octectsNeeded(4, _context.index(name))))) + "HuffV!Idx";
                 }
                 else
                 {
@@ -412,9 +587,21 @@ public class HpackEncoder
 
             // If we want the field referenced, then we add it to our table and reference set.
             if (indexed)
+            {
                 _context.add(field);
+                _generation++;
+            }
         }
 
+        _fieldCount++;
+        _headerBytes += fieldSize;
+        _encodedBytes += buffer.position() - position;
+        byte b = buffer.get(position);
+        if (b < 0)
+            _indexedFieldCount++;
+        else if ((b & 0x40) != 0 ? (b & 0x3F) != 0 : (b & 0x0F) != 0)
+            _indexedNameCount++;
+
         if (_debug)
         {
             if (LOG.isDebugEnabled())
@@ -422,6 +609,11 @@ public class HpackEncoder
         }
     }
 
+    private int observe(HttpField field)
+    {
+        return _adaptiveIndexing ? _history.observe(field.getName(), field.getValue()) : 0;
+    }
+
     private void encodeName(ByteBuffer buffer, byte mask, int bits, String name, Entry entry)
     {
         buffer.put(mask);
@@ -481,4 +673,124 @@ public class HpackEncoder
             }
         }
     }
+
+    private static class EncodedBlock
+    {
+        private final byte[] _bytes;
+        private final int _generation;
+        private final int _headerListSize;
+        private final int _indexedFieldCount;
+        private final int _indexedNameCount;
+
+        private EncodedBlock(byte[] bytes, int generation, int headerListSize, int indexedFieldCount, int indexedNameCount)
+        {
+            _bytes = bytes;
+            _generation = generation;
+            _headerListSize = headerListSize;
+            _indexedFieldCount = indexedFieldCount;
+            _indexedNameCount = indexedNameCount;
+        }
+    }
+
+    /**
+     * <p>The hashes of the values recently sent for the names of the fields, with
+     * the number of values and of distinct values sent, held in arrays indexed
+     * by an open addressed hash table of the names.</p>
+     * <p>When the table is half full, or when the counts of a name reach
+     * {@link #MAX_COUNT}, the history is cleared or halved, so that the policy
+     * adapts to the fields currently sent on the connection.</p>
+     */
+    private static class ValueHistory
+    {
+        static final int REPEATED = 1;
+        static final int HIGH_CARDINALITY = 2;
+        private static final int NAMES = 64;
+        private static final int VALUES = 4;
+        private static final int MIN_COUNT = 8;
+        private static final int MAX_COUNT = 256;
+
+        private final String[] _names = new String[NAMES];
+        private final int[] _counts = new int[NAMES];
+        private final int[] _distinctCounts = new int[NAMES];
+        private final int[] _values = new int[NAMES * VALUES];
+        private int _size;
+
+        /**
+         * @param name the name of the field sent
+         * @param value the value of the field sent
+         * @return {@link #REPEATED} if the value was recently sent for the name,
+         * plus {@link #HIGH_CARDINALITY} if most of the values sent for the name were distinct
+         */
+        private int observe(String name, String value)
+        {
+            int slot = slot(name);
+            int count = ++_counts[slot];
+            if (count == MAX_COUNT)
+            {
+                _counts[slot] = count /= 2;
+                _distinctCounts[slot] /= 2;
+            }
+
+            int result = 0;
+            int hash = value.hashCode();
+            // Zero is an empty value slot.
+            if (hash == 0)
+                hash = 1;
+            int base = slot * VALUES;
+            int v = 0;
+            while (v < VALUES && _values[base + v] != hash)
+            {
+                ++v;
+            }
+            if (v < VALUES)
+            {
+                result |= REPEATED;
+            }
+            else
+            {
+                ++_distinctCounts[slot];
+                v = VALUES - 1;
+            }
+            // Move the value to the front of the most recently sent values.
+            System.arraycopy(_values, base, _values, base + 1, v);
+            _values[base] = hash;
+
+            if (count >= MIN_COUNT && _distinctCounts[slot] * 4 > count * 3)
+                result |= HIGH_CARDINALITY;
+            return result;
+        }
+
+        private int slot(String name)
+        {
+            int mask = NAMES - 1;
+            int slot = HpackContext.nameHash(name) & mask;
+            while (true)
+            {
+                String other = _names[slot];
+                if (other == null)
+                {
+                    if (_size == NAMES / 2)
+                    {
+                        clear();
+                        return slot(name);
+                    }
+                    _names[slot] = name;
+                    ++_size;
+                    return slot;
+                }
+                if (other.equalsIgnoreCase(name))
+                    return slot;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void clear()
+        {
+            Arrays.fill(_names, null);
+            Arrays.fill(_counts, 0);
+            Arrays.fill(_distinctCounts, 0);
+            Arrays.fill(_values, 0);
+            _size = 0;
+        }
+    }
 }
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http2.hpack;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import org.eclipse.jetty.util.Utf8StringBuilder;
 
@@ -297,6 +298,22 @@ public class Huffman
     static final char[] rowsym;
     static final byte[] rowbits;
 
+    // The number of bits looked up at once in the fast decode table.
+    private static final int FAST_BITS = 12;
+    private static final int FAST_MASK = (1 << FAST_BITS) - 1;
+    private static final int FAST_ONE = 1 << 16;
+    private static final int FAST_TWO = 2 << 16;
+    // For each pattern of FAST_BITS bits, the one or two symbols whose codes are in the
+    // pattern: the first symbol in bits 0-7, the second in bits 8-15, the number of
+    // symbols in bits 16-17 and the number of bits of the codes in bits 24-31.
+    // Zero if the pattern starts with a code longer than FAST_BITS.
+    static final int[] fast;
+
+    // The max number of bits of the codes of the characters that can be encoded from a String.
+    private static final int MAX_STRING_CODE_LENGTH;
+    // The max number of bits of the codes of the bytes.
+    private static final int MAX_BYTES_CODE_LENGTH;
+
     // Build the Huffman lookup tree and LC TABLE
     static
     {
@@ -351,6 +368,45 @@ public class Huffman
                 tree[i] = (char)terminal;
             }
         }
+
+        fast = new int[1 << FAST_BITS];
+        for (int sym1 = 0; sym1 < EOS; sym1++)
+        {
+            int len1 = CODES[sym1][1];
+            if (len1 > FAST_BITS)
+                continue;
+            int rest1 = FAST_BITS - len1;
+            int prefix1 = CODES[sym1][0] << rest1;
+            for (int i = 0; i < 1 << rest1; i++)
+            {
+                fast[prefix1 | i] = len1 << 24 | FAST_ONE | sym1;
+            }
+            for (int sym2 = 0; sym2 < EOS; sym2++)
+            {
+                int len2 = CODES[sym2][1];
+                if (len2 > rest1)
+                    continue;
+                int rest2 = rest1 - len2;
+                int prefix2 = prefix1 | CODES[sym2][0] << rest2;
+                for (int i = 0; i < 1 << rest2; i++)
+                {
+                    fast[prefix2 | i] = (len1 + len2) << 24 | FAST_TWO | sym2 << 8 | sym1;
+                }
+            }
+        }
+
+        int maxStringCodeLength = 0;
+        for (int c = ' '; c < 128; c++)
+        {
+            maxStringCodeLength = Math.max(maxStringCodeLength, CODES[c][1]);
+        }
+        MAX_STRING_CODE_LENGTH = maxStringCodeLength;
+        int maxBytesCodeLength = 0;
+        for (int c = 0; c < EOS; c++)
+        {
+            maxBytesCodeLength = Math.max(maxBytesCodeLength, CODES[c][1]);
+        }
+        MAX_BYTES_CODE_LENGTH = maxBytesCodeLength;
     }
 
     public static String decode(ByteBuffer buffer) throws HpackException.CompressionException
@@ -358,43 +414,97 @@ public class Huffman
         return decode(buffer, buffer.remaining());
     }
 
+    /**
+     * <p>Decodes a Huffman encoded string.</p>
+     * <p>The bits of the encoded octets are accumulated in a long, from which the
+     * codes of at most {@value #FAST_BITS} bits, that are the codes of the common
+     * characters, are decoded one or two at a time with a lookup in a table.
+     * The longer codes and the last bits are decoded walking the Huffman tree
+     * 8 bits at a time.  The decoded octets are converted to a string without
+     * an UTF-8 decoder if they are all ASCII, as they usually are.</p>
+     *
+     * @param buffer the buffer containing the encoded string
+     * @param length the number of octets of the encoded string
+     * @return the decoded string
+     * @throws HpackException.CompressionException if the encoded string is invalid
+     */
     public static String decode(ByteBuffer buffer, int length) throws HpackException.CompressionException
     {
-        Utf8StringBuilder utf8 = new Utf8StringBuilder(length * 2);
-        int node = 0;
-        int current = 0;
+        // Every code is at least 5 bits long.
+        byte[] decoded = new byte[length * 8 / 5];
+        int size = 0;
+        int symbols = 0;
+        long current = 0;
         int bits = 0;
+        int remaining = length;
 
-        for (int i = 0; i < length; i++)
+        while (true)
         {
-            int b = buffer.get() & 0xFF;
-            current = (current << 8) | b;
-            bits += 8;
-            while (bits >= 8)
+            while (bits <= 56 && remaining > 0)
+            {
+                current = (current << 8) | (buffer.get() & 0xFF);
+                bits += 8;
+                --remaining;
+            }
+            if (bits < FAST_BITS)
+                break;
+
+            int entry = fast[(int)(current >>> (bits - FAST_BITS)) & FAST_MASK];
+            if (entry != 0)
+            {
+                symbols |= entry;
+                decoded[size++] = (byte)entry;
+                if ((entry & FAST_TWO) != 0)
+                    decoded[size++] = (byte)(entry >>> 8);
+                bits -= entry >>> 24;
+                continue;
+            }
+
+            // A long code, that is decoded walking the tree, if all its bits have been read.
+            int node = 0;
+            int position = bits;
+            while (position >= 8)
             {
-                int c = (current >>> (bits - 8)) & 0xFF;
-                node = tree[node * 256 + c];
+                node = tree[node * 256 + ((int)(current >>> (position - 8)) & 0xFF)];
                 if (rowbits[node] != 0)
-                {
-                    if (rowsym[node] == EOS)
-                        throw new HpackException.CompressionException("EOS in content");
+                    break;
+                position -= 8;
+            }
+            if (rowbits[node] == 0)
+                break;
+            if (rowsym[node] == EOS)
+                throw new HpackException.CompressionException("EOS in content");
+            symbols |= rowsym[node];
+            decoded[size++] = (byte)rowsym[node];
+            bits = position - rowbits[node];
+        }
 
-                    // terminal node
-                    utf8.append((byte)(0xFF & rowsym[node]));
-                    bits -= rowbits[node];
-                    node = 0;
-                }
-                else
-                {
-                    // non-terminal node
-                    bits -= 8;
-                }
+        int node = 0;
+        while (bits >= 8)
+        {
+            int c = (int)(current >>> (bits - 8)) & 0xFF;
+            node = tree[node * 256 + c];
+            if (rowbits[node] != 0)
+            {
+                if (rowsym[node] == EOS)
+                    throw new HpackException.CompressionException("EOS in content");
+
+                // terminal node
+                symbols |= rowsym[node];
+                decoded[size++] = (byte)rowsym[node];
+                bits -= rowbits[node];
+                node = 0;
+            }
+            else
+            {
+                // non-terminal node
+                bits -= 8;
             }
         }
 
         while (bits > 0)
         {
-            int c = (current << (8 - bits)) & 0xFF;
+            int c = (int)(current << (8 - bits)) & 0xFF;
             int lastNode = node;
             node = tree[node * 256 + c];
 
@@ -413,7 +523,10 @@ public class Huffman
                 break;
             }
 
-            utf8.append((byte)(0xFF & rowsym[node]));
+            if (rowsym[node] == EOS)
+                throw new HpackException.CompressionException("EOS in content");
+            symbols |= rowsym[node];
+            decoded[size++] = (byte)rowsym[node];
             bits -= rowbits[node];
             node = 0;
         }
@@ -421,6 +534,10 @@ public class Huffman
         if (node != 0)
             throw new HpackException.CompressionException("Bad termination");
 
+        if ((symbols & 0x8080) == 0)
+            return new String(decoded, 0, size, StandardCharsets.US_ASCII);
+        Utf8StringBuilder utf8 = new Utf8StringBuilder(size);
+        utf8.append(decoded, 0, size);
         return utf8.toString();
     }
 
@@ -482,15 +599,54 @@ public class Huffman
     }
 
     /**
+     * <p>Encodes a string, directly in the array of the buffer if it has one
+     * and the buffer has room for the longest possible encoding.</p>
+     *
      * @param table The table to encode by
      * @param buffer The buffer to encode to
      * @param s The string to encode
      */
     private static void encode(final int[][] table, ByteBuffer buffer, String s)
     {
+        int len = s.length();
+        if (buffer.hasArray() && buffer.remaining() >= ((long)len * MAX_STRING_CODE_LENGTH + 7) / 8)
+        {
+            byte[] array = buffer.array();
+            int start = buffer.arrayOffset() + buffer.position();
+            int offset = start;
+            long current = 0;
+            int n = 0;
+            for (int i = 0; i < len; i++)
+            {
+                char c = s.charAt(i);
+                if (c >= 128 || c < ' ')
+                    throw new IllegalArgumentException();
+                int[] code = table[c];
+                int bits = code[1];
+
+                current <<= bits;
+                current |= code[0];
+                n += bits;
+
+                while (n >= 8)
+                {
+                    n -= 8;
+                    array[offset++] = (byte)(current >> n);
+                }
+            }
+
+            if (n > 0)
+            {
+                current <<= (8 - n);
+                current |= (0xFF >>> n);
+                array[offset++] = (byte)(current);
+            }
+            buffer.position(buffer.position() + offset - start);
+            return;
+        }
+
         long current = 0;
         int n = 0;
-        int len = s.length();
         for (int i = 0; i < len; i++)
         {
             char c = s.charAt(i);
@@ -520,10 +676,43 @@ public class Huffman
 
     private static void encode(final int[][] table, ByteBuffer buffer, byte[] b)
     {
+        int len = b.length;
+        if (buffer.hasArray() && buffer.remaining() >= ((long)len * MAX_BYTES_CODE_LENGTH + 7) / 8)
+        {
+            byte[] array = buffer.array();
+            int start = buffer.arrayOffset() + buffer.position();
+            int offset = start;
+            long current = 0;
+            int n = 0;
+            for (int i = 0; i < len; i++)
+            {
+                int[] code = table[0xFF & b[i]];
+                int bits = code[1];
+
+                current <<= bits;
+                current |= code[0];
+                n += bits;
+
+                while (n >= 8)
+                {
+                    n -= 8;
+                    array[offset++] = (byte)(current >> n);
+                }
+            }
+
+            if (n > 0)
+            {
+                current <<= (8 - n);
+                current |= (0xFF >>> n);
+                array[offset++] = (byte)(current);
+            }
+            buffer.position(buffer.position() + offset - start);
+            return;
+        }
+
         long current = 0;
         int n = 0;
 
-        int len = b.length;
         for (int i = 0; i < len; i++)
         {
             int c = 0xFF & b[i];
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http2.hpack;
 
 import java.nio.ByteBuffer;
+import java.util.Random;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http2.hpack.HpackContext.Entry;
@@ -450,4 +451,39 @@ public class HpackContextTest
         assertEquals("Wibble", ctx.get("wibble").getHttpField().getName());
         assertEquals("Wibble", ctx.get("Wibble").getHttpField().getName());
     }
+
+    @Test
+    public void testLookupsAfterEvictions()
+    {
+        // Few names and values, so that the lookups probe buckets that
+        // are shifted back as entries with the same name are evicted.
+        HpackContext ctx = new HpackContext(38 * 16);
+        Random random = new Random(1234);
+        for (int i = 0; i < 10_000; i++)
+        {
+            HttpField field = new HttpField("n" + random.nextInt(8), "v" + random.nextInt(12));
+            if (ctx.get(field) == null)
+                ctx.add(field);
+
+            // Check the lookups against a scan of the dynamic table, from the most recent entry.
+            for (int n = 0; n < 8; n++)
+            {
+                Entry byName = null;
+                for (int index = HpackContext.STATIC_SIZE + 1; index <= HpackContext.STATIC_SIZE + ctx.size(); index++)
+                {
+                    Entry entry = ctx.get(index);
+                    if (byName == null && entry.getHttpField().getName().equals("n" + n))
+                        byName = entry;
+                }
+                assertEquals(byName, ctx.get("N" + n));
+                for (int v = 0; v < 12; v++)
+                {
+                    HttpField other = new HttpField("n" + n, "v" + v);
+                    Entry byField = ctx.get(other);
+                    if (byField != null)
+                        assertEquals(other, ctx.get(ctx.index(byField)).getHttpField());
+                }
+            }
+        }
+    }
 }
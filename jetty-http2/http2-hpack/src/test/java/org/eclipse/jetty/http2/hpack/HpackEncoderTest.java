@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.util.BufferUtil;
@@ -262,4 +263,102 @@ public class HpackEncoderTest
         assertThat(context.getMaxDynamicTableSize(), Matchers.is(50));
         assertThat(context.size(), Matchers.is(1));
     }
+
+    @Test
+    public void testAdaptiveIndexingOfRepeatedValues() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+
+        // The first value is indexed, the following not.
+        encode(encoder, buffer, new HttpField("x-tenant", "blue"));
+        encode(encoder, buffer, new HttpField("x-tenant", "red"));
+        assertEquals(1, encoder.getHpackContext().size());
+
+        // The value repeats, so it is indexed.
+        encode(encoder, buffer, new HttpField("x-tenant", "red"));
+        assertEquals(2, encoder.getHpackContext().size());
+        encode(encoder, buffer, new HttpField("x-tenant", "red"));
+        assertEquals(2, encoder.getHpackContext().size());
+        assertEquals(1, encoder.getIndexedFieldCount());
+
+        // Without adaptive indexing, repeated values are not indexed.
+        encoder = new HpackEncoder(4096);
+        encoder.setAdaptiveIndexing(false);
+        encode(encoder, buffer, new HttpField("x-tenant", "blue"));
+        encode(encoder, buffer, new HttpField("x-tenant", "red"));
+        encode(encoder, buffer, new HttpField("x-tenant", "red"));
+        assertEquals(1, encoder.getHpackContext().size());
+        assertEquals(0, encoder.getIndexedFieldCount());
+    }
+
+    @Test
+    public void testAdaptiveIndexingOfDistinctValues() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+
+        // The values of a well known header are indexed, until they are learnt to be distinct.
+        for (int i = 0; i < 16; i++)
+        {
+            encode(encoder, buffer, new HttpField(HttpHeader.REFERER, "https://example.com/" + i));
+        }
+        assertEquals(7, encoder.getHpackContext().size());
+
+        // While a repeated value still is.
+        encode(encoder, buffer, new HttpField(HttpHeader.ACCEPT, "*/*"));
+        assertEquals(8, encoder.getHpackContext().size());
+
+        encoder = new HpackEncoder(4096);
+        encoder.setAdaptiveIndexing(false);
+        for (int i = 0; i < 16; i++)
+        {
+            encode(encoder, buffer, new HttpField(HttpHeader.REFERER, "https://example.com/" + i));
+        }
+        assertEquals(16, encoder.getHpackContext().size());
+    }
+
+    @Test
+    public void testStatistics() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+        HttpFields fields = new HttpFields();
+        fields.add(HttpHeader.ACCEPT_ENCODING, "gzip, deflate");
+        fields.add(HttpHeader.USER_AGENT, "jetty/test");
+        fields.add("x-custom", "value");
+
+        encode(encoder, buffer, fields);
+        assertEquals(3, encoder.getFieldCount());
+        assertEquals(1, encoder.getIndexedFieldCount());
+        assertEquals(1, encoder.getIndexedNameCount());
+        assertEquals(1, encoder.getLiteralFieldCount());
+        assertEquals(15 + 13 + 10 + 10 + 8 + 5, encoder.getHeaderBytes());
+        assertEquals(buffer.remaining(), encoder.getEncodedBytes());
+
+        encode(encoder, buffer, fields);
+        assertEquals(6, encoder.getFieldCount());
+        assertEquals(4, encoder.getIndexedFieldCount());
+        // All the fields are indexed in a single octet.
+        assertEquals(3, buffer.remaining());
+        assertThat(encoder.getCompressionRatio(), Matchers.lessThan(1D));
+
+        encoder.resetStatistics();
+        assertEquals(0, encoder.getFieldCount());
+        assertEquals(0D, encoder.getCompressionRatio());
+    }
+
+    private static void encode(HpackEncoder encoder, ByteBuffer buffer, HttpField field) throws Exception
+    {
+        HttpFields fields = new HttpFields();
+        fields.add(field);
+        encode(encoder, buffer, fields);
+    }
+
+    private static void encode(HpackEncoder encoder, ByteBuffer buffer, HttpFields fields) throws Exception
+    {
+        BufferUtil.clearToFill(buffer);
+        encoder.encode(buffer, new MetaData(HttpVersion.HTTP_2, fields));
+        BufferUtil.flipToFlush(buffer, 0);
+    }
 }
@@ -29,6 +29,7 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.MetaData.Response;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.util.BufferUtil;
 import org.junit.jupiter.api.Test;
 
@@ -98,6 +99,43 @@ public class HpackTest
         assertEquals("custom-key", decoded1.getFields().getField("Custom-Key").getName());
     }
 
+    @Test
+    public void encodeDecodePreEncodedBlockTest() throws Exception
+    {
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(4096, 8192);
+        ByteBuffer buffer = BufferUtil.allocateDirect(16 * 1024);
+
+        PreEncodedHttpFields block = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.SERVER, "jetty"),
+            new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+            new HttpField("X-Content-Type-Options", "nosniff"),
+            new HttpField("X-Frame-Options", "DENY"));
+
+        int[] lengths = new int[4];
+        for (int i = 0; i < lengths.length; i++)
+        {
+            HttpFields fields = new HttpFields();
+            block.addTo(fields);
+            fields.add("X-Request-Id", "request-" + i);
+            // A new field in the dynamic table changes the indexes of the block fields.
+            if (i == 2)
+                fields.add("X-Custom", "custom");
+            Response original = new MetaData.Response(HttpVersion.HTTP_2, 200, fields);
+
+            BufferUtil.clearToFill(buffer);
+            encoder.encode(buffer, original);
+            BufferUtil.flipToFlush(buffer, 0);
+            lengths[i] = buffer.remaining();
+            Response decoded = (Response)decoder.decode(buffer);
+            assertMetaDataResponseSame(original, decoded);
+        }
+
+        // Once in the dynamic table, the block is encoded as indexed fields.
+        assertThat(lengths[1] < lengths[0], is(true));
+        assertThat(lengths[3], is(lengths[1]));
+    }
+
     @Test
     public void encodeDecodeTooLargeTest() throws Exception
     {
@@ -20,12 +20,14 @@ package org.eclipse.jetty.http2.hpack;
 
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 import java.util.stream.Stream;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.TypeUtil;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -84,4 +86,51 @@ public class HuffmanTest
         assertThrows(BufferOverflowException.class,
             () -> Huffman.encode(BufferUtil.allocate(32), s));
     }
+
+    @ParameterizedTest(name = "[{index}] direct={0}")
+    @ValueSource(booleans = {false, true})
+    public void testEncodeDecodeAllPrintable(boolean direct) throws Exception
+    {
+        // Codes from 5 to 28 bits long, decoded one or two at a time or walking the tree.
+        StringBuilder builder = new StringBuilder();
+        for (char c = ' '; c < 128; c++)
+        {
+            builder.append(c).append('e').append(c).append(c).append("0a");
+        }
+        String value = builder.toString();
+
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(4096) : ByteBuffer.allocate(4096);
+        Huffman.encode(buffer, value);
+        assertEquals(Huffman.octetsNeeded(value), buffer.position());
+        buffer.flip();
+        assertEquals(value, Huffman.decode(buffer));
+
+        buffer.clear();
+        Huffman.encodeLC(buffer, value);
+        assertEquals(Huffman.octetsNeededLC(value), buffer.position());
+        buffer.flip();
+        assertEquals(value.toLowerCase(Locale.ENGLISH), Huffman.decode(buffer));
+    }
+
+    @ParameterizedTest(name = "[{index}] direct={0}")
+    @ValueSource(booleans = {false, true})
+    public void testEncodeDecodeUTF8(boolean direct) throws Exception
+    {
+        String value = "caf\u00e9 \u20ac\u00a0/\u00ff"; // cafe with an acute e, the euro sign, a no-break space and y with a diaeresis
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(256) : ByteBuffer.allocate(256);
+        Huffman.encode(buffer, bytes);
+        assertEquals(Huffman.octetsNeeded(bytes), buffer.position());
+        buffer.flip();
+        assertEquals(value, Huffman.decode(buffer));
+    }
+
+    @Test
+    public void testDecodeEOS()
+    {
+        // The 30 bits of EOS followed by 2 bits of padding.
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF});
+        assertThrows(HpackException.CompressionException.class, () -> Huffman.decode(buffer));
+    }
 }
@@ -27,8 +27,10 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
+import org.eclipse.jetty.http2.FIFOSchedulingStrategy;
 import org.eclipse.jetty.http2.FlowControlStrategy;
 import org.eclipse.jetty.http2.HTTP2Connection;
+import org.eclipse.jetty.http2.SchedulingStrategy;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.Frame;
@@ -63,6 +65,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private boolean connectProtocolEnabled = true;
     private RateControl.Factory rateControlFactory = new WindowRateControl.Factory(20);
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private SchedulingStrategy.Factory schedulingStrategyFactory = FIFOSchedulingStrategy::new;
     private long streamIdleTimeout;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
@@ -153,6 +156,16 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    public SchedulingStrategy.Factory getSchedulingStrategyFactory()
+    {
+        return schedulingStrategyFactory;
+    }
+
+    public void setSchedulingStrategyFactory(SchedulingStrategy.Factory schedulingStrategyFactory)
+    {
+        this.schedulingStrategyFactory = schedulingStrategyFactory;
+    }
+
     @ManagedAttribute("The stream idle timeout in milliseconds")
     public long getStreamIdleTimeout()
     {
@@ -272,6 +285,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
             session.setStreamIdleTimeout(streamIdleTimeout);
         session.setInitialSessionRecvWindow(getInitialSessionRecvWindow());
         session.setWriteThreshold(getHttpConfiguration().getOutputBufferSize());
+        session.setSchedulingStrategy(getSchedulingStrategyFactory().newSchedulingStrategy());
         session.setConnectProtocolEnabled(isConnectProtocolEnabled());
 
         ServerParser parser = newServerParser(connector, session, getRateControlFactory().newRateControl(endPoint));
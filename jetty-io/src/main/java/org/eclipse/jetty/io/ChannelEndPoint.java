@@ -26,6 +26,7 @@ import java.nio.channels.CancelledKeyException;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.log.Log;
@@ -36,6 +37,10 @@ import org.eclipse.jetty.util.thread.Scheduler;
 /**
  * Channel End Point.
  * <p>Holds the channel and socket for an NIO endpoint.
+ * <p>If a {@link #setWriteCoalesceSize(int) write coalesce size} and a
+ * {@link #setByteBufferPool(ByteBufferPool) buffer pool} are set, a flush of several
+ * buffers whose total size is not larger than that size copies them into a single
+ * direct buffer from the pool, rather than passing them all to a gathering write.
  */
 public abstract class ChannelEndPoint extends AbstractEndPoint implements ManagedSelector.Selectable
 {
@@ -46,6 +51,10 @@ public abstract class ChannelEndPoint extends AbstractEndPoint implements Manage
     protected final ManagedSelector _selector;
     protected final SelectionKey _key;
     private boolean _updatePending;
+    private final LongAdder _coalescedFlushes = new LongAdder();
+    private final LongAdder _coalescedBuffers = new LongAdder();
+    private ByteBufferPool _bufferPool;
+    private int _writeCoalesceSize;
 
     /**
      * The current value for {@link SelectionKey#interestOps()}.
@@ -253,6 +262,8 @@ public abstract class ChannelEndPoint extends AbstractEndPoint implements Manage
         {
             if (buffers.length == 1)
                 flushed = _channel.write(buffers[0]);
+            else if (_writeCoalesceSize > 0 && _bufferPool != null && buffers.length > 1 && BufferUtil.remaining(buffers) <= _writeCoalesceSize)
+                flushed = coalescingWrite(buffers);
             else if (_gather != null && buffers.length > 1)
                 flushed = _gather.write(buffers, 0, buffers.length);
             else
@@ -289,6 +300,109 @@ public abstract class ChannelEndPoint extends AbstractEndPoint implements Manage
         return true;
     }
 
+    private long coalescingWrite(ByteBuffer[] buffers) throws IOException
+    {
+        ByteBufferPool bufferPool = _bufferPool;
+        ByteBuffer coalesced = bufferPool.acquire((int)BufferUtil.remaining(buffers), true);
+        int written;
+        int count = 0;
+        try
+        {
+            // Copy without consuming, as not all the bytes may be written.
+            BufferUtil.clearToFill(coalesced);
+            for (ByteBuffer buffer : buffers)
+            {
+                if (buffer.hasRemaining())
+                {
+                    coalesced.put(buffer.slice());
+                    ++count;
+                }
+            }
+            BufferUtil.flipToFlush(coalesced, 0);
+            written = _channel.write(coalesced);
+        }
+        finally
+        {
+            bufferPool.release(coalesced);
+        }
+
+        if (count > 1)
+        {
+            _coalescedFlushes.increment();
+            _coalescedBuffers.add(count - 1);
+        }
+
+        // Consume the bytes that have been written.
+        int consume = written;
+        for (ByteBuffer buffer : buffers)
+        {
+            if (consume == 0)
+                break;
+            int length = Math.min(consume, buffer.remaining());
+            buffer.position(buffer.position() + length);
+            consume -= length;
+        }
+        return written;
+    }
+
+    public ByteBufferPool getByteBufferPool()
+    {
+        return _bufferPool;
+    }
+
+    /**
+     * @param bufferPool the pool of the buffers that flushes are coalesced into,
+     * or null to not coalesce flushes
+     * @see #setWriteCoalesceSize(int)
+     */
+    public void setByteBufferPool(ByteBufferPool bufferPool)
+    {
+        _bufferPool = bufferPool;
+    }
+
+    /**
+     * @return the maximum total size of the buffers that are coalesced before being flushed,
+     * or 0 if flushes are not coalesced
+     */
+    public int getWriteCoalesceSize()
+    {
+        return _writeCoalesceSize;
+    }
+
+    /**
+     * <p>Sets the maximum total size of the buffers that are coalesced into a single
+     * buffer before being flushed.</p>
+     * <p>Coalescing small buffers, for example a response header and a small body,
+     * avoids the overhead of gathering writes of many small, possibly heap, buffers.</p>
+     *
+     * <p>Flushes are only coalesced if a {@link #setByteBufferPool(ByteBufferPool) buffer pool} is set.</p>
+     *
+     * @param writeCoalesceSize the maximum size in bytes, or 0 to not coalesce flushes
+     */
+    public void setWriteCoalesceSize(int writeCoalesceSize)
+    {
+        if (writeCoalesceSize < 0)
+            throw new IllegalArgumentException("Invalid write coalesce size " + writeCoalesceSize);
+        _writeCoalesceSize = writeCoalesceSize;
+    }
+
+    /**
+     * @return the number of flushes that coalesced several buffers
+     */
+    public long getCoalescedFlushes()
+    {
+        return _coalescedFlushes.sum();
+    }
+
+    /**
+     * @return the number of buffers that did not need to be written separately
+     * because they were coalesced with others
+     */
+    public long getCoalescedBuffers()
+    {
+        return _coalescedBuffers.sum();
+    }
+
     public ByteChannel getChannel()
     {
         return _channel;
@@ -25,9 +25,11 @@ import java.net.SocketException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Executor;
 
 import org.eclipse.jetty.util.Promise;
@@ -57,6 +59,7 @@ public class ClientConnector extends ContainerLifeCycle
     private Duration connectTimeout = Duration.ofSeconds(5);
     private Duration idleTimeout = Duration.ofSeconds(30);
     private SocketAddress bindAddress;
+    private SelectorProvider selectorProvider = SelectorProvider.provider();
 
     public Executor getExecutor()
     {
@@ -164,6 +167,21 @@ public class ClientConnector extends ContainerLifeCycle
         this.bindAddress = bindAddress;
     }
 
+    public SelectorProvider getSelectorProvider()
+    {
+        return selectorProvider;
+    }
+
+    /**
+     * @param selectorProvider the provider used to open the channels and the selectors
+     */
+    public void setSelectorProvider(SelectorProvider selectorProvider)
+    {
+        if (isStarted())
+            throw new IllegalStateException();
+        this.selectorProvider = Objects.requireNonNull(selectorProvider);
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -180,6 +198,7 @@ public class ClientConnector extends ContainerLifeCycle
         if (sslContextFactory == null)
             setSslContextFactory(newSslContextFactory());
         selectorManager = newSelectorManager();
+        selectorManager.setSelectorProvider(getSelectorProvider());
         selectorManager.setConnectTimeout(getConnectTimeout().toMillis());
         addBean(selectorManager);
         super.doStart();
@@ -214,7 +233,7 @@ public class ClientConnector extends ContainerLifeCycle
             context.put(ClientConnector.CLIENT_CONNECTOR_CONTEXT_KEY, this);
             context.putIfAbsent(REMOTE_SOCKET_ADDRESS_CONTEXT_KEY, address);
 
-            channel = SocketChannel.open();
+            channel = getSelectorProvider().openSocketChannel();
             SocketAddress bindAddress = getBindAddress();
             if (bindAddress != null)
             {
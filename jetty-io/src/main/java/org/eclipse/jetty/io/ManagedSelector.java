@@ -42,13 +42,19 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
@@ -58,11 +64,18 @@ import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
  * <p>{@link ManagedSelector} runs the select loop, which waits on {@link Selector#select()} until events
  * happen for registered channels. When events happen, it notifies the {@link EndPoint} associated
  * with the channel.</p>
+ * <p>The modes in which the execution strategy runs the tasks produced by the select loop,
+ * and the time spent selecting and running tasks, are exposed via JMX.</p>
+ * <p>{@link SelectorUpdate}s are applied in batches between calls to {@link Selector#select()},
+ * and the selector is woken up only if it is blocked in {@link Selector#select()}, so that
+ * many updates submitted during a select cycle cost at most one wakeup.</p>
  */
+@ManagedObject("A NIO Selector and its select loop")
 public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 {
     private static final Logger LOG = Log.getLogger(ManagedSelector.class);
     private static final boolean FORCE_SELECT_NOW;
+    private static final int MAX_UPDATE_BATCHES = 4;
 
     static
     {
@@ -82,10 +95,16 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     private boolean _selecting = false;
     private final SelectorManager _selectorManager;
     private final int _id;
-    private final ExecutionStrategy _strategy;
+    private final EatWhatYouKill _strategy;
     private Selector _selector;
     private Deque<SelectorUpdate> _updates = new ArrayDeque<>();
     private Deque<SelectorUpdate> _updateable = new ArrayDeque<>();
+    private final LongAdder _submitted = new LongAdder();
+    private final LongAdder _wakeups = new LongAdder();
+    private final LongAdder _selects = new LongAdder();
+    private final LongAdder _selectNanos = new LongAdder();
+    private final LongAdder _produceNanos = new LongAdder();
+    private final SampleStatistic _updatesPerSelect = new SampleStatistic();
 
     public ManagedSelector(SelectorManager selectorManager, int id)
     {
@@ -128,6 +147,117 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         // override to change behavior
     }
 
+    @ManagedAttribute(value = "number of tasks consumed in produce-consume mode", readonly = true)
+    public long getPCTasksConsumed()
+    {
+        return _strategy.getPCTasksConsumed();
+    }
+
+    @ManagedAttribute(value = "number of tasks consumed in produce-invoke-consume mode", readonly = true)
+    public long getPICTasksExecuted()
+    {
+        return _strategy.getPICTasksExecuted();
+    }
+
+    @ManagedAttribute(value = "number of tasks executed in produce-execute-consume mode", readonly = true)
+    public long getPECTasksExecuted()
+    {
+        return _strategy.getPECTasksExecuted();
+    }
+
+    @ManagedAttribute(value = "number of tasks consumed in execute-produce-consume mode", readonly = true)
+    public long getEPCTasksConsumed()
+    {
+        return _strategy.getEPCTasksConsumed();
+    }
+
+    @ManagedAttribute(value = "total time spent producing tasks, excluding the time blocked in select, in ns", readonly = true)
+    public long getProduceTimeNanos()
+    {
+        return _produceNanos.sum();
+    }
+
+    @ManagedAttribute(value = "total time spent blocked in select in ns", readonly = true)
+    public long getSelectTimeNanos()
+    {
+        return _selectNanos.sum();
+    }
+
+    @ManagedAttribute(value = "total time spent consuming tasks in ns", readonly = true)
+    public long getConsumeTimeNanos()
+    {
+        return _strategy.getConsumeTimeNanos();
+    }
+
+    /**
+     * <p>Returns the histogram of the time, in microseconds, taken to run each task
+     * by the thread that produced it.</p>
+     * <p>This is the duration of the tasks, not their latency. The tasks executed
+     * by another thread are not recorded, as the time they wait for a thread is
+     * that of the thread pool queue.</p>
+     *
+     * @return the histogram of the consume times
+     */
+    public HistogramStatistic getConsumeTimes()
+    {
+        return _strategy.getConsumeTimes();
+    }
+
+    @ManagedAttribute(value = "histogram of the time taken to consume a task", readonly = true)
+    public String getConsumeTimeHistogram()
+    {
+        return _strategy.getConsumeTimeHistogram();
+    }
+
+    @ManagedAttribute(value = "number of selector updates submitted", readonly = true)
+    public long getUpdatesSubmitted()
+    {
+        return _submitted.sum();
+    }
+
+    @ManagedAttribute(value = "number of selector wakeups", readonly = true)
+    public long getWakeups()
+    {
+        return _wakeups.sum();
+    }
+
+    @ManagedAttribute(value = "number of select cycles", readonly = true)
+    public long getSelects()
+    {
+        return _selects.sum();
+    }
+
+    @ManagedAttribute(value = "average number of selector wakeups per select cycle", readonly = true)
+    public double getWakeupsPerSelect()
+    {
+        long selects = getSelects();
+        return selects > 0 ? (double)getWakeups() / selects : 0.0D;
+    }
+
+    @ManagedAttribute(value = "average number of selector updates applied per select cycle", readonly = true)
+    public double getUpdatesPerSelect()
+    {
+        return _updatesPerSelect.getMean();
+    }
+
+    @ManagedAttribute(value = "maximum number of selector updates applied in a select cycle", readonly = true)
+    public long getMaxUpdatesPerSelect()
+    {
+        return _updatesPerSelect.getMax();
+    }
+
+    @ManagedOperation(value = "resets the execution strategy and select statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _strategy.reset();
+        _submitted.reset();
+        _wakeups.reset();
+        _selects.reset();
+        _selectNanos.reset();
+        _produceNanos.reset();
+        _updatesPerSelect.reset();
+    }
+
     public int size()
     {
         Selector s = _selector;
@@ -170,6 +300,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("Queued change {} on {}", update, this);
 
+        _submitted.increment();
         Selector selector = null;
         synchronized (ManagedSelector.this)
         {
@@ -187,6 +318,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Wakeup on submit {}", this);
+            _wakeups.increment();
             selector.wakeup();
         }
     }
@@ -207,7 +339,10 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         }
 
         if (selector != null)
+        {
+            _wakeups.increment();
             selector.wakeup();
+        }
     }
 
     private void execute(Runnable task)
@@ -396,68 +531,95 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         @Override
         public Runnable produce()
         {
-            while (true)
+            // Unlike the production time of the execution strategy,
+            // the time blocked in select is not production time.
+            long begin = System.nanoTime();
+            try
             {
-                Runnable task = processSelected();
-                if (task != null)
-                    return task;
+                while (true)
+                {
+                    Runnable task = processSelected();
+                    if (task != null)
+                        return task;
 
-                processUpdates();
+                    processUpdates();
 
-                updateKeys();
+                    updateKeys();
 
-                if (!select())
-                    return null;
+                    _produceNanos.add(System.nanoTime() - begin);
+                    boolean selected = select();
+                    begin = System.nanoTime();
+                    if (!selected)
+                        return null;
+                }
+            }
+            finally
+            {
+                _produceNanos.add(System.nanoTime() - begin);
             }
         }
 
         private void processUpdates()
         {
-            synchronized (ManagedSelector.this)
+            int applied = 0;
+            int batches = 0;
+            while (true)
             {
-                Deque<SelectorUpdate> updates = _updates;
-                _updates = _updateable;
-                _updateable = updates;
-            }
+                synchronized (ManagedSelector.this)
+                {
+                    Deque<SelectorUpdate> updates = _updates;
+                    _updates = _updateable;
+                    _updateable = updates;
+                }
 
-            if (LOG.isDebugEnabled())
-                LOG.debug("updateable {}", _updateable.size());
+                if (LOG.isDebugEnabled())
+                    LOG.debug("updateable {}", _updateable.size());
 
-            for (SelectorUpdate update : _updateable)
-            {
-                if (_selector == null)
-                    break;
-                try
+                applied += _updateable.size();
+                for (SelectorUpdate update : _updateable)
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("update {}", update);
-                    update.update(_selector);
+                    if (_selector == null)
+                        break;
+                    try
+                    {
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("update {}", update);
+                        update.update(_selector);
+                    }
+                    catch (Throwable th)
+                    {
+                        LOG.warn(th);
+                    }
                 }
-                catch (Throwable th)
+                _updateable.clear();
+
+                Selector selector;
+                int updates;
+                synchronized (ManagedSelector.this)
                 {
-                    LOG.warn(th);
+                    updates = _updates.size();
+                    // Apply the updates submitted while applying the previous
+                    // batch now, rather than waking up the next select, unless
+                    // there have been too many batches already.
+                    if (updates > 0 && ++batches < MAX_UPDATE_BATCHES)
+                        continue;
+                    _selecting = updates == 0;
+                    selector = _selecting ? null : _selector;
                 }
-            }
-            _updateable.clear();
 
-            Selector selector;
-            int updates;
-            synchronized (ManagedSelector.this)
-            {
-                updates = _updates.size();
-                _selecting = updates == 0;
-                selector = _selecting ? null : _selector;
-            }
-
-            if (LOG.isDebugEnabled())
-                LOG.debug("updates {}", updates);
-
-            if (selector != null)
-            {
                 if (LOG.isDebugEnabled())
-                    LOG.debug("wakeup on updates {}", this);
-                selector.wakeup();
+                    LOG.debug("updates {}", updates);
+
+                if (selector != null)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("wakeup on updates {}", this);
+                    _wakeups.increment();
+                    selector.wakeup();
+                }
+                break;
             }
+            _updatesPerSelect.record(applied);
         }
 
         private boolean select()
@@ -469,7 +631,10 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} waiting with {} keys", selector, selector.keys().size());
+                    _selects.increment();
+                    long selectBegin = System.nanoTime();
                     int selected = selector.select();
+                    _selectNanos.add(System.nanoTime() - selectBegin);
                     if (selected == 0)
                     {
                         if (LOG.isDebugEnabled())
@@ -27,31 +27,40 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EventListener;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntUnaryOperator;
+import java.util.function.ToLongFunction;
 
 import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.Container;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.ThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPoolBudget;
+import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 
 /**
  * <p>{@link SelectorManager} manages a number of {@link ManagedSelector}s that
  * simplify the non-blocking primitives provided by the JVM via the {@code java.nio} package.</p>
  * <p>{@link SelectorManager} subclasses implement methods to return protocol-specific
  * {@link EndPoint}s and {@link Connection}s.</p>
+ * <p>The {@link Selector}s are opened by a configurable {@link SelectorProvider},
+ * so that an alternative, for example native, selector implementation can be
+ * used while keeping the same {@link EndPoint} contracts.</p>
  */
 
 @ManagedObject("Manager of the NIO Selectors")
@@ -67,6 +76,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final IntUnaryOperator _selectorIndexUpdate;
     private final List<AcceptListener> _acceptListeners = new ArrayList<>();
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private SelectorProvider _selectorProvider = SelectorProvider.provider();
     private ThreadPoolBudget.Lease _lease;
 
     private static int defaultSelectors(Executor executor)
@@ -134,6 +144,27 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         _connectTimeout = milliseconds;
     }
 
+    /**
+     * @return the provider used to open the {@link Selector}s
+     */
+    public SelectorProvider getSelectorProvider()
+    {
+        return _selectorProvider;
+    }
+
+    /**
+     * <p>Sets the provider used to open the {@link Selector}s.</p>
+     * <p>The channels registered with the selectors must be opened by the same provider.</p>
+     *
+     * @param selectorProvider the provider used to open the selectors
+     */
+    public void setSelectorProvider(SelectorProvider selectorProvider)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _selectorProvider = Objects.requireNonNull(selectorProvider);
+    }
+
     /**
      * Executes the given task in a different thread.
      *
@@ -153,6 +184,106 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         return _selectors.length;
     }
 
+    @ManagedAttribute(value = "number of tasks consumed in produce-consume mode by all selectors", readonly = true)
+    public long getPCTasksConsumed()
+    {
+        return sum(ManagedSelector::getPCTasksConsumed);
+    }
+
+    @ManagedAttribute(value = "number of tasks consumed in produce-invoke-consume mode by all selectors", readonly = true)
+    public long getPICTasksExecuted()
+    {
+        return sum(ManagedSelector::getPICTasksExecuted);
+    }
+
+    @ManagedAttribute(value = "number of tasks executed in produce-execute-consume mode by all selectors", readonly = true)
+    public long getPECTasksExecuted()
+    {
+        return sum(ManagedSelector::getPECTasksExecuted);
+    }
+
+    @ManagedAttribute(value = "number of tasks consumed in execute-produce-consume mode by all selectors", readonly = true)
+    public long getEPCTasksConsumed()
+    {
+        return sum(ManagedSelector::getEPCTasksConsumed);
+    }
+
+    @ManagedAttribute(value = "total time spent producing tasks, excluding the time blocked in select, by all selectors in ns", readonly = true)
+    public long getProduceTimeNanos()
+    {
+        return sum(ManagedSelector::getProduceTimeNanos);
+    }
+
+    @ManagedAttribute(value = "total time spent blocked in select by all selectors in ns", readonly = true)
+    public long getSelectTimeNanos()
+    {
+        return sum(ManagedSelector::getSelectTimeNanos);
+    }
+
+    @ManagedAttribute(value = "total time spent consuming tasks by all selectors in ns", readonly = true)
+    public long getConsumeTimeNanos()
+    {
+        return sum(ManagedSelector::getConsumeTimeNanos);
+    }
+
+    @ManagedAttribute(value = "histogram of the time taken to consume a task by all selectors", readonly = true)
+    public String getConsumeTimeHistogram()
+    {
+        HistogramStatistic histogram = new HistogramStatistic(EatWhatYouKill.CONSUME_TIME_BUCKETS);
+        for (ManagedSelector selector : _selectors)
+        {
+            if (selector != null)
+                histogram.add(selector.getConsumeTimes());
+        }
+        return histogram.toHistogramString("us");
+    }
+
+    @ManagedAttribute(value = "number of selector updates submitted to all selectors", readonly = true)
+    public long getUpdatesSubmitted()
+    {
+        return sum(ManagedSelector::getUpdatesSubmitted);
+    }
+
+    @ManagedAttribute(value = "number of wakeups of all selectors", readonly = true)
+    public long getWakeups()
+    {
+        return sum(ManagedSelector::getWakeups);
+    }
+
+    @ManagedAttribute(value = "number of select cycles of all selectors", readonly = true)
+    public long getSelects()
+    {
+        return sum(ManagedSelector::getSelects);
+    }
+
+    @ManagedAttribute(value = "average number of selector wakeups per select cycle", readonly = true)
+    public double getWakeupsPerSelect()
+    {
+        long selects = getSelects();
+        return selects > 0 ? (double)getWakeups() / selects : 0.0D;
+    }
+
+    @ManagedOperation(value = "resets the execution strategy and select statistics of all selectors", impact = "ACTION")
+    public void resetStatistics()
+    {
+        for (ManagedSelector selector : _selectors)
+        {
+            if (selector != null)
+                selector.resetStatistics();
+        }
+    }
+
+    private long sum(ToLongFunction<ManagedSelector> value)
+    {
+        long sum = 0;
+        for (ManagedSelector selector : _selectors)
+        {
+            if (selector != null)
+                sum += value.applyAsLong(selector);
+        }
+        return sum;
+    }
+
     private ManagedSelector chooseSelector()
     {
         return _selectors[_selectorIndex.updateAndGet(_selectorIndexUpdate)];
@@ -256,7 +387,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
 
     protected Selector newSelector() throws IOException
     {
-        return Selector.open();
+        return getSelectorProvider().openSelector();
     }
 
     @Override
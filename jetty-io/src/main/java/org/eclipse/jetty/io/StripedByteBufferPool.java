@@ -0,0 +1,392 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A ByteBuffer pool where each thread first looks for ByteBuffers in a small
+ * per-thread-stripe magazine, and only falls back to the shared buckets when the
+ * magazine is empty (on acquire) or full (on release).</p>
+ * <p>Threads are mapped to stripes by thread id, so that with enough stripes each
+ * thread mostly hits its own magazine and the shared buckets, which are the same
+ * as those of {@link ArrayByteBufferPool}, are only touched to refill or spill a
+ * magazine.
+ * Magazine slots are claimed with a compare-and-set, so no locks are taken.</p>
+ * <p>Buffers held by the magazines are accounted in the heap and direct memory
+ * retained by this pool, and are cleared when the max heap or direct memory
+ * is exceeded and the shared buckets are already empty.</p>
+ */
+@ManagedObject
+public class StripedByteBufferPool extends AbstractByteBufferPool
+{
+    private final int _minCapacity;
+    private final ByteBufferPool.Bucket[] _direct;
+    private final ByteBufferPool.Bucket[] _indirect;
+    private final Magazine[] _magazines;
+    private final int _magazineSize;
+    private final LongAdder _magazineHits = new LongAdder();
+    private final LongAdder _magazineMisses = new LongAdder();
+
+    /**
+     * Creates a new StripedByteBufferPool with a default configuration.
+     */
+    public StripedByteBufferPool()
+    {
+        this(-1, -1, -1);
+    }
+
+    /**
+     * Creates a new StripedByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     */
+    public StripedByteBufferPool(int minCapacity, int factor, int maxCapacity)
+    {
+        this(minCapacity, factor, maxCapacity, -1, -1, -1);
+    }
+
+    /**
+     * Creates a new StripedByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxQueueLength the maximum ByteBuffer queue length of the shared buckets
+     * @param maxHeapMemory the max heap memory in bytes
+     * @param maxDirectMemory the max direct memory in bytes
+     */
+    public StripedByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, long maxDirectMemory)
+    {
+        this(minCapacity, factor, maxCapacity, maxQueueLength, maxHeapMemory, maxDirectMemory, -1, -1);
+    }
+
+    /**
+     * Creates a new StripedByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxQueueLength the maximum ByteBuffer queue length of the shared buckets
+     * @param maxHeapMemory the max heap memory in bytes
+     * @param maxDirectMemory the max direct memory in bytes
+     * @param stripes the number of magazine stripes, or -1 for a default based on the number of processors
+     * @param magazineSize the number of ByteBuffers of each capacity held by each magazine
+     */
+    public StripedByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, long maxDirectMemory, int stripes, int magazineSize)
+    {
+        super(factor, maxQueueLength, maxHeapMemory, maxDirectMemory);
+
+        factor = getCapacityFactor();
+        if (minCapacity <= 0)
+            minCapacity = 0;
+        if (maxCapacity <= 0)
+            maxCapacity = 64 * 1024;
+        if ((maxCapacity % factor) != 0 || factor >= maxCapacity)
+            throw new IllegalArgumentException("The capacity factor must be a divisor of maxCapacity");
+        _minCapacity = minCapacity;
+
+        int length = maxCapacity / factor;
+        _direct = new ByteBufferPool.Bucket[length];
+        _indirect = new ByteBufferPool.Bucket[length];
+
+        if (stripes <= 0)
+            stripes = Runtime.getRuntime().availableProcessors();
+        // Round up to a power of 2 so that stripes can be selected with a mask.
+        stripes = Integer.highestOneBit(stripes - 1) << 1;
+        if (stripes == 0)
+            stripes = 1;
+        if (magazineSize <= 0)
+            magazineSize = 4;
+        _magazineSize = magazineSize;
+        _magazines = new Magazine[stripes];
+        for (int i = 0; i < stripes; ++i)
+        {
+            _magazines[i] = new Magazine(length * magazineSize);
+        }
+    }
+
+    @ManagedAttribute("The number of magazine stripes")
+    public int getStripes()
+    {
+        return _magazines.length;
+    }
+
+    @ManagedAttribute("The number of ByteBuffers of each capacity held by each magazine")
+    public int getMagazineSize()
+    {
+        return _magazineSize;
+    }
+
+    @Override
+    public ByteBuffer acquire(int size, boolean direct)
+    {
+        if (size < _minCapacity)
+            return newByteBuffer(size, direct);
+        int b = bucketFor(size);
+        int capacity = (b + 1) * getCapacityFactor();
+        if (b >= _direct.length)
+            return newByteBuffer(capacity, direct);
+
+        ByteBuffer buffer = magazine().acquire(b, direct);
+        if (buffer != null)
+        {
+            _magazineHits.increment();
+        }
+        else
+        {
+            _magazineMisses.increment();
+            Bucket bucket = bucketsFor(direct)[b];
+            if (bucket != null)
+                buffer = bucket.acquire();
+            if (buffer == null)
+                return newByteBuffer(capacity, direct);
+        }
+        decrementMemory(buffer);
+        return buffer;
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+        int capacity = buffer.capacity();
+        if (capacity < _minCapacity)
+            return;
+        int b = bucketFor(capacity);
+        if (b >= _direct.length)
+            return;
+
+        boolean direct = buffer.isDirect();
+        BufferUtil.clear(buffer);
+        if (!magazine().release(b, buffer))
+            bucketFor(b, direct).release(buffer);
+        incrementMemory(buffer);
+        releaseExcessMemory(direct, this::clearOldest);
+    }
+
+    @Override
+    public void clear()
+    {
+        super.clear();
+        for (int i = 0; i < _direct.length; ++i)
+        {
+            Bucket bucket = _direct[i];
+            if (bucket != null)
+                bucket.clear();
+            _direct[i] = null;
+            bucket = _indirect[i];
+            if (bucket != null)
+                bucket.clear();
+            _indirect[i] = null;
+        }
+        for (Magazine magazine : _magazines)
+        {
+            magazine.clear(true, null);
+            magazine.clear(false, null);
+        }
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _magazineHits.reset();
+        _magazineMisses.reset();
+    }
+
+    @ManagedAttribute("The number of acquires satisfied by a magazine")
+    public long getMagazineHits()
+    {
+        return _magazineHits.sum();
+    }
+
+    @ManagedAttribute("The number of acquires that missed the magazine")
+    public long getMagazineMisses()
+    {
+        return _magazineMisses.sum();
+    }
+
+    private Magazine magazine()
+    {
+        return _magazines[(int)Thread.currentThread().getId() & (_magazines.length - 1)];
+    }
+
+    private void clearOldest(boolean direct)
+    {
+        long oldest = Long.MAX_VALUE;
+        int index = -1;
+        Bucket[] buckets = bucketsFor(direct);
+        for (int i = 0; i < buckets.length; ++i)
+        {
+            Bucket bucket = buckets[i];
+            if (bucket == null)
+                continue;
+            long lastUpdate = bucket.getLastUpdate();
+            if (lastUpdate < oldest)
+            {
+                oldest = lastUpdate;
+                index = i;
+            }
+        }
+        if (index >= 0)
+        {
+            Bucket bucket = buckets[index];
+            buckets[index] = null;
+            // The same bucket may be concurrently
+            // removed, so we need this null guard.
+            if (bucket != null)
+                bucket.clear(this::decrementMemory);
+        }
+        else
+        {
+            // The shared buckets are all gone, the
+            // remaining memory is in the magazines.
+            for (Magazine magazine : _magazines)
+            {
+                magazine.clear(direct, this::decrementMemory);
+            }
+        }
+    }
+
+    private int bucketFor(int capacity)
+    {
+        return (capacity - 1) / getCapacityFactor();
+    }
+
+    private Bucket bucketFor(int b, boolean direct)
+    {
+        Bucket[] buckets = bucketsFor(direct);
+        Bucket bucket = buckets[b];
+        if (bucket == null)
+            buckets[b] = bucket = new Bucket((b + 1) * getCapacityFactor(), getMaxQueueLength());
+        return bucket;
+    }
+
+    @ManagedAttribute("The number of pooled direct ByteBuffers")
+    public long getDirectByteBufferCount()
+    {
+        return getByteBufferCount(true);
+    }
+
+    @ManagedAttribute("The number of pooled heap ByteBuffers")
+    public long getHeapByteBufferCount()
+    {
+        return getByteBufferCount(false);
+    }
+
+    private long getByteBufferCount(boolean direct)
+    {
+        long shared = Arrays.stream(bucketsFor(direct))
+            .filter(Objects::nonNull)
+            .mapToLong(Bucket::size)
+            .sum();
+        long magazines = Arrays.stream(_magazines)
+            .mapToLong(magazine -> magazine.size(direct))
+            .sum();
+        return shared + magazines;
+    }
+
+    // Package local for testing
+    ByteBufferPool.Bucket[] bucketsFor(boolean direct)
+    {
+        return direct ? _direct : _indirect;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{stripes=%d,magazine=%d}", getClass().getSimpleName(), hashCode(), _magazines.length, _magazineSize);
+    }
+
+    /**
+     * <p>A fixed number of slots for each bucket capacity, claimed with compare-and-set.</p>
+     */
+    private class Magazine
+    {
+        private final AtomicReferenceArray<ByteBuffer> _direct;
+        private final AtomicReferenceArray<ByteBuffer> _indirect;
+
+        private Magazine(int slots)
+        {
+            _direct = new AtomicReferenceArray<>(slots);
+            _indirect = new AtomicReferenceArray<>(slots);
+        }
+
+        private ByteBuffer acquire(int bucket, boolean direct)
+        {
+            AtomicReferenceArray<ByteBuffer> slots = direct ? _direct : _indirect;
+            int base = bucket * _magazineSize;
+            for (int i = base + _magazineSize - 1; i >= base; --i)
+            {
+                ByteBuffer buffer = slots.get(i);
+                if (buffer != null && slots.compareAndSet(i, buffer, null))
+                    return buffer;
+            }
+            return null;
+        }
+
+        private boolean release(int bucket, ByteBuffer buffer)
+        {
+            AtomicReferenceArray<ByteBuffer> slots = buffer.isDirect() ? _direct : _indirect;
+            int base = bucket * _magazineSize;
+            for (int i = base; i < base + _magazineSize; ++i)
+            {
+                if (slots.get(i) == null && slots.compareAndSet(i, null, buffer))
+                    return true;
+            }
+            return false;
+        }
+
+        private void clear(boolean direct, Consumer<ByteBuffer> memoryFn)
+        {
+            AtomicReferenceArray<ByteBuffer> slots = direct ? _direct : _indirect;
+            for (int i = 0; i < slots.length(); ++i)
+            {
+                ByteBuffer buffer = slots.getAndSet(i, null);
+                if (buffer != null && memoryFn != null)
+                    memoryFn.accept(buffer);
+            }
+        }
+
+        private long size(boolean direct)
+        {
+            AtomicReferenceArray<ByteBuffer> slots = direct ? _direct : _indirect;
+            long size = 0;
+            for (int i = 0; i < slots.length(); ++i)
+            {
+                if (slots.get(i) != null)
+                    ++size;
+            }
+            return size;
+        }
+    }
+}
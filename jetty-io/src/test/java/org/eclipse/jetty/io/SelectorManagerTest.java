@@ -37,6 +37,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -163,4 +165,72 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testConcurrentUpdatesAreBatched() throws Exception
+    {
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+        selectorManager.start();
+
+        try
+        {
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+
+            // Hold the selector in an update, so that the
+            // concurrent updates queue up behind it.
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            selector.submit(s ->
+            {
+                blocked.countDown();
+                try
+                {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            int threads = 8;
+            int updates = 100;
+            CountDownLatch submitted = new CountDownLatch(threads);
+            CountDownLatch applied = new CountDownLatch(threads * updates);
+            for (int t = 0; t < threads; ++t)
+            {
+                executor.execute(() ->
+                {
+                    for (int u = 0; u < updates; ++u)
+                    {
+                        selector.submit(s -> applied.countDown());
+                    }
+                    submitted.countDown();
+                });
+            }
+            assertTrue(submitted.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            assertTrue(applied.await(5, TimeUnit.SECONDS));
+            assertThat(selector.getWakeups(), lessThan(selector.getUpdatesSubmitted()));
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
 }
@@ -176,4 +176,39 @@ public class SocketChannelEndPointOpenCloseTest
         assertFalse(c.server.isOpen());
         assertTrue(c.server.isOutputShutdown());
     }
+
+    @Test
+    public void testCoalescedFlush() throws Exception
+    {
+        EndPointPair c = newConnection();
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool();
+        c.client.setByteBufferPool(bufferPool);
+        c.client.setWriteCoalesceSize(16);
+
+        ByteBuffer header = BufferUtil.toBuffer("head");
+        ByteBuffer empty = BufferUtil.EMPTY_BUFFER;
+        ByteBuffer body = BufferUtil.toBuffer("body");
+        assertTrue(c.client.flush(header, empty, body));
+        assertFalse(header.hasRemaining());
+        assertFalse(body.hasRemaining());
+        assertEquals(1, c.client.getCoalescedFlushes());
+        assertEquals(1, c.client.getCoalescedBuffers());
+        // The coalesced buffer is returned to the pool.
+        assertEquals(1, bufferPool.getDirectByteBufferCount());
+
+        // Too large to be coalesced.
+        assertTrue(c.client.flush(BufferUtil.toBuffer("0123456789"), BufferUtil.toBuffer("0123456789")));
+        assertEquals(1, c.client.getCoalescedFlushes());
+
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+        long end = System.nanoTime() + 5_000_000_000L;
+        while (buffer.remaining() < 28 && System.nanoTime() < end)
+        {
+            c.server.fill(buffer);
+        }
+        assertEquals("headbody01234567890123456789", BufferUtil.toString(buffer));
+
+        c.client.close();
+        c.server.close();
+    }
 }
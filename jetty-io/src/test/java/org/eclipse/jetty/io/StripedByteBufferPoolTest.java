@@ -0,0 +1,121 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedByteBufferPoolTest
+{
+    @Test
+    public void testMinimumRelease()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(10, 100, 1000);
+
+        for (int size = 1; size <= 9; size++)
+        {
+            ByteBuffer buffer = bufferPool.acquire(size, true);
+
+            assertTrue(buffer.isDirect());
+            assertEquals(size, buffer.capacity());
+
+            bufferPool.release(buffer);
+
+            assertEquals(0, bufferPool.getDirectByteBufferCount());
+        }
+    }
+
+    @Test
+    public void testAcquireReleaseAcquire()
+    {
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(10, 100, 1000);
+
+        for (int size = 390; size <= 510; size++)
+        {
+            bufferPool.clear();
+            ByteBuffer buffer1 = bufferPool.acquire(size, true);
+            assertThat(buffer1.capacity(), greaterThanOrEqualTo(size));
+            bufferPool.release(buffer1);
+            ByteBuffer buffer2 = bufferPool.acquire(size, true);
+            bufferPool.release(buffer2);
+            ByteBuffer buffer3 = bufferPool.acquire(size, false);
+            bufferPool.release(buffer3);
+
+            assertEquals(1, bufferPool.getDirectByteBufferCount());
+            assertEquals(1, bufferPool.getHeapByteBufferCount());
+            assertSame(buffer1, buffer2);
+            assertNotSame(buffer1, buffer3);
+        }
+    }
+
+    @Test
+    public void testMagazineSpillsToSharedBuckets()
+    {
+        int magazineSize = 2;
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(-1, -1, -1, -1, -1, -1, 1, magazineSize);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024, false));
+        }
+        buffers.forEach(bufferPool::release);
+
+        assertEquals(5, bufferPool.getHeapByteBufferCount());
+        assertEquals(5 - magazineSize, bufferPool.bucketsFor(false)[0].size());
+        assertEquals(5 * 1024, bufferPool.getHeapMemory());
+
+        for (int i = 0; i < 5; ++i)
+        {
+            assertTrue(buffers.contains(bufferPool.acquire(1024, false)));
+        }
+        assertEquals(magazineSize, bufferPool.getMagazineHits());
+        assertEquals(0, bufferPool.getHeapByteBufferCount());
+        assertEquals(0, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testMaxMemory()
+    {
+        int factor = 1024;
+        int maxMemory = 11 * 1024;
+        StripedByteBufferPool bufferPool = new StripedByteBufferPool(-1, factor, -1, -1, -1, maxMemory, 1, 1);
+
+        for (int i = 1; i <= 8; ++i)
+        {
+            bufferPool.release(bufferPool.newByteBuffer(factor * i, true));
+            assertThat(bufferPool.getMemory(true), lessThanOrEqualTo((long)maxMemory));
+        }
+
+        // Memory retained by the magazines is reclaimed too.
+        bufferPool.release(bufferPool.newByteBuffer(factor * 11, true));
+        assertThat(bufferPool.getMemory(true), lessThanOrEqualTo((long)maxMemory));
+    }
+}
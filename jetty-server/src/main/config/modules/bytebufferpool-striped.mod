@@ -0,0 +1,37 @@
+DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Configures a ByteBufferPool used by ServerConnectors that caches
+ByteBuffers in per-thread stripes in front of the shared buckets.
+
+[provides]
+bytebufferpool
+
+[xml]
+etc/jetty-bytebufferpool-striped.xml
+
+[ini-template]
+### Server Striped ByteBufferPool Configuration
+## Minimum capacity to pool ByteBuffers
+#jetty.byteBufferPool.minCapacity=0
+
+## Maximum capacity to pool ByteBuffers
+#jetty.byteBufferPool.maxCapacity=65536
+
+## Capacity factor
+#jetty.byteBufferPool.factor=1024
+
+## Maximum queue length for each shared bucket (-1 for unbounded)
+#jetty.byteBufferPool.maxQueueLength=-1
+
+## Maximum heap memory retainable by the pool (-1 for unlimited)
+#jetty.byteBufferPool.maxHeapMemory=-1
+
+## Maximum direct memory retainable by the pool (-1 for unlimited)
+#jetty.byteBufferPool.maxDirectMemory=-1
+
+## Number of per-thread stripes (-1 for the number of processors)
+#jetty.byteBufferPool.stripes=-1
+
+## Number of ByteBuffers of each capacity cached by each stripe
+#jetty.byteBufferPool.magazineSize=4
@@ -0,0 +1,22 @@
+DO NOT EDIT - See: https://www.eclipse.org/jetty/documentation/current/startup-modules.html
+
+[description]
+Enables a server wide store of static content held
+in off-heap buffers, shared by the DefaultServlet of
+every context.
+
+[depend]
+server
+
+[xml]
+etc/jetty-content-store.xml
+
+[ini-template]
+## Maximum total size in bytes of the stored buffers
+# jetty.contentStore.maxSize=268435456
+
+## Maximum size in bytes of a stored buffer
+# jetty.contentStore.maxBufferSize=33554432
+
+## Whether file resources are memory mapped rather than copied to direct buffers
+# jetty.contentStore.useFileMappedBuffer=true
@@ -23,6 +23,15 @@ etc/jetty-gzip.xml
 ## Gzip compression level (-1 for default)
 # jetty.gzip.compressionLevel=-1
 
+## Whether the gzip compression level is lowered as the server load increases
+# jetty.gzip.adaptiveCompression=false
+
+## Gzip compression level used when the server is saturated
+# jetty.gzip.minCompressionLevel=1
+
+## Minimum content length to compress when the server is low on resources
+# jetty.gzip.adaptiveMinGzipSize=4096
+
 ## User agents for which gzip is disabled
 # jetty.gzip.excludedUserAgent=.*MSIE.6\.0.*
 
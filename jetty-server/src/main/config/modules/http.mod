@@ -39,5 +39,8 @@ etc/jetty-http.xml
 ## Thread priority delta to give to acceptor threads
 # jetty.http.acceptorPriorityDelta=0
 
+## Max total size in bytes of small buffers coalesced into one write (0 disables)
+# jetty.http.writeCoalesceSize=0
+
 ## Connect Timeout in milliseconds
 # jetty.http.connectTimeout=15000
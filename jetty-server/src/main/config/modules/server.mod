@@ -38,6 +38,9 @@ etc/jetty.xml
 ## Max response content write length that is buffered (in bytes)
 # jetty.httpConfig.outputAggregationSize=8192
 
+## Min file content length sent with FileChannel.transferTo() over clear-text HTTP/1.1 (-1 disables)
+# jetty.httpConfig.minFileTransferSize=-1
+
 ## Max request headers size (in bytes)
 # jetty.httpConfig.requestHeaderSize=8192
 
@@ -53,6 +56,9 @@ etc/jetty.xml
 ## Max per-connection header cache size (in nodes)
 # jetty.httpConfig.headerCacheSize=1024
 
+## Max size (in nodes) the per-connection header cache may grow to
+# jetty.httpConfig.maxHeaderCacheSize=4096
+
 ## Whether, for requests with content, delay dispatch until some content has arrived
 # jetty.httpConfig.delayDispatchUntilContent=true
 
@@ -18,8 +18,15 @@ etc/jetty-threadpool.xml
 ## Number of reserved threads (-1 for heuristic)
 # jetty.threadPool.reservedThreads=-1
 
+## Whether the number of reserved threads adapts to demand
+# jetty.threadPool.reservedThreadsAdaptive=false
+
 ## Thread Idle Timeout (in milliseconds)
 #jetty.threadPool.idleTimeout=60000
 
 ## Whether to Output a Detailed Dump
 #jetty.threadPool.detailedDump=false
+
+## Whether to run blocking tasks (such as request handling) in virtual threads,
+## if supported by the JVM
+#jetty.threadPool.useVirtualThreads=false
@@ -19,22 +19,32 @@
 package org.eclipse.jetty.server;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.ContentCoding;
 import org.eclipse.jetty.http.DateGenerator;
+import org.eclipse.jetty.http.GzipContentCoding;
 import org.eclipse.jetty.http.HttpContent;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
@@ -43,16 +53,26 @@ import org.eclipse.jetty.http.MimeTypes.Type;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IncludeExclude;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
 
+@ManagedObject("A cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = Log.getLogger(CachedContentFactory.class);
     private static final Map<CompressedContentFormat, CachedPrecompressedHttpContent> NO_PRECOMPRESSED = Collections.unmodifiableMap(Collections.emptyMap());
+    private static final IncludeExclude<String> COMPRESSIBLE_MIME_TYPES = GzipHandler.newDefaultMimeTypes();
+    private static final int COMPRESS_BUFFER_SIZE = 8192;
 
     private final ConcurrentMap<String, CachedHttpContent> _cache;
     private final AtomicInteger _cachedSize;
@@ -63,7 +83,17 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final boolean _etags;
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean _useFileMappedBuffer;
-
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _rejections = new LongAdder();
+    private final LongAdder _compressions = new LongAdder();
+
+    private EvictionPolicy _evictionPolicy = new LRUEvictionPolicy();
+    private SharedContentStore _contentStore;
+    private CompressedContentFormat _compressFormat;
+    private DeflaterPool _deflaterPool;
+    private int _minCompressSize = 32;
     private int _maxCachedFileSize = 128 * 1024 * 1024;
     private int _maxCachedFiles = 2048;
     private int _maxCacheSize = 256 * 1024 * 1024;
@@ -91,16 +121,170 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         _precompressedFormats = precompressedFormats;
     }
 
+    @ManagedAttribute(value = "The total size in bytes of the cached buffers", readonly = true)
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
 
+    @ManagedAttribute(value = "The number of cached files", readonly = true)
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
 
+    @ManagedAttribute(value = "The number of lookups found in the cache", readonly = true)
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute(value = "The number of lookups not found in the cache", readonly = true)
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute(value = "The number of entries evicted to respect the cache limits", readonly = true)
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedAttribute(value = "The number of cacheable contents not admitted by the eviction policy", readonly = true)
+    public long getRejections()
+    {
+        return _rejections.sum();
+    }
+
+    @ManagedAttribute(value = "The number of contents compressed by the cache", readonly = true)
+    public long getCompressions()
+    {
+        return _compressions.sum();
+    }
+
+    @ManagedOperation(value = "Resets the cache statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _rejections.reset();
+        _compressions.reset();
+    }
+
+    @ManagedAttribute("Whether cached contents without a precompressed gzip file are compressed by the cache")
+    public boolean isCompressContent()
+    {
+        return _compressFormat != null;
+    }
+
+    /**
+     * <p>Sets whether the cache compresses the cached contents that have no precompressed gzip file.</p>
+     * <p>The first request for a compressible content compresses it, and the compressed
+     * bytes are cached as a precompressed variant of the content, so that subsequent
+     * requests accepting gzip are served the cached bytes, with the same Vary,
+     * Content-Encoding and ETag handling of precompressed files.</p>
+     * <p>The gzip format must be one of the precompressed formats of this cache,
+     * otherwise the variants would never be served and contents are not compressed.</p>
+     *
+     * @param compressContent whether to compress the cached contents
+     * @see #isCompressible(CachedHttpContent)
+     */
+    public void setCompressContent(boolean compressContent)
+    {
+        CompressedContentFormat format = null;
+        if (compressContent)
+        {
+            for (CompressedContentFormat precompressed : _precompressedFormats)
+            {
+                if (CompressedContentFormat.GZIP._encoding.equalsIgnoreCase(precompressed._encoding))
+                    format = precompressed;
+            }
+            if (format == null)
+                LOG.warn("Cannot compress content without the gzip precompressed format in {}", this);
+        }
+        if (format == _compressFormat)
+            return;
+        flushCache();
+        _compressFormat = format;
+    }
+
+    @ManagedAttribute("The pool of the deflaters compressing the cached contents")
+    public DeflaterPool getDeflaterPool()
+    {
+        return _deflaterPool;
+    }
+
+    /**
+     * <p>Sets the pool of the {@link Deflater}s compressing the cached contents.</p>
+     * <p>The pool is not managed by this cache. If there is no pool, a
+     * {@link Deflater} is created and ended for each compressed content.</p>
+     *
+     * @param deflaterPool the pool of deflaters, which must be created with {@code nowrap=true}
+     */
+    public void setDeflaterPool(DeflaterPool deflaterPool)
+    {
+        _deflaterPool = deflaterPool;
+    }
+
+    @ManagedAttribute("The minimum size in bytes of a content compressed by the cache")
+    public int getMinCompressSize()
+    {
+        return _minCompressSize;
+    }
+
+    public void setMinCompressSize(int minCompressSize)
+    {
+        _minCompressSize = minCompressSize;
+    }
+
+    @ManagedAttribute("The policy deciding the admission and eviction of entries")
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return _evictionPolicy;
+    }
+
+    /**
+     * <p>Sets the policy deciding which contents are admitted in the cache and which are evicted
+     * when the cache limits are exceeded. The cache is flushed when the policy is changed.</p>
+     *
+     * @param evictionPolicy the eviction policy
+     * @see LRUEvictionPolicy
+     * @see TinyLFUEvictionPolicy
+     */
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy)
+    {
+        Objects.requireNonNull(evictionPolicy);
+        if (evictionPolicy == _evictionPolicy)
+            return;
+        flushCache();
+        _evictionPolicy = evictionPolicy;
+    }
+
+    @ManagedAttribute("The server wide store of the content buffers")
+    public SharedContentStore getContentStore()
+    {
+        return _contentStore;
+    }
+
+    /**
+     * <p>Sets a store of off-heap buffers shared with other caches.</p>
+     * <p>When a store is set, the bytes of the cached contents are taken from
+     * the store rather than held by this cache, so they do not count in
+     * {@link #getCachedSize()}, and they are not copied to heap buffers.</p>
+     *
+     * @param contentStore the shared content store, or null to hold the buffers in this cache
+     */
+    public void setContentStore(SharedContentStore contentStore)
+    {
+        if (contentStore == _contentStore)
+            return;
+        flushCache();
+        _contentStore = contentStore;
+    }
+
+    @ManagedAttribute("The maximum size in bytes of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -112,6 +296,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         shrinkCache();
     }
 
+    @ManagedAttribute("The maximum total size in bytes of the cached buffers")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -126,6 +311,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return the max number of cached files.
      */
+    @ManagedAttribute("The maximum number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -145,6 +331,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return _useFileMappedBuffer;
     }
 
+    @ManagedOperation(value = "Flushes the cache", impact = "ACTION")
     public void flushCache()
     {
         while (_cache.size() > 0)
@@ -153,7 +340,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             {
                 CachedHttpContent content = _cache.remove(path);
                 if (content != null)
+                {
+                    _evictionPolicy.onRemoved(content);
                     content.invalidate();
+                }
             }
         }
     }
@@ -176,7 +366,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // Is the content in this cache?
         CachedHttpContent content = _cache.get(pathInContext);
         if (content != null && (content).isValid())
+        {
+            _hits.increment();
             return content;
+        }
+        _misses.increment();
 
         // try loading the content from our factory.
         Resource resource = _factory.getResource(pathInContext);
@@ -210,6 +404,25 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return (len > 0 && (_useFileMappedBuffer || (len < _maxCachedFileSize && len < _maxCacheSize)));
     }
 
+    /**
+     * @param content the cached content to test
+     * @return whether the cache should compress the content. The default implementation
+     * tests the content length and excludes the media types that are already compressed,
+     * as {@link GzipHandler#newDefaultMimeTypes()} does.
+     * @see #setCompressContent(boolean)
+     */
+    protected boolean isCompressible(CachedHttpContent content)
+    {
+        if (content.getContentLengthValue() < _minCompressSize)
+            return false;
+
+        String contentType = content.getContentTypeValue();
+        if (contentType == null)
+            return false;
+        String mimeType = StringUtil.asciiToLowerCase(MimeTypes.getContentTypeWithoutCharset(contentType));
+        return COMPRESSIBLE_MIME_TYPES.test(mimeType);
+    }
+
     private HttpContent load(String pathInContext, Resource resource, int maxBufferSize)
     {
         if (resource == null || !resource.exists())
@@ -218,8 +431,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         if (resource.isDirectory())
             return new ResourceHttpContent(resource, _mimeTypes.getMimeByExtension(resource.toString()), getMaxCachedFileSize());
 
-        // Will it fit in the cache?
-        if (isCacheable(resource))
+        // Will it fit in the cache and is it worth evicting another entry for it?
+        if (isCacheable(resource) && isAdmitted(pathInContext))
         {
             CachedHttpContent content;
 
@@ -238,13 +451,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                         if (compressedResource.exists() && compressedResource.lastModified() >= resource.lastModified() &&
                             compressedResource.length() < resource.length())
                         {
-                            compressedContent = new CachedHttpContent(compressedPathInContext, compressedResource, null);
-                            CachedHttpContent added = _cache.putIfAbsent(compressedPathInContext, compressedContent);
-                            if (added != null)
-                            {
-                                compressedContent.invalidate();
-                                compressedContent = added;
-                            }
+                            compressedContent = add(new CachedHttpContent(compressedPathInContext, compressedResource, null));
                         }
                     }
                     if (compressedContent != null)
@@ -256,14 +463,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 content = new CachedHttpContent(pathInContext, resource, null);
 
             // Add it to the cache.
-            CachedHttpContent added = _cache.putIfAbsent(pathInContext, content);
-            if (added != null)
-            {
-                content.invalidate();
-                content = added;
-            }
-
-            return content;
+            return add(content);
         }
 
         // Look for non Cacheable precompressed resource or content
@@ -293,34 +493,40 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return new ResourceHttpContent(resource, mt, maxBufferSize);
     }
 
+    private boolean isAdmitted(String pathInContext)
+    {
+        boolean full = _cachedFiles.get() >= _maxCachedFiles || _cachedSize.get() >= _maxCacheSize;
+        if (_evictionPolicy.admit(pathInContext, full))
+            return true;
+        _rejections.increment();
+        return false;
+    }
+
+    private CachedHttpContent add(CachedHttpContent content)
+    {
+        CachedHttpContent added = _cache.putIfAbsent(content.getKey(), content);
+        if (added != null)
+        {
+            content.invalidate();
+            return added;
+        }
+        _evictionPolicy.onAdded(content);
+        return content;
+    }
+
     private void shrinkCache()
     {
         // While we need to shrink
         while (_cache.size() > 0 && (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize))
         {
-            // Scan the entire cache and generate an ordered list by last accessed time.
-            SortedSet<CachedHttpContent> sorted = new TreeSet<>((c1, c2) ->
+            // Ask the policy for the next victim, skipping the entries that have already been removed.
+            CachedHttpContent content = _evictionPolicy.evict();
+            if (content == null)
+                break;
+            if (_cache.remove(content.getKey(), content))
             {
-                if (c1._lastAccessed < c2._lastAccessed)
-                    return -1;
-
-                if (c1._lastAccessed > c2._lastAccessed)
-                    return 1;
-
-                if (c1._contentLengthValue < c2._contentLengthValue)
-                    return -1;
-
-                return c1._key.compareTo(c2._key);
-            });
-            sorted.addAll(_cache.values());
-
-            // Invalidate least recently used first
-            for (CachedHttpContent content : sorted)
-            {
-                if (_cachedFiles.get() <= _maxCachedFiles && _cachedSize.get() <= _maxCacheSize)
-                    break;
-                if (content == _cache.remove(content.getKey()))
-                    content.invalidate();
+                _evictions.increment();
+                content.invalidate();
             }
         }
     }
@@ -373,7 +579,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     @Override
     public String toString()
     {
-        return "ResourceCache[" + _parent + "," + _factory + "]@" + hashCode();
+        return "ResourceCache[" + _parent + "," + _factory + "," + _evictionPolicy + "]@" + hashCode();
     }
 
     /**
@@ -395,7 +601,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         private final AtomicReference<ByteBuffer> _indirectBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _directBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _mappedBuffer = new AtomicReference<>();
-        private volatile long _lastAccessed;
+        private final SharedContentStore _store;
+        private volatile SharedContentStore.Entry _storeEntry;
+        private final AtomicReference<CachedCompressedHttpContent> _compressed = new AtomicReference<>();
+        private volatile boolean _incompressible;
 
         CachedHttpContent(String pathInContext, Resource resource, Map<CompressedContentFormat, CachedHttpContent> precompressedResources)
         {
@@ -418,8 +627,6 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             if (_cachedFiles.incrementAndGet() > _maxCachedFiles)
                 shrinkCache();
 
-            _lastAccessed = System.currentTimeMillis();
-
             _etag = CachedContentFactory.this._etags ? new PreEncodedHttpField(HttpHeader.ETAG, resource.getWeakETag()) : null;
 
             if (precompressedResources != null)
@@ -434,6 +641,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             {
                 _precompressed = NO_PRECOMPRESSED;
             }
+
+            // Resolve the stored bytes once, rather than for every request.
+            _store = _contentStore;
+            _storeEntry = _store == null ? null : _store.getEntry(resource);
         }
 
         public String getKey()
@@ -468,12 +679,15 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         {
             if (_lastModifiedValue == _resource.lastModified() && _contentLengthValue == _resource.length())
             {
-                _lastAccessed = System.currentTimeMillis();
+                _evictionPolicy.onHit(this);
                 return true;
             }
 
-            if (this == _cache.remove(_key))
+            if (_cache.remove(_key, this))
+            {
+                _evictionPolicy.onRemoved(this);
                 invalidate();
+            }
             return false;
         }
 
@@ -489,6 +703,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
             _mappedBuffer.getAndSet(null);
 
+            _incompressible = true;
+            CachedCompressedHttpContent compressed = _compressed.getAndSet(null);
+            if (compressed != null)
+                compressed.invalidate();
+
             _cachedFiles.decrementAndGet();
             _resource.close();
         }
@@ -549,6 +768,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         @Override
         public ByteBuffer getIndirectBuffer()
         {
+            // Content in a shared store is never copied to the heap, the stored buffer is used instead.
+            if (_store != null)
+                return getStoredBuffer();
+
             if (_resource.length() > _maxCachedFileSize)
             {
                 return null;
@@ -582,6 +805,9 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         @Override
         public ByteBuffer getDirectBuffer()
         {
+            if (_store != null)
+                return getStoredBuffer();
+
             ByteBuffer buffer = _mappedBuffer.get();
             if (buffer == null)
                 buffer = _directBuffer.get();
@@ -622,6 +848,22 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return buffer == null ? null : buffer.asReadOnlyBuffer();
         }
 
+        private ByteBuffer getStoredBuffer()
+        {
+            SharedContentStore.Entry entry = _storeEntry;
+            if (entry == null)
+                return null;
+            ByteBuffer buffer = entry.getBuffer();
+            if (buffer == null)
+            {
+                // Evicted from the store, load it again.
+                entry = _store.getEntry(_resource);
+                _storeEntry = entry;
+                buffer = entry == null ? null : entry.getBuffer();
+            }
+            return buffer;
+        }
+
         @Override
         public HttpField getContentLength()
         {
@@ -659,19 +901,247 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         @Override
         public Map<CompressedContentFormat, ? extends HttpContent> getPrecompressedContents()
         {
+            CachedCompressedHttpContent compressed = getCompressedContent();
             if (_precompressed.size() == 0)
-                return null;
-            Map<CompressedContentFormat, CachedPrecompressedHttpContent> ret = _precompressed;
+                return compressed == null ? null : compressed._contents;
+            Map<CompressedContentFormat, HttpContent> ret = null;
             for (Map.Entry<CompressedContentFormat, CachedPrecompressedHttpContent> entry : _precompressed.entrySet())
             {
                 if (!entry.getValue().isValid())
                 {
-                    if (ret == _precompressed)
+                    if (ret == null)
                         ret = new HashMap<>(_precompressed);
                     ret.remove(entry.getKey());
                 }
             }
-            return ret;
+            if (compressed != null)
+            {
+                if (ret == null)
+                    ret = new HashMap<>(_precompressed);
+                ret.put(compressed._format, compressed);
+            }
+            return ret == null ? _precompressed : ret;
+        }
+
+        private CachedCompressedHttpContent getCompressedContent()
+        {
+            CompressedContentFormat format = _compressFormat;
+            if (format == null || _precompressed.containsKey(format))
+                return null;
+
+            CachedCompressedHttpContent compressed = _compressed.get();
+            if (compressed != null || _incompressible || _cache.get(_key) != this)
+                return compressed;
+
+            // Compress without holding a lock, so concurrent first requests may
+            // all compress, but only the first compressed content is published.
+            ByteBuffer buffer = isCompressible(this) ? compress() : null;
+            if (buffer == null)
+            {
+                _incompressible = true;
+                return null;
+            }
+            compressed = new CachedCompressedHttpContent(this, format, buffer);
+            if (!_compressed.compareAndSet(null, compressed))
+                return _compressed.get();
+
+            // Compressed bytes held by this cache count in its size.
+            if (compressed._buffer != null && _cachedSize.addAndGet(compressed._length) > _maxCacheSize)
+                shrinkCache();
+            // Undo the publication if this content was invalidated meanwhile.
+            if (_incompressible && _compressed.compareAndSet(compressed, null))
+                compressed.invalidate();
+            return compressed;
+        }
+
+        /**
+         * @return the gzip compressed bytes of the resource, or null if they are not smaller than the resource
+         */
+        private ByteBuffer compress()
+        {
+            DeflaterPool deflaterPool = _deflaterPool;
+            ContentCoding.Encoder encoder = deflaterPool == null
+                ? GzipContentCoding.newEncoder(new Deflater(Deflater.DEFAULT_COMPRESSION, true), Deflater::end)
+                : GzipContentCoding.newEncoder(deflaterPool.acquire(), deflaterPool::release);
+            try (InputStream in = _resource.getInputStream())
+            {
+                _compressions.increment();
+                int bufferSize = (int)Math.min(_contentLengthValue, COMPRESS_BUFFER_SIZE);
+                byte[] input = new byte[bufferSize];
+                ByteBuffer output = BufferUtil.allocate(bufferSize);
+                // The compressed bytes are expected to be a fraction of the content.
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int)Math.min(_contentLengthValue / 4, COMPRESS_BUFFER_SIZE));
+                boolean finished = false;
+                while (!encoder.isFinished())
+                {
+                    // The input is only refilled once the encoder has consumed it all.
+                    if (!finished && encoder.needsInput())
+                    {
+                        int read = in.read(input);
+                        if (read < 0)
+                        {
+                            encoder.finish();
+                            finished = true;
+                        }
+                        else
+                        {
+                            encoder.setInput(ByteBuffer.wrap(input, 0, read));
+                        }
+                    }
+                    BufferUtil.clearToFill(output);
+                    encoder.encode(output, false);
+                    BufferUtil.flipToFlush(output, 0);
+                    out.write(output.array(), output.arrayOffset() + output.position(), output.remaining());
+                    // Give up as soon as the compressed bytes are not smaller.
+                    if (out.size() >= _contentLengthValue)
+                        return null;
+                }
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+            catch (IOException e)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug(e);
+            }
+            finally
+            {
+                encoder.release();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * <p>A compressed variant of a cached content, compressed by the cache.</p>
+     * <p>The compressed bytes are held by this content, or by the shared content
+     * store if there is one, in which case they are compressed again if they
+     * have been evicted from the store.</p>
+     */
+    public class CachedCompressedHttpContent extends PrecompressedHttpContent
+    {
+        private final CachedHttpContent _content;
+        private final CompressedContentFormat _format;
+        private final Map<CompressedContentFormat, HttpContent> _contents;
+        private final int _length;
+        private final HttpField _contentLength;
+        private final HttpField _etag;
+        private final ByteBuffer _buffer;
+        private volatile SharedContentStore.Entry _storeEntry;
+
+        CachedCompressedHttpContent(CachedHttpContent content, CompressedContentFormat format, ByteBuffer buffer)
+        {
+            super(content, content, format);
+            _content = content;
+            _format = format;
+            _contents = Collections.singletonMap(format, this);
+            _length = buffer.remaining();
+            _contentLength = new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, Integer.toString(_length));
+            _etag = (CachedContentFactory.this._etags) ? new PreEncodedHttpField(HttpHeader.ETAG, content.getResource().getWeakETag(format._etag)) : null;
+            _storeEntry = content._store == null ? null : store(buffer);
+            _buffer = _storeEntry == null ? buffer : null;
+        }
+
+        private SharedContentStore.Entry store(ByteBuffer buffer)
+        {
+            ByteBuffer direct = BufferUtil.allocateDirect(buffer.remaining());
+            BufferUtil.append(direct, buffer.slice());
+            return _content._store.putEntry(_content.getResource(), _format._encoding, direct);
+        }
+
+        private ByteBuffer getBuffer()
+        {
+            ByteBuffer buffer = _buffer;
+            if (buffer != null)
+                return buffer.asReadOnlyBuffer();
+
+            SharedContentStore.Entry entry = _storeEntry;
+            buffer = entry == null ? null : entry.getBuffer();
+            if (buffer == null)
+            {
+                // Evicted from the store, compress again.
+                ByteBuffer compressed = _content.compress();
+                if (compressed == null || compressed.remaining() != _length)
+                    return null;
+                entry = store(compressed);
+                _storeEntry = entry;
+                buffer = entry == null ? null : entry.getBuffer();
+                if (buffer == null)
+                    buffer = compressed.asReadOnlyBuffer();
+            }
+            return buffer;
+        }
+
+        private void invalidate()
+        {
+            // The buffer is not cleared, as it may still be used by requests in progress.
+            if (_buffer != null)
+                _cachedSize.addAndGet(-_length);
+        }
+
+        @Override
+        public HttpField getETag()
+        {
+            if (_etag != null)
+                return _etag;
+            return super.getETag();
+        }
+
+        @Override
+        public String getETagValue()
+        {
+            if (_etag != null)
+                return _etag.getValue();
+            return super.getETagValue();
+        }
+
+        @Override
+        public ByteBuffer getIndirectBuffer()
+        {
+            // May be a direct buffer from the store, as the compressed
+            // bytes cannot be read from the resource if it is null.
+            return getBuffer();
+        }
+
+        @Override
+        public ByteBuffer getDirectBuffer()
+        {
+            ByteBuffer buffer = getBuffer();
+            return buffer != null && buffer.isDirect() ? buffer : null;
+        }
+
+        @Override
+        public HttpField getContentLength()
+        {
+            return _contentLength;
+        }
+
+        @Override
+        public long getContentLengthValue()
+        {
+            return _length;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            ByteBuffer buffer = getBuffer();
+            if (buffer == null)
+                throw new IOException("Compressed content not available " + this);
+            if (buffer.hasArray())
+                return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return new ByteArrayInputStream(BufferUtil.toArray(buffer));
+        }
+
+        @Override
+        public ReadableByteChannel getReadableByteChannel() throws IOException
+        {
+            return Channels.newChannel(getInputStream());
+        }
+
+        @Override
+        public String toString()
+        {
+            return "CachedCompressed" + super.toString();
         }
     }
 
@@ -717,4 +1187,391 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return "Cached" + super.toString();
         }
     }
+
+    /**
+     * <p>A policy deciding which contents are admitted in the cache and which
+     * are evicted when the cache limits are exceeded.</p>
+     * <p>Implementations must be thread safe and are called from request threads,
+     * so every method should complete in constant time.</p>
+     */
+    public interface EvictionPolicy
+    {
+        /**
+         * <p>Called for every lookup of cacheable content that is not in the cache.</p>
+         *
+         * @param pathInContext the path of the content
+         * @param full whether the cache is full, so that adding the content is likely to evict another entry
+         * @return whether the content should be added to the cache
+         */
+        boolean admit(String pathInContext, boolean full);
+
+        /**
+         * @param content the content added to the cache
+         */
+        void onAdded(CachedHttpContent content);
+
+        /**
+         * <p>Called for every lookup found in the cache, so implementations should not take locks.</p>
+         *
+         * @param content the cached content that has been accessed
+         */
+        void onHit(CachedHttpContent content);
+
+        /**
+         * @param content the content removed from the cache
+         */
+        void onRemoved(CachedHttpContent content);
+
+        /**
+         * <p>Removes the next entry to evict from this policy.</p>
+         * <p>The entry may have already been removed from the cache,
+         * in which case the cache will ask for another entry.</p>
+         *
+         * @return the next entry to evict, or null if there are no entries
+         */
+        CachedHttpContent evict();
+    }
+
+    /**
+     * <p>An {@link EvictionPolicy} that admits all contents and evicts the least recently used entry.</p>
+     */
+    public static class LRUEvictionPolicy implements EvictionPolicy
+    {
+        private final LinkedHashSet<CachedHttpContent> _entries = new LinkedHashSet<>();
+        private final HitBuffer _hits = new HitBuffer();
+
+        @Override
+        public boolean admit(String pathInContext, boolean full)
+        {
+            return true;
+        }
+
+        @Override
+        public synchronized void onAdded(CachedHttpContent content)
+        {
+            _entries.add(content);
+        }
+
+        @Override
+        public void onHit(CachedHttpContent content)
+        {
+            if (!_hits.offer(content))
+            {
+                synchronized (this)
+                {
+                    _hits.drain(this::access);
+                    _hits.offer(content);
+                }
+            }
+        }
+
+        private void access(CachedHttpContent content)
+        {
+            // Move the entry to the most recently used end.
+            if (_entries.remove(content))
+                _entries.add(content);
+        }
+
+        @Override
+        public synchronized void onRemoved(CachedHttpContent content)
+        {
+            _entries.remove(content);
+        }
+
+        @Override
+        public synchronized CachedHttpContent evict()
+        {
+            _hits.drain(this::access);
+            return poll(_entries);
+        }
+
+        @Override
+        public synchronized String toString()
+        {
+            return String.format("%s@%x{size=%d}", getClass().getSimpleName(), hashCode(), _entries.size());
+        }
+    }
+
+    /**
+     * <p>An {@link EvictionPolicy} that admits new contents only when they are accessed more
+     * frequently than the entry they would evict, and evicts entries with a segmented LRU.</p>
+     * <p>The access frequencies are estimated with a small count-min sketch of 4 bit counters,
+     * that are halved periodically so that the estimates follow the changes in popularity.
+     * New entries are added to a probation segment and are promoted to a protected segment
+     * when they are accessed again, so that a burst of contents accessed only once cannot
+     * flush the entries that are frequently accessed.</p>
+     */
+    public static class TinyLFUEvictionPolicy implements EvictionPolicy
+    {
+        private final LinkedHashSet<CachedHttpContent> _probation = new LinkedHashSet<>();
+        private final LinkedHashSet<CachedHttpContent> _protected = new LinkedHashSet<>();
+        private final FrequencySketch _sketch;
+        private final HitBuffer _hits = new HitBuffer();
+        private final int _maxProtected;
+
+        /**
+         * @param capacity the expected maximum number of cached entries
+         */
+        public TinyLFUEvictionPolicy(int capacity)
+        {
+            this(capacity, 80);
+        }
+
+        /**
+         * @param capacity the expected maximum number of cached entries
+         * @param protectedPercent the percentage of the capacity reserved to the entries accessed more than once
+         */
+        public TinyLFUEvictionPolicy(int capacity, int protectedPercent)
+        {
+            if (capacity <= 0)
+                throw new IllegalArgumentException("Invalid capacity " + capacity);
+            if (protectedPercent < 0 || protectedPercent > 100)
+                throw new IllegalArgumentException("Invalid protected percent " + protectedPercent);
+            _sketch = new FrequencySketch(capacity);
+            _maxProtected = capacity * protectedPercent / 100;
+        }
+
+        @Override
+        public synchronized boolean admit(String pathInContext, boolean full)
+        {
+            _hits.drain(this::access);
+            int hash = pathInContext.hashCode();
+            _sketch.increment(hash);
+            if (!full)
+                return true;
+            CachedHttpContent victim = peek(_probation);
+            if (victim == null)
+                victim = peek(_protected);
+            return victim == null || _sketch.frequency(hash) > _sketch.frequency(victim.getKey().hashCode());
+        }
+
+        @Override
+        public synchronized void onAdded(CachedHttpContent content)
+        {
+            _probation.add(content);
+        }
+
+        @Override
+        public void onHit(CachedHttpContent content)
+        {
+            if (!_hits.offer(content))
+            {
+                synchronized (this)
+                {
+                    _hits.drain(this::access);
+                    _hits.offer(content);
+                }
+            }
+        }
+
+        private void access(CachedHttpContent content)
+        {
+            _sketch.increment(content.getKey().hashCode());
+            if (_protected.remove(content))
+            {
+                _protected.add(content);
+            }
+            else if (_probation.remove(content))
+            {
+                _protected.add(content);
+                // Demote the least recently used protected entry, giving it another chance.
+                if (_protected.size() > _maxProtected)
+                    _probation.add(poll(_protected));
+            }
+        }
+
+        @Override
+        public synchronized void onRemoved(CachedHttpContent content)
+        {
+            if (!_probation.remove(content))
+                _protected.remove(content);
+        }
+
+        @Override
+        public synchronized CachedHttpContent evict()
+        {
+            _hits.drain(this::access);
+            CachedHttpContent content = poll(_probation);
+            return content == null ? poll(_protected) : content;
+        }
+
+        @Override
+        public synchronized String toString()
+        {
+            return String.format("%s@%x{probation=%d,protected=%d/%d}", getClass().getSimpleName(), hashCode(), _probation.size(), _protected.size(), _maxProtected);
+        }
+    }
+
+    private static CachedHttpContent peek(LinkedHashSet<CachedHttpContent> entries)
+    {
+        Iterator<CachedHttpContent> iterator = entries.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static CachedHttpContent poll(LinkedHashSet<CachedHttpContent> entries)
+    {
+        Iterator<CachedHttpContent> iterator = entries.iterator();
+        if (!iterator.hasNext())
+            return null;
+        CachedHttpContent content = iterator.next();
+        iterator.remove();
+        return content;
+    }
+
+    /**
+     * <p>Records the hits of cached contents without taking locks, so that an {@link EvictionPolicy}
+     * applies them in batches when it drains the buffer while holding its own lock.</p>
+     * <p>Threads are mapped to stripes by thread id, and each stripe is a bounded ring buffer
+     * where slots are claimed with a compare-and-set. A hit is dropped when its slot is
+     * contended, as the hits are only a hint for the eviction order, and {@link #offer(CachedHttpContent)}
+     * returns false when the stripe is full, so that the caller drains the buffer.</p>
+     */
+    static class HitBuffer
+    {
+        private static final int STRIPE_SIZE = 32;
+
+        private final Stripe[] _stripes;
+
+        HitBuffer()
+        {
+            // Round up to a power of 2 so that stripes can be selected with a mask.
+            int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() - 1) << 1;
+            _stripes = new Stripe[Math.max(1, stripes)];
+            for (int i = 0; i < _stripes.length; i++)
+            {
+                _stripes[i] = new Stripe();
+            }
+        }
+
+        /**
+         * @param content the content that has been accessed
+         * @return false if the hit could not be recorded because the buffer must be drained
+         */
+        boolean offer(CachedHttpContent content)
+        {
+            Stripe stripe = _stripes[(int)Thread.currentThread().getId() & (_stripes.length - 1)];
+            long tail = stripe._tail.get();
+            if (tail - stripe._head >= STRIPE_SIZE)
+                return false;
+            if (stripe._tail.compareAndSet(tail, tail + 1))
+                stripe._slots.lazySet((int)tail & (STRIPE_SIZE - 1), content);
+            return true;
+        }
+
+        /**
+         * <p>Applies the recorded hits, must be called with the lock of the policy held.</p>
+         *
+         * @param consumer the function applying a hit
+         */
+        void drain(Consumer<CachedHttpContent> consumer)
+        {
+            for (Stripe stripe : _stripes)
+            {
+                long head = stripe._head;
+                long tail = stripe._tail.get();
+                while (head < tail)
+                {
+                    int index = (int)head & (STRIPE_SIZE - 1);
+                    CachedHttpContent content = stripe._slots.get(index);
+                    // A claimed slot that has not been written yet is drained next time.
+                    if (content == null)
+                        break;
+                    stripe._slots.lazySet(index, null);
+                    consumer.accept(content);
+                    head++;
+                }
+                stripe._head = head;
+            }
+        }
+
+        private static class Stripe
+        {
+            private final AtomicReferenceArray<CachedHttpContent> _slots = new AtomicReferenceArray<>(STRIPE_SIZE);
+            private final AtomicLong _tail = new AtomicLong();
+            private volatile long _head;
+        }
+    }
+
+    /**
+     * <p>A count-min sketch of 4 bit counters estimating the access frequency of keys.</p>
+     * <p>Each key is counted in 4 counters, and its frequency is the minimum of them.
+     * When the number of increments reaches 10 times the capacity, all the counters
+     * are halved, so that the frequencies age.</p>
+     */
+    static class FrequencySketch
+    {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] _table;
+        private final int _sampleSize;
+        private int _increments;
+
+        FrequencySketch(int capacity)
+        {
+            // At least 256 counters, to limit the collisions of small caches.
+            int length = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            _table = new long[length];
+            _sampleSize = 10 * capacity;
+        }
+
+        int frequency(int hash)
+        {
+            int spread = spread(hash);
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++)
+            {
+                int shift = offset(spread, i);
+                frequency = Math.min(frequency, (int)((_table[index(spread, i)] >>> shift) & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(int hash)
+        {
+            int spread = spread(hash);
+            boolean incremented = false;
+            for (int i = 0; i < SEEDS.length; i++)
+            {
+                int index = index(spread, i);
+                int shift = offset(spread, i);
+                if (((_table[index] >>> shift) & 0xF) != 0xF)
+                {
+                    _table[index] += 1L << shift;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++_increments >= _sampleSize)
+                reset();
+        }
+
+        private void reset()
+        {
+            for (int i = 0; i < _table.length; i++)
+            {
+                _table[i] = (_table[i] >>> 1) & RESET_MASK;
+            }
+            _increments /= 2;
+        }
+
+        private int index(int spread, int i)
+        {
+            long hash = (spread + SEEDS[i]) * SEEDS[i];
+            hash += hash >>> 32;
+            return (int)hash & (_table.length - 1);
+        }
+
+        private static int offset(int spread, int i)
+        {
+            // Each long holds 16 counters of 4 bits.
+            return ((spread >>> (i << 3)) & 0xF) << 2;
+        }
+
+        private static int spread(int hash)
+        {
+            hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+            hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+            return (hash >>> 16) ^ hash;
+        }
+    }
 }
@@ -43,9 +43,11 @@ import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.IdleTimeout;
 import org.eclipse.jetty.io.QuietException;
 import org.eclipse.jetty.server.HttpChannelState.Action;
 import org.eclipse.jetty.server.handler.ContextHandler;
@@ -171,6 +173,19 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         return _written;
     }
 
+    /**
+     * <p>Records content bytes that have been written directly to the endpoint transport,
+     * rather than via {@link #write(ByteBuffer, boolean, Callback)}.</p>
+     *
+     * @param bytes the number of content bytes written
+     */
+    void onContentTransferred(long bytes)
+    {
+        _written += bytes;
+        if (_endPoint instanceof IdleTimeout)
+            ((IdleTimeout)_endPoint).notIdle();
+    }
+
     /**
      * @return the number of requests handled by this connection
      */
@@ -677,6 +692,9 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         HttpFields fields = _response.getHttpFields();
         if (_configuration.getSendDateHeader() && !fields.contains(HttpHeader.DATE))
             fields.put(_connector.getServer().getDateField());
+        PreEncodedHttpFields responseHeaders = _configuration.getResponseHeadersBlock();
+        if (responseHeaders != null)
+            _response.setHeaders(responseHeaders);
 
         long idleTO = _configuration.getIdleTimeout();
         _oldIdleTimeout = getIdleTimeout();
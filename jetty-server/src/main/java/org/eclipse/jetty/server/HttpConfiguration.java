@@ -19,14 +19,18 @@
 package org.eclipse.jetty.server;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jetty.http.CookieCompliance;
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.util.Jetty;
 import org.eclipse.jetty.util.TreeTrie;
 import org.eclipse.jetty.util.Trie;
@@ -57,6 +61,7 @@ public class HttpConfiguration implements Dumpable
     private int _requestHeaderSize = 8 * 1024;
     private int _responseHeaderSize = 8 * 1024;
     private int _headerCacheSize = 1024;
+    private int _maxHeaderCacheSize = 4096;
     private boolean _headerCacheCaseSensitive = false;
     private int _securePort;
     private long _idleTimeout = -1;
@@ -69,6 +74,9 @@ public class HttpConfiguration implements Dumpable
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private long _minFileTransferSize = -1;
+    private PreEncodedHttpFields _responseHeaders;
+    private PreEncodedHttpFields _responseHeadersBlock;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -125,6 +133,7 @@ public class HttpConfiguration implements Dumpable
         _requestHeaderSize = config._requestHeaderSize;
         _responseHeaderSize = config._responseHeaderSize;
         _headerCacheSize = config._headerCacheSize;
+        _maxHeaderCacheSize = config._maxHeaderCacheSize;
         _headerCacheCaseSensitive = config._headerCacheCaseSensitive;
         _secureScheme = config._secureScheme;
         _securePort = config._securePort;
@@ -137,6 +146,9 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _minFileTransferSize = config._minFileTransferSize;
+        _responseHeaders = config._responseHeaders;
+        _responseHeadersBlock = config._responseHeadersBlock;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -203,6 +215,12 @@ public class HttpConfiguration implements Dumpable
         return _headerCacheSize;
     }
 
+    @ManagedAttribute("The maximum size an HTTP header field cache may grow to when full")
+    public int getMaxHeaderCacheSize()
+    {
+        return _maxHeaderCacheSize;
+    }
+
     @ManagedAttribute("True if the header field cache is case sensitive")
     public boolean isHeaderCacheCaseSensitive()
     {
@@ -260,6 +278,7 @@ public class HttpConfiguration implements Dumpable
     public void setSendServerVersion(boolean sendServerVersion)
     {
         _sendServerVersion = sendServerVersion;
+        updateResponseHeadersBlock();
     }
 
     @ManagedAttribute("Whether to send the Server header in responses")
@@ -356,6 +375,74 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets the minimum size of file content that is sent with
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * directly to the socket, without copying it through user space buffers.</p>
+     * <p>Such transfers are only possible for HTTP/1.1 responses over clear-text
+     * connections, without output interceptors such as gzip; other responses
+     * are sent as usual.</p>
+     *
+     * @param minFileTransferSize the minimum size in bytes of file content to transfer,
+     * or -1 to never transfer file content directly
+     */
+    public void setMinFileTransferSize(long minFileTransferSize)
+    {
+        _minFileTransferSize = minFileTransferSize;
+    }
+
+    @ManagedAttribute("The minimum size of file content transferred directly to the socket")
+    public long getMinFileTransferSize()
+    {
+        return _minFileTransferSize;
+    }
+
+    /**
+     * <p>Sets a block of pre-encoded header fields that is set on every response,
+     * before the request is handled, so that the block is generated with a single
+     * copy of its encoding.</p>
+     * <p>If {@link #getSendServerVersion()} is true and the block has no {@code Server}
+     * field, the {@code Server} field is made part of the block that is set.</p>
+     *
+     * @param responseHeaders the block of header fields, or null for none
+     */
+    public void setResponseHeaders(PreEncodedHttpFields responseHeaders)
+    {
+        _responseHeaders = responseHeaders;
+        updateResponseHeadersBlock();
+    }
+
+    /**
+     * @return the block of header fields set on every response, or null
+     * @see #setResponseHeaders(PreEncodedHttpFields)
+     */
+    public PreEncodedHttpFields getResponseHeaders()
+    {
+        return _responseHeaders;
+    }
+
+    /**
+     * @return the block of header fields to set on every response, including
+     * the {@code Server} field if it is sent, or null if there is no block
+     */
+    PreEncodedHttpFields getResponseHeadersBlock()
+    {
+        return _responseHeadersBlock;
+    }
+
+    private void updateResponseHeadersBlock()
+    {
+        PreEncodedHttpFields block = _responseHeaders;
+        if (block != null && _sendServerVersion && !block.contains(HttpHeader.SERVER))
+        {
+            List<HttpField> fields = new ArrayList<>(block.size() + 1);
+            fields.add(new HttpField(HttpHeader.SERVER, SERVER_VERSION));
+            block.forEach(fields::add);
+            block = new PreEncodedHttpFields(fields);
+        }
+        _responseHeadersBlock = block;
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
@@ -428,6 +515,18 @@ public class HttpConfiguration implements Dumpable
         _headerCacheSize = headerCacheSize;
     }
 
+    /**
+     * <p>Sets the maximum size the header field cache of a connection may grow to,
+     * doubling from {@link #getHeaderCacheSize()} when full, so that connections that
+     * repeat large headers (eg. Cookie) can cache them.</p>
+     *
+     * @param maxHeaderCacheSize The maximum size of the header field cache.
+     */
+    public void setMaxHeaderCacheSize(int maxHeaderCacheSize)
+    {
+        _maxHeaderCacheSize = maxHeaderCacheSize;
+    }
+
     public void setHeaderCacheCaseSensitive(boolean headerCacheCaseSensitive)
     {
         this._headerCacheCaseSensitive = headerCacheCaseSensitive;
@@ -638,6 +737,7 @@ public class HttpConfiguration implements Dumpable
             "requestHeaderSize=" + _requestHeaderSize,
             "responseHeaderSize=" + _responseHeaderSize,
             "headerCacheSize=" + _headerCacheSize,
+            "maxHeaderCacheSize=" + _maxHeaderCacheSize,
             "secureScheme=" + _secureScheme,
             "securePort=" + _securePort,
             "idleTimeout=" + _idleTimeout,
@@ -649,6 +749,8 @@ public class HttpConfiguration implements Dumpable
             "maxErrorDispatches=" + _maxErrorDispatches,
             "minRequestDataRate=" + _minRequestDataRate,
             "minResponseDataRate=" + _minResponseDataRate,
+            "minFileTransferSize=" + _minFileTransferSize,
+            "responseHeaders=" + _responseHeaders,
             "requestCookieCompliance=" + _requestCookieCompliance,
             "responseCookieCompliance=" + _responseCookieCompliance,
             "notifyRemoteAsyncErrors=" + _notifyRemoteAsyncErrors
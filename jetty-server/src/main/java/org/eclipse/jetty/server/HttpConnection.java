@@ -40,6 +40,7 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.io.RetainableByteBuffer;
 import org.eclipse.jetty.io.WriteFlusher;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -64,7 +65,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     private final HttpChannelOverHttp _channel;
     private final HttpParser _parser;
     private final AtomicInteger _contentBufferReferences = new AtomicInteger();
-    private volatile ByteBuffer _requestBuffer = null;
+    private volatile RetainableByteBuffer _retainableByteBuffer;
     private volatile ByteBuffer _chunk = null;
     private final BlockingReadCallback _blockingReadCallback = new BlockingReadCallback();
     private final AsyncReadCallback _asyncReadCallback = new AsyncReadCallback();
@@ -134,6 +135,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     {
         HttpParser parser = new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
         parser.setHeaderCacheSize(getHttpConfiguration().getHeaderCacheSize());
+        parser.setMaxHeaderCacheSize(getHttpConfiguration().getMaxHeaderCacheSize());
         parser.setHeaderCacheCaseSensitive(getHttpConfiguration().isHeaderCacheCaseSensitive());
         return parser;
     }
@@ -203,11 +205,13 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     @Override
     public ByteBuffer onUpgradeFrom()
     {
-        if (BufferUtil.hasContent(_requestBuffer))
+        RetainableByteBuffer retainable = _retainableByteBuffer;
+        if (retainable != null && retainable.hasRemaining())
         {
-            ByteBuffer buffer = _requestBuffer;
-            _requestBuffer = null;
-            return buffer;
+            // The buffer is handed over to the new connection without
+            // being released, so it will never be returned to the pool.
+            _retainableByteBuffer = null;
+            return retainable.getBuffer();
         }
         return null;
     }
@@ -227,38 +231,44 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         _channel.getResponse().getHttpOutput().onFlushed(bytes);
     }
 
+    /**
+     * <p>Drops the connection reference to the request buffer, if it has been fully parsed.</p>
+     * <p>The buffer is returned to the pool once all the content chunks that
+     * have been sliced from it have also been consumed.</p>
+     */
     void releaseRequestBuffer()
     {
-        if (_requestBuffer != null && !_requestBuffer.hasRemaining())
+        RetainableByteBuffer retainable = _retainableByteBuffer;
+        if (retainable != null && !retainable.hasRemaining())
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("releaseRequestBuffer {}", this);
-            ByteBuffer buffer = _requestBuffer;
-            _requestBuffer = null;
-            _bufferPool.release(buffer);
+            _retainableByteBuffer = null;
+            retainable.release();
         }
     }
 
     public ByteBuffer getRequestBuffer()
     {
-        if (_requestBuffer == null)
+        if (_retainableByteBuffer == null)
         {
             boolean useDirectByteBuffers = isUseInputDirectByteBuffers();
-            _requestBuffer = _bufferPool.acquire(getInputBufferSize(), useDirectByteBuffers);
+            _retainableByteBuffer = new RetainableByteBuffer(_bufferPool, getInputBufferSize(), useDirectByteBuffers);
         }
-        return _requestBuffer;
+        return _retainableByteBuffer.getBuffer();
     }
 
     public boolean isRequestBufferEmpty()
     {
-        return BufferUtil.isEmpty(_requestBuffer);
+        RetainableByteBuffer retainable = _retainableByteBuffer;
+        return retainable == null || retainable.isEmpty();
     }
 
     @Override
     public void onFillable()
     {
         if (LOG.isDebugEnabled())
-            LOG.debug("{} onFillable enter {} {}", this, _channel.getState(), BufferUtil.toDetailString(_requestBuffer));
+            LOG.debug("{} onFillable enter {} {}", this, _channel.getState(), _retainableByteBuffer);
 
         HttpConnection last = setCurrentConnection(this);
         try
@@ -308,7 +318,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         {
             setCurrentConnection(last);
             if (LOG.isDebugEnabled())
-                LOG.debug("{} onFillable exit {} {}", this, _channel.getState(), BufferUtil.toDetailString(_requestBuffer));
+                LOG.debug("{} onFillable exit {} {}", this, _channel.getState(), _retainableByteBuffer);
         }
     }
     
@@ -338,26 +348,26 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             return 0;
         }
 
-        if (BufferUtil.isEmpty(_requestBuffer))
+        if (isRequestBufferEmpty())
         {
             // Get a buffer
             // We are not in a race here for the request buffer as we have not yet received a request,
             // so there are not an possible legal threads calling #parseContent or #completed.
-            _requestBuffer = getRequestBuffer();
+            ByteBuffer requestBuffer = getRequestBuffer();
 
             // fill
             try
             {
-                int filled = getEndPoint().fill(_requestBuffer);
+                int filled = getEndPoint().fill(requestBuffer);
                 if (filled == 0) // Do a retry on fill 0 (optimization for SSL connections)
-                    filled = getEndPoint().fill(_requestBuffer);
+                    filled = getEndPoint().fill(requestBuffer);
 
                 // tell parser
                 if (filled < 0)
                     _parser.atEOF();
 
                 if (LOG.isDebugEnabled())
-                    LOG.debug("{} filled {} {}", this, filled, BufferUtil.toDetailString(_requestBuffer));
+                    LOG.debug("{} filled {} {}", this, filled, _retainableByteBuffer);
 
                 return filled;
             }
@@ -374,16 +384,16 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     private boolean parseRequestBuffer()
     {
         if (LOG.isDebugEnabled())
-            LOG.debug("{} parse {} {}", this, BufferUtil.toDetailString(_requestBuffer));
+            LOG.debug("{} parse {} {}", this, _retainableByteBuffer);
 
-        boolean handle = _parser.parseNext(_requestBuffer == null ? BufferUtil.EMPTY_BUFFER : _requestBuffer);
+        RetainableByteBuffer retainable = _retainableByteBuffer;
+        boolean handle = _parser.parseNext(retainable == null ? BufferUtil.EMPTY_BUFFER : retainable.getBuffer());
 
         if (LOG.isDebugEnabled())
             LOG.debug("{} parsed {} {}", this, handle, _parser);
 
-        // recycle buffer ?
-        if (_contentBufferReferences.get() == 0)
-            releaseRequestBuffer();
+        // Content chunks retain the buffer, so it can always be released once empty.
+        releaseRequestBuffer();
 
         return handle;
     }
@@ -401,16 +411,13 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         _channel.recycle();
         _parser.reset();
         _generator.reset();
-        if (_contentBufferReferences.get() == 0)
-        {
-            releaseRequestBuffer();
-        }
-        else
+        if (_contentBufferReferences.get() > 0)
         {
+            // The buffer is returned to the pool when the content is consumed.
             LOG.warn("{} lingering content references?!?!", this);
-            _requestBuffer = null; // Not returned to pool!
             _contentBufferReferences.set(0);
         }
+        releaseRequestBuffer();
         return true;
     }
 
@@ -476,7 +483,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             if (_parser.isStart())
             {
                 // if the buffer is empty
-                if (BufferUtil.isEmpty(_requestBuffer))
+                if (isRequestBufferEmpty())
                 {
                     // look for more data
                     fillInterested();
@@ -648,17 +655,24 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
 
     private class Content extends HttpInput.Content
     {
+        private final RetainableByteBuffer _retainable;
+
         public Content(ByteBuffer content)
         {
             super(content);
+            _retainable = _retainableByteBuffer;
+            if (_retainable != null)
+                _retainable.retain();
             _contentBufferReferences.incrementAndGet();
         }
 
         @Override
         public void succeeded()
         {
-            if (_contentBufferReferences.decrementAndGet() == 0)
-                releaseRequestBuffer();
+            // The references are reset by an upgrade, after which this content may still be consumed.
+            _contentBufferReferences.getAndUpdate(references -> Math.max(0, references - 1));
+            if (_retainable != null)
+                _retainable.release();
         }
 
         @Override
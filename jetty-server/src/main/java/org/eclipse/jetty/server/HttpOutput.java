@@ -22,7 +22,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
@@ -37,6 +39,7 @@ import javax.servlet.WriteListener;
 
 import org.eclipse.jetty.http.HttpContent;
 import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IO;
@@ -1241,6 +1244,25 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * @param length the length of the file content to send
+     * @return whether the file content can be transferred directly to the socket, which is only
+     * possible for large enough content sent by HTTP/1.1 over clear-text without interceptors
+     */
+    private boolean isFileTransferable(long length)
+    {
+        long minFileTransferSize = _channel.getHttpConfiguration().getMinFileTransferSize();
+        if (minFileTransferSize < 0 || length <= 0 || length < minFileTransferSize)
+            return false;
+        if (_interceptor != _channel || _channel.getRequest().isHead())
+            return false;
+        if (_channel.getResponse().getLongContentLength() != length)
+            return false;
+        return _channel.getHttpTransport() instanceof HttpConnection &&
+            _channel.getEndPoint() instanceof SocketChannelEndPoint &&
+            _channel.getEndPoint().getTransport() instanceof SocketChannel;
+    }
+
     /**
      * Asynchronous send of HTTP content.
      *
@@ -1271,6 +1293,17 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         {
             LOG.debug(x);
         }
+        if (rbc instanceof FileChannel && isFileTransferable(httpContent.getContentLengthValue()))
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("sendContent(file={},{})", rbc, callback);
+            // Close of the rbc is done by the transferring callback
+            if (prepareSendContent(0, callback))
+                new FileChannelTransferringCB((FileChannel)rbc, httpContent.getContentLengthValue(), callback).iterate();
+            else
+                IO.close(rbc);
+            return;
+        }
         if (rbc != null)
         {
             // Close of the rbc is done by the async sendContent
@@ -1803,6 +1836,108 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * An iterating callback that commits the response and then transfers the content of
+     * a {@link FileChannel} directly to the {@link SocketChannel} of the endpoint, with
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+     * When the socket cannot accept more bytes, a buffer of content is written to the
+     * {@link HttpChannel} instead, so that the write completes when the socket is writable,
+     * and then the transfer is resumed.
+     */
+    private class FileChannelTransferringCB extends NestedChannelWriteCB
+    {
+        private final FileChannel _in;
+        private final SocketChannel _out;
+        private long _position;
+        private long _remaining;
+        private ByteBuffer _buffer;
+        private boolean _committed;
+        private boolean _completed;
+        private boolean _closed;
+
+        FileChannelTransferringCB(FileChannel in, long length, Callback callback)
+        {
+            super(callback, true);
+            _in = in;
+            _out = (SocketChannel)_channel.getEndPoint().getTransport();
+            _remaining = length;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (_completed)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("EOF of {}", this);
+                closeTransfer();
+                return Action.SUCCEEDED;
+            }
+
+            // Commit the response header before transferring the content.
+            if (!_committed)
+            {
+                _committed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, false, this);
+                return Action.SCHEDULED;
+            }
+
+            while (_remaining > 0)
+            {
+                long transferred = _in.transferTo(_position, _remaining, _out);
+                if (transferred <= 0)
+                    break;
+                _position += transferred;
+                _remaining -= transferred;
+                _written += transferred;
+                _channel.onContentTransferred(transferred);
+            }
+
+            if (_remaining == 0)
+            {
+                _completed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+                return Action.SCHEDULED;
+            }
+
+            // The socket is congested, write a buffer so that we are
+            // called back when the socket is writable again.
+            if (_buffer == null)
+                _buffer = _channel.getByteBufferPool().acquire(getBufferSize(), _channel.isUseOutputDirectByteBuffers());
+            BufferUtil.clearToFill(_buffer);
+            if (_buffer.remaining() > _remaining)
+                _buffer.limit(_buffer.position() + (int)_remaining);
+            int read = _in.read(_buffer, _position);
+            if (read < 0)
+                throw new EofException("File content shorter than " + (_position + _remaining));
+            BufferUtil.flipToFlush(_buffer, 0);
+            _position += read;
+            _remaining -= read;
+            _written += read;
+            _completed = _remaining == 0;
+            channelWrite(_buffer, _completed, this);
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            closeTransfer();
+            super.onCompleteFailure(x);
+        }
+
+        private void closeTransfer()
+        {
+            if (!_closed)
+            {
+                _closed = true;
+                if (_buffer != null)
+                    _channel.getByteBufferPool().release(_buffer);
+                IO.close(_in);
+            }
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
@@ -55,6 +55,7 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.io.RuntimeIOException;
 import org.eclipse.jetty.server.handler.ContextHandler.Context;
 import org.eclipse.jetty.server.session.SessionHandler;
@@ -542,6 +543,26 @@ public class Response implements HttpServletResponse
         }
     }
 
+    /**
+     * <p>Sets the fields of a {@link PreEncodedHttpFields} block, replacing any field with
+     * the same name, so that the block is generated with a single copy of its encoding.</p>
+     *
+     * @param fields the block of fields to set
+     */
+    public void setHeaders(PreEncodedHttpFields fields)
+    {
+        if (isMutable())
+        {
+            String contentType = fields.get(HttpHeader.CONTENT_TYPE);
+            if (contentType != null)
+                setContentType(contentType);
+            fields.putTo(_fields);
+            // The content type may have been given a charset, in which case the block is broken.
+            if (contentType != null && _contentType != null && !contentType.equals(_contentType))
+                _fields.put(HttpHeader.CONTENT_TYPE, _contentType);
+        }
+    }
+
     @Override
     public void setHeader(String name, String value)
     {
@@ -30,9 +30,12 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.util.EventListener;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.ChannelEndPoint;
@@ -82,6 +85,9 @@ public class ServerConnector extends AbstractNetworkConnector
     private volatile boolean _inheritChannel = false;
     private volatile int _localPort = -1;
     private volatile int _acceptQueueSize = 0;
+    private volatile int _writeCoalesceSize = 0;
+    private final LongAdder _coalescedFlushes = new LongAdder();
+    private final LongAdder _coalescedBuffers = new LongAdder();
     private volatile boolean _reuseAddress = true;
 
     /**
@@ -278,6 +284,26 @@ public class ServerConnector extends AbstractNetworkConnector
         _inheritChannel = inheritChannel;
     }
 
+    /**
+     * @return the provider used to open the accept channel and the selectors
+     */
+    public SelectorProvider getSelectorProvider()
+    {
+        return _manager.getSelectorProvider();
+    }
+
+    /**
+     * <p>Sets the provider used to open the accept channel and the selectors.</p>
+     * <p>An alternative provider, for example backed by a native event notification
+     * facility, can be plugged in here while keeping the same {@link EndPoint} contracts.</p>
+     *
+     * @param selectorProvider the provider used to open the accept channel and the selectors
+     */
+    public void setSelectorProvider(SelectorProvider selectorProvider)
+    {
+        _manager.setSelectorProvider(selectorProvider);
+    }
+
     /**
      * Open the connector using the passed ServerSocketChannel.
      * This open method can be called before starting the connector to pass it a ServerSocketChannel
@@ -331,7 +357,7 @@ public class ServerConnector extends AbstractNetworkConnector
 
         if (serverChannel == null)
         {
-            serverChannel = ServerSocketChannel.open();
+            serverChannel = getSelectorProvider().openServerSocketChannel();
 
             InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
             serverChannel.socket().setReuseAddress(getReuseAddress());
@@ -428,6 +454,8 @@ public class ServerConnector extends AbstractNetworkConnector
     {
         SocketChannelEndPoint endpoint = new SocketChannelEndPoint(channel, selectSet, key, getScheduler());
         endpoint.setIdleTimeout(getIdleTimeout());
+        endpoint.setByteBufferPool(getByteBufferPool());
+        endpoint.setWriteCoalesceSize(getWriteCoalesceSize());
         return endpoint;
     }
 
@@ -448,6 +476,49 @@ public class ServerConnector extends AbstractNetworkConnector
         _acceptQueueSize = acceptQueueSize;
     }
 
+    /**
+     * @return the maximum total size of the buffers coalesced by an endpoint flush, or 0 for no coalescing
+     * @see ChannelEndPoint#setWriteCoalesceSize(int)
+     */
+    @ManagedAttribute("Maximum size of coalesced flushes")
+    public int getWriteCoalesceSize()
+    {
+        return _writeCoalesceSize;
+    }
+
+    /**
+     * @param writeCoalesceSize the maximum total size of the buffers coalesced by an endpoint flush,
+     * or 0 for no coalescing
+     * @see ChannelEndPoint#setWriteCoalesceSize(int)
+     */
+    public void setWriteCoalesceSize(int writeCoalesceSize)
+    {
+        _writeCoalesceSize = writeCoalesceSize;
+    }
+
+    @ManagedAttribute("Number of flushes that coalesced several buffers")
+    public long getCoalescedFlushes()
+    {
+        return _coalescedFlushes.sum() + sumConnected(ChannelEndPoint::getCoalescedFlushes);
+    }
+
+    @ManagedAttribute("Number of buffer writes saved by coalescing flushes")
+    public long getCoalescedBuffers()
+    {
+        return _coalescedBuffers.sum() + sumConnected(ChannelEndPoint::getCoalescedBuffers);
+    }
+
+    private long sumConnected(ToLongFunction<ChannelEndPoint> value)
+    {
+        long sum = 0;
+        for (EndPoint endPoint : getConnectedEndPoints())
+        {
+            if (endPoint instanceof ChannelEndPoint)
+                sum += value.applyAsLong((ChannelEndPoint)endPoint);
+        }
+        return sum;
+    }
+
     /**
      * @return whether the server socket reuses addresses
      * @see ServerSocket#getReuseAddress()
@@ -532,6 +603,12 @@ public class ServerConnector extends AbstractNetworkConnector
         @Override
         protected void endPointClosed(EndPoint endpoint)
         {
+            if (endpoint instanceof ChannelEndPoint)
+            {
+                ChannelEndPoint channelEndPoint = (ChannelEndPoint)endpoint;
+                _coalescedFlushes.add(channelEndPoint.getCoalescedFlushes());
+                _coalescedBuffers.add(channelEndPoint.getCoalescedBuffers());
+            }
             onEndPointClosed(endpoint);
             super.endPointClosed(endpoint);
         }
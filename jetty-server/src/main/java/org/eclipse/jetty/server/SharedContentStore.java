@@ -0,0 +1,387 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.resource.Resource;
+
+/**
+ * <p>A server wide store of static content held in off-heap buffers.</p>
+ * <p>The buffers are keyed by the resource URI, last modified time, length and
+ * content encoding, so that {@link CachedContentFactory}s of different contexts
+ * serving the same resource (for example, an asset shipped in a jar shared by
+ * several web applications) share a single copy of its bytes, rather than
+ * holding a heap copy for each context.</p>
+ * <p>The buffers are memory mapped when the resource is a file and
+ * {@link #isUseFileMappedBuffer()} is true, otherwise they are loaded into
+ * direct buffers. The total size of the buffers is bounded by
+ * {@link #getMaxSize()}, evicting the buffers that have not been accessed recently.</p>
+ * <p>A store is usually added as a bean of the {@link Server}, where it is
+ * found by the {@code DefaultServlet} of every context.</p>
+ */
+@ManagedObject("A server wide store of static content buffers")
+public class SharedContentStore extends AbstractLifeCycle
+{
+    private static final Logger LOG = Log.getLogger(SharedContentStore.class);
+
+    private final ConcurrentMap<Entry, Entry> _entries = new ConcurrentHashMap<>();
+    private final LinkedHashSet<Entry> _lru = new LinkedHashSet<>();
+    private final AtomicLong _size = new AtomicLong();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private long _maxSize = 256 * 1024 * 1024;
+    private int _maxBufferSize = 32 * 1024 * 1024;
+    private boolean _useFileMappedBuffer = true;
+
+    @ManagedAttribute("The maximum total size in bytes of the stored buffers")
+    public long getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    public void setMaxSize(long maxSize)
+    {
+        _maxSize = maxSize;
+        shrink();
+    }
+
+    @ManagedAttribute("The maximum size in bytes of a stored buffer")
+    public int getMaxBufferSize()
+    {
+        return _maxBufferSize;
+    }
+
+    public void setMaxBufferSize(int maxBufferSize)
+    {
+        _maxBufferSize = maxBufferSize;
+    }
+
+    @ManagedAttribute("Whether file resources are memory mapped rather than copied to direct buffers")
+    public boolean isUseFileMappedBuffer()
+    {
+        return _useFileMappedBuffer;
+    }
+
+    public void setUseFileMappedBuffer(boolean useFileMappedBuffer)
+    {
+        _useFileMappedBuffer = useFileMappedBuffer;
+    }
+
+    @ManagedAttribute(value = "The total size in bytes of the stored buffers", readonly = true)
+    public long getSize()
+    {
+        return _size.get();
+    }
+
+    @ManagedAttribute(value = "The number of stored buffers", readonly = true)
+    public int getBuffers()
+    {
+        return _entries.size();
+    }
+
+    @ManagedAttribute(value = "The number of lookups found in the store", readonly = true)
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute(value = "The number of lookups not found in the store", readonly = true)
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute(value = "The number of buffers evicted to respect the maximum size", readonly = true)
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedOperation(value = "Resets the store statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+    }
+
+    /**
+     * <p>Returns the entry of the given resource, loading its bytes if they are not in the store.</p>
+     * <p>The entry should be kept by the caller for as long as the resource is not modified,
+     * so that the stored bytes are obtained without another lookup.</p>
+     *
+     * @param resource the resource
+     * @return the entry with the bytes of the resource, or null if the resource cannot be stored
+     */
+    public Entry getEntry(Resource resource)
+    {
+        return getEntry(resource, null);
+    }
+
+    /**
+     * <p>Returns the entry of the given resource in the given content encoding.</p>
+     *
+     * @param resource the resource
+     * @param encoding the content encoding of the bytes, or null for the bytes of the resource itself
+     * @return the entry, or null if the bytes are not in the store and cannot be loaded
+     */
+    public Entry getEntry(Resource resource, String encoding)
+    {
+        Entry key = newEntry(resource, encoding);
+        if (key == null)
+            return null;
+
+        Entry stored = _entries.get(key);
+        if (stored != null)
+        {
+            _hits.increment();
+            stored.touch();
+            return stored;
+        }
+        _misses.increment();
+
+        if (encoding != null)
+            return null;
+
+        ByteBuffer buffer = load(resource);
+        if (buffer == null)
+            return null;
+        return put(key, buffer);
+    }
+
+    /**
+     * <p>Stores encoded bytes of the given resource, for example its compressed bytes.</p>
+     *
+     * @param resource the resource
+     * @param encoding the content encoding of the bytes
+     * @param buffer the encoded bytes, which must not be modified after this call
+     * @return the entry with the stored bytes, or null if they cannot be stored
+     */
+    public Entry putEntry(Resource resource, String encoding, ByteBuffer buffer)
+    {
+        Objects.requireNonNull(encoding);
+        Entry key = newEntry(resource, encoding);
+        if (key == null || buffer.remaining() > _maxBufferSize)
+            return null;
+        return put(key, buffer);
+    }
+
+    @ManagedOperation(value = "Removes all the buffers from the store", impact = "ACTION")
+    public void flush()
+    {
+        for (Entry entry : _entries.keySet())
+        {
+            remove(entry);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        flush();
+        super.doStop();
+    }
+
+    private Entry newEntry(Resource resource, String encoding)
+    {
+        if (resource == null || !resource.exists() || resource.isDirectory())
+            return null;
+        long length = resource.length();
+        if (length <= 0 || length > _maxBufferSize)
+            return null;
+        return new Entry(resource.getURI().toASCIIString(), resource.lastModified(), length, encoding);
+    }
+
+    private ByteBuffer load(Resource resource)
+    {
+        try
+        {
+            File file = _useFileMappedBuffer ? resource.getFile() : null;
+            if (file != null)
+                return BufferUtil.toMappedBuffer(file);
+            return BufferUtil.toBuffer(resource, true);
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug(e);
+        }
+        return null;
+    }
+
+    private Entry put(Entry key, ByteBuffer buffer)
+    {
+        key._buffer = buffer;
+        // A new entry is as recently used as an accessed one.
+        key._accessed = true;
+        Entry stored = _entries.putIfAbsent(key, key);
+        if (stored != null)
+        {
+            stored.touch();
+            return stored;
+        }
+
+        synchronized (_lru)
+        {
+            _lru.add(key);
+        }
+        if (_size.addAndGet(buffer.remaining()) > _maxSize)
+            shrink();
+        return key;
+    }
+
+    private boolean remove(Entry entry)
+    {
+        if (!_entries.remove(entry, entry))
+            return false;
+        synchronized (_lru)
+        {
+            _lru.remove(entry);
+        }
+        ByteBuffer buffer = entry._buffer;
+        entry._buffer = null;
+        _size.addAndGet(-buffer.remaining());
+        return true;
+    }
+
+    private void shrink()
+    {
+        while (_size.get() > _maxSize)
+        {
+            Entry victim = null;
+            synchronized (_lru)
+            {
+                // The entries are in insertion order, and those accessed since they were
+                // last examined are given a second chance at the most recently used end.
+                // This approximates a LRU order without taking the lock on every access.
+                while (victim == null)
+                {
+                    Iterator<Entry> iterator = _lru.iterator();
+                    if (!iterator.hasNext())
+                        return;
+                    Entry eldest = iterator.next();
+                    iterator.remove();
+                    if (eldest._accessed)
+                    {
+                        eldest._accessed = false;
+                        _lru.add(eldest);
+                    }
+                    else
+                    {
+                        victim = eldest;
+                    }
+                }
+            }
+            if (remove(victim))
+                _evictions.increment();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d/%d,buffers=%d}", getClass().getSimpleName(), hashCode(), getSize(), getMaxSize(), getBuffers());
+    }
+
+    /**
+     * <p>The bytes of a resource in a content encoding, held by the store until they are evicted.</p>
+     */
+    public static class Entry
+    {
+        private final String _uri;
+        private final long _lastModified;
+        private final long _length;
+        private final String _encoding;
+        private final int _hash;
+        private volatile ByteBuffer _buffer;
+        private volatile boolean _accessed;
+
+        private Entry(String uri, long lastModified, long length, String encoding)
+        {
+            _uri = uri;
+            _lastModified = lastModified;
+            _length = length;
+            _encoding = encoding;
+            _hash = 31 * (31 * (31 * uri.hashCode() + Long.hashCode(lastModified)) + Long.hashCode(length)) + Objects.hashCode(encoding);
+        }
+
+        /**
+         * @return a read only buffer with the stored bytes, or null if they have been evicted from the store
+         */
+        public ByteBuffer getBuffer()
+        {
+            ByteBuffer buffer = _buffer;
+            if (buffer == null)
+                return null;
+            touch();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        private void touch()
+        {
+            // Only write the shared field when it changes.
+            if (!_accessed)
+                _accessed = true;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Entry))
+                return false;
+            Entry that = (Entry)obj;
+            return _lastModified == that._lastModified &&
+                _length == that._length &&
+                _uri.equals(that._uri) &&
+                Objects.equals(_encoding, that._encoding);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return _hash;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s|%d|%d|%s", _uri, _lastModified, _length, _encoding);
+        }
+    }
+}
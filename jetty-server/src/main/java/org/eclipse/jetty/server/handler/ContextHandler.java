@@ -68,6 +68,7 @@ import javax.servlet.http.HttpSessionListener;
 
 import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.server.ClassLoaderDump;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Dispatcher;
@@ -199,6 +200,7 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
     private int _maxFormKeys = Integer.getInteger(MAX_FORM_KEYS_KEY, DEFAULT_MAX_FORM_KEYS);
     private int _maxFormContentSize = Integer.getInteger(MAX_FORM_CONTENT_SIZE_KEY, DEFAULT_MAX_FORM_CONTENT_SIZE);
     private boolean _compactPath = false;
+    private PreEncodedHttpFields _responseHeaders;
     private boolean _usingSecurityManager = System.getSecurityManager() != null;
 
     private final List<EventListener> _programmaticListeners = new CopyOnWriteArrayList<>();
@@ -1264,6 +1266,10 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
                 return;
             }
 
+            PreEncodedHttpFields responseHeaders = _responseHeaders;
+            if (dispatch == DispatcherType.REQUEST && responseHeaders != null)
+                baseRequest.getResponse().setHeaders(responseHeaders);
+
             nextHandle(target, baseRequest, request, response);
         }
         finally
@@ -1717,6 +1723,27 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
         _compactPath = compactPath;
     }
 
+    /**
+     * @return the block of header fields set on every response of this context, or null
+     */
+    public PreEncodedHttpFields getResponseHeaders()
+    {
+        return _responseHeaders;
+    }
+
+    /**
+     * <p>Sets a block of pre-encoded header fields that is set on every response
+     * of this context, before the request is handled, so that the block is
+     * generated with a single copy of its encoding.</p>
+     *
+     * @param responseHeaders the block of header fields, or null for none
+     * @see org.eclipse.jetty.server.Response#setHeaders(PreEncodedHttpFields)
+     */
+    public void setResponseHeaders(PreEncodedHttpFields responseHeaders)
+    {
+        _responseHeaders = responseHeaders;
+    }
+
     @Override
     public String toString()
     {
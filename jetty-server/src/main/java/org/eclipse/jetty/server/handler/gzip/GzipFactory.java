@@ -20,6 +20,9 @@ package org.eclipse.jetty.server.handler.gzip;
 
 import java.util.zip.Deflater;
 
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.ContentCoding;
+import org.eclipse.jetty.http.GzipContentCoding;
 import org.eclipse.jetty.server.Request;
 
 public interface GzipFactory
@@ -29,4 +32,30 @@ public interface GzipFactory
     boolean isMimeTypeGzipable(String mimetype);
 
     void recycle(Deflater deflater);
+
+    /**
+     * <p>Returns an encoder to compress the response to the given request, in the
+     * content coding negotiated with the {@code Accept-Encoding} request header.</p>
+     * <p>The default implementation returns a gzip encoder using the {@link Deflater}
+     * returned by {@link #getDeflater(Request, long)}.</p>
+     *
+     * @param request the request
+     * @param contentLength the length of the response content, or -1 if unknown
+     * @return an encoder, or null if the response must not be compressed
+     */
+    default ContentCoding.Encoder getEncoder(Request request, long contentLength)
+    {
+        Deflater deflater = getDeflater(request, contentLength);
+        if (deflater == null)
+            return null;
+        return GzipContentCoding.newEncoder(deflater, this::recycle);
+    }
+
+    /**
+     * @return the formats of the content codings that {@link #getEncoder(Request, long)} may use
+     */
+    default CompressedContentFormat[] getFormats()
+    {
+        return new CompressedContentFormat[]{CompressedContentFormat.GZIP};
+    }
 }
@@ -19,10 +19,16 @@
 package org.eclipse.jetty.server.handler.gzip;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.zip.Deflater;
 import javax.servlet.DispatcherType;
@@ -32,8 +38,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.ContentCoding;
+import org.eclipse.jetty.http.GzipContentCoding;
 import org.eclipse.jetty.http.HttpField;
-import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpHeaderValue;
 import org.eclipse.jetty.http.HttpMethod;
@@ -41,15 +48,22 @@ import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.pathmap.PathSpecSet;
 import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.LowResourceMonitor;
 import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.IncludeExclude;
 import org.eclipse.jetty.util.RegexSet;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 
 /**
  * A Handler that can dynamically GZIP uncompress requests, and compress responses.
@@ -75,7 +89,8 @@ import org.eclipse.jetty.util.log.Logger;
  * <ol>
  * <li>
  * Does the request contain a {@code Accept-Encoding} header that specifies
- * {@code gzip} value?
+ * {@code gzip} value, or the value of another available content coding?
+ * <br> (See {@link #setEncodings(String...)})
  * </li>
  * <li>
  * Is the {@link HttpServletRequest#getMethod()} allowed by the configured HTTP Method Filter.
@@ -148,7 +163,15 @@ import org.eclipse.jetty.util.log.Logger;
  * Since the introduction of Async I/O in Servlet 3.1, this older form of Gzip support
  * in web applications has been problematic and bug ridden.
  * </p>
+ * <p>
+ * When {@link #setAdaptiveCompression(boolean) adaptive compression} is enabled, the
+ * gzip compression level is lowered as the server load increases, as measured by the
+ * busy threads of a {@link QueuedThreadPool} and by a {@link LowResourceMonitor} bean
+ * of the {@link Server}, and small responses are not compressed at all while the
+ * server is low on resources.
+ * </p>
  */
+@ManagedObject("Compresses the content of responses")
 public class GzipHandler extends HandlerWrapper implements GzipFactory
 {
     public static final String GZIP = "gzip";
@@ -161,7 +184,21 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private static final Pattern COMMA_GZIP = Pattern.compile(".*, *gzip");
 
     private int poolCapacity = -1;
+    private int _compressionLevel = Deflater.DEFAULT_COMPRESSION;
     private DeflaterPool _deflaterPool = null;
+    private boolean _adaptiveCompression = false;
+    private int _minCompressionLevel = Deflater.BEST_SPEED;
+    private int _adaptiveMinGzipSize = 4096;
+    private ThreadPool _threadPool;
+    private LowResourceMonitor _lowResourceMonitor;
+    private final LongAdder _compressedResponses = new LongAdder();
+    private final LongAdder _skippedResponses = new LongAdder();
+    private final LongAdder _bytesIn = new LongAdder();
+    private final LongAdder _bytesOut = new LongAdder();
+    private final LongAdder _compressionNanos = new LongAdder();
+    private String[] _encodings;
+    private List<ContentCoding> _contentCodings = Collections.emptyList();
+    private CompressedContentFormat[] _formats = CompressedContentFormat.NONE;
 
     private int _minGzipSize = DEFAULT_MIN_GZIP_SIZE;
     private boolean _syncFlush = false;
@@ -171,7 +208,7 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private final IncludeExclude<String> _agentPatterns = new IncludeExclude<>(RegexSet.class);
     private final IncludeExclude<String> _methods = new IncludeExclude<>();
     private final IncludeExclude<String> _paths = new IncludeExclude<>(PathSpecSet.class);
-    private final IncludeExclude<String> _mimeTypes = new IncludeExclude<>();
+    private final IncludeExclude<String> _mimeTypes = newDefaultMimeTypes();
     private HttpField _vary;
 
     /**
@@ -180,27 +217,41 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     public GzipHandler()
     {
         _methods.include(HttpMethod.GET.asString());
+        if (MimeTypes.getKnownMimeTypes().contains("image/svg+xml"))
+            _paths.exclude("*.svgz");
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} mime types {}", this, _mimeTypes);
+
+        _agentPatterns.exclude(".*MSIE 6.0.*");
+    }
+
+    /**
+     * <p>Creates the default MIME type filter, that excludes the known
+     * MIME types of content that is already compressed.</p>
+     *
+     * @return a new MIME type filter
+     */
+    public static IncludeExclude<String> newDefaultMimeTypes()
+    {
+        IncludeExclude<String> mimeTypes = new IncludeExclude<>();
         for (String type : MimeTypes.getKnownMimeTypes())
         {
             if ("image/svg+xml".equals(type))
-                _paths.exclude("*.svgz");
-            else if (type.startsWith("image/") ||
+                continue;
+            if (type.startsWith("image/") ||
                 type.startsWith("audio/") ||
                 type.startsWith("video/"))
-                _mimeTypes.exclude(type);
+                mimeTypes.exclude(type);
         }
-        _mimeTypes.exclude("application/compress");
-        _mimeTypes.exclude("application/zip");
-        _mimeTypes.exclude("application/gzip");
-        _mimeTypes.exclude("application/bzip2");
-        _mimeTypes.exclude("application/brotli");
-        _mimeTypes.exclude("application/x-xz");
-        _mimeTypes.exclude("application/x-rar-compressed");
-
-        if (LOG.isDebugEnabled())
-            LOG.debug("{} mime types {}", this, _mimeTypes);
-
-        _agentPatterns.exclude(".*MSIE 6.0.*");
+        mimeTypes.exclude("application/compress");
+        mimeTypes.exclude("application/zip");
+        mimeTypes.exclude("application/gzip");
+        mimeTypes.exclude("application/bzip2");
+        mimeTypes.exclude("application/brotli");
+        mimeTypes.exclude("application/x-xz");
+        mimeTypes.exclude("application/x-rar-compressed");
+        return mimeTypes;
     }
 
     /**
@@ -414,29 +465,73 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     protected void doStart() throws Exception
     {
         _deflaterPool = newDeflaterPool(poolCapacity);
+        addBean(_deflaterPool);
+        Server server = getServer();
+        if (server != null)
+        {
+            _threadPool = server.getThreadPool();
+            _lowResourceMonitor = server.getBean(LowResourceMonitor.class);
+        }
+        _contentCodings = newContentCodings();
+        _contentCodings.forEach(this::addBean);
+        _formats = _contentCodings.stream().map(ContentCoding::getFormat).toArray(CompressedContentFormat[]::new);
         _vary = (_agentPatterns.size() > 0) ? GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING_USER_AGENT : GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING;
         super.doStart();
     }
 
     @Override
-    public Deflater getDeflater(Request request, long contentLength)
+    protected void doStop() throws Exception
     {
-        HttpFields httpFields = request.getHttpFields();
-        String ua = httpFields.get(HttpHeader.USER_AGENT);
-        if (ua != null && !isAgentGzipable(ua))
+        super.doStop();
+        _contentCodings.forEach(this::removeBean);
+        _contentCodings = Collections.emptyList();
+        _formats = CompressedContentFormat.NONE;
+        _threadPool = null;
+        _lowResourceMonitor = null;
+        removeBean(_deflaterPool);
+    }
+
+    /**
+     * <p>Creates the content codings that may be used to compress responses.</p>
+     * <p>The content codings are those discovered by {@link ContentCoding#getContentCodings()},
+     * followed by a {@link GzipContentCoding} using the {@link DeflaterPool} of this handler,
+     * which are then filtered and ordered by {@link #getEncodings()}, if set.</p>
+     *
+     * @return the content codings in order of preference
+     */
+    protected List<ContentCoding> newContentCodings()
+    {
+        List<ContentCoding> discovered = new ArrayList<>();
+        for (ContentCoding coding : ContentCoding.getContentCodings())
         {
-            LOG.debug("{} excluded user agent {}", this, request);
-            return null;
+            if (!GZIP.equalsIgnoreCase(coding.getEncoding()))
+                discovered.add(coding);
         }
+        discovered.add(new GzipContentCoding(_deflaterPool));
 
-        if (contentLength >= 0 && contentLength < _minGzipSize)
+        if (_encodings == null)
+            return discovered;
+
+        List<ContentCoding> codings = new ArrayList<>();
+        for (String encoding : _encodings)
         {
-            LOG.debug("{} excluded minGzipSize {}", this, request);
-            return null;
+            ContentCoding coding = ContentCoding.getContentCoding(discovered, encoding);
+            if (coding == null)
+                LOG.warn("{} no content coding for {}", this, encoding);
+            else if (!codings.contains(coding))
+                codings.add(coding);
         }
+        return codings;
+    }
+
+    @Override
+    public Deflater getDeflater(Request request, long contentLength)
+    {
+        if (!isCompressible(request, contentLength))
+            return null;
 
         // check the accept encoding header
-        if (!httpFields.contains(HttpHeader.ACCEPT_ENCODING, "gzip"))
+        if (!request.getHttpFields().contains(HttpHeader.ACCEPT_ENCODING, "gzip"))
         {
             LOG.debug("{} excluded not gzip accept {}", this, request);
             return null;
@@ -445,6 +540,141 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         return _deflaterPool.acquire();
     }
 
+    @Override
+    public ContentCoding.Encoder getEncoder(Request request, long contentLength)
+    {
+        if (!isCompressible(request, contentLength))
+            return null;
+
+        // negotiate the content coding with the accept encoding header
+        ContentCoding coding = ContentCoding.select(_contentCodings, request.getHttpFields().getValuesList(HttpHeader.ACCEPT_ENCODING));
+        if (coding == null)
+        {
+            LOG.debug("{} excluded no accepted encoding {}", this, request);
+            return null;
+        }
+
+        ContentCoding.Encoder encoder;
+        if (_adaptiveCompression)
+        {
+            double load = getLoad();
+            if (load >= 1.0D && contentLength >= 0 && contentLength < _adaptiveMinGzipSize)
+            {
+                LOG.debug("{} excluded adaptiveMinGzipSize under load {}", this, request);
+                _skippedResponses.increment();
+                return null;
+            }
+            if (coding instanceof GzipContentCoding)
+                encoder = ((GzipContentCoding)coding).newEncoder(getCompressionLevel(load));
+            else
+                encoder = coding.newEncoder();
+        }
+        else
+        {
+            encoder = coding.newEncoder();
+        }
+
+        _compressedResponses.increment();
+        return new MeasuredEncoder(encoder);
+    }
+
+    /**
+     * <p>Returns the load of the server, from 0 when idle to 1 when saturated.</p>
+     * <p>The load is 1 if the {@link LowResourceMonitor} of the server is low on
+     * resources or if the thread pool is low on threads, otherwise it is the
+     * ratio of busy threads of a {@link QueuedThreadPool}.</p>
+     *
+     * @return the load of the server
+     */
+    protected double getLoad()
+    {
+        LowResourceMonitor monitor = _lowResourceMonitor;
+        if (monitor != null && monitor.isLowOnResources())
+            return 1.0D;
+
+        ThreadPool threadPool = _threadPool;
+        if (threadPool == null)
+            return 0.0D;
+        if (threadPool.isLowOnThreads())
+            return 1.0D;
+        if (threadPool instanceof QueuedThreadPool)
+        {
+            QueuedThreadPool qtp = (QueuedThreadPool)threadPool;
+            int maxThreads = qtp.getMaxThreads();
+            if (maxThreads > 0)
+                return Math.min(1.0D, (double)qtp.getBusyThreads() / maxThreads);
+        }
+        return 0.0D;
+    }
+
+    /**
+     * <p>Returns the gzip compression level for the given load, decreasing linearly
+     * from the {@link #getCompressionLevel() compression level} when idle to the
+     * {@link #getMinCompressionLevel() minimum compression level} when saturated.</p>
+     *
+     * @param load the load of the server, from 0 to 1
+     * @return the compression level
+     */
+    protected int getCompressionLevel(double load)
+    {
+        // The default compression level of zlib is 6.
+        int max = _compressionLevel == Deflater.DEFAULT_COMPRESSION ? 6 : _compressionLevel;
+        int min = Math.min(_minCompressionLevel, max);
+        return max - (int)Math.round((max - min) * Math.max(0.0D, Math.min(1.0D, load)));
+    }
+
+    @Override
+    public CompressedContentFormat[] getFormats()
+    {
+        return _formats;
+    }
+
+    private boolean isCompressible(Request request, long contentLength)
+    {
+        String ua = request.getHttpFields().get(HttpHeader.USER_AGENT);
+        if (ua != null && !isAgentGzipable(ua))
+        {
+            LOG.debug("{} excluded user agent {}", this, request);
+            return false;
+        }
+
+        if (contentLength >= 0 && contentLength < _minGzipSize)
+        {
+            LOG.debug("{} excluded minGzipSize {}", this, request);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the content codings, in order of preference, that may be used to compress responses.
+     *
+     * @return the encodings, or null if all the available content codings may be used
+     * @see #setEncodings(String...)
+     */
+    public String[] getEncodings()
+    {
+        return _encodings;
+    }
+
+    /**
+     * <p>Set the content codings, in order of preference, that may be used to compress responses.</p>
+     * <p>By default, all the content codings available are used, that is the content codings
+     * discovered with the {@link java.util.ServiceLoader}, such as {@code br} or {@code zstd},
+     * preferred over {@code gzip}, which is always available.
+     * The content coding of a response is negotiated with the {@code Accept-Encoding}
+     * request header, preferring the higher quality values and then the order given here.</p>
+     *
+     * @param encodings the encodings, or null to use all the available content codings
+     */
+    public void setEncodings(String... encodings)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _encodings = encodings;
+    }
+
     /**
      * Get the current filter list of excluded User-Agent patterns
      *
@@ -662,17 +892,21 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             if (field.getHeader() == HttpHeader.IF_NONE_MATCH || field.getHeader() == HttpHeader.IF_MATCH)
             {
                 String etag = field.getValue();
-                int i = etag.indexOf(CompressedContentFormat.GZIP._etagQuote);
-                if (i > 0)
+                String stripped = etag;
+                for (CompressedContentFormat format : _formats)
                 {
-                    baseRequest.setAttribute("o.e.j.s.h.gzip.GzipHandler.etag", etag);
-                    while (i >= 0)
+                    int i = stripped.indexOf(format._etagQuote);
+                    while (i > 0)
                     {
-                        etag = etag.substring(0, i) + etag.substring(i + CompressedContentFormat.GZIP._etag.length());
-                        i = etag.indexOf(CompressedContentFormat.GZIP._etagQuote, i);
+                        stripped = stripped.substring(0, i) + stripped.substring(i + format._etag.length());
+                        i = stripped.indexOf(format._etagQuote, i);
                     }
+                }
 
-                    fields.set(new HttpField(field.getHeader(), etag));
+                if (!stripped.equals(etag))
+                {
+                    baseRequest.setAttribute("o.e.j.s.h.gzip.GzipHandler.etag", etag);
+                    fields.set(new HttpField(field.getHeader(), stripped));
                 }
             }
         }
@@ -957,7 +1191,140 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
 
     protected DeflaterPool newDeflaterPool(int capacity)
     {
-        return new DeflaterPool(capacity, Deflater.DEFAULT_COMPRESSION, true);
+        return new DeflaterPool(capacity, _compressionLevel, true);
+    }
+
+    /**
+     * Gets the gzip compression level, or the maximum level when compression is adaptive.
+     *
+     * @return the compression level, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    @ManagedAttribute("The gzip compression level, or the maximum level when compression is adaptive")
+    public int getCompressionLevel()
+    {
+        return _compressionLevel;
+    }
+
+    /**
+     * Sets the gzip compression level.
+     *
+     * @param compressionLevel the compression level, from {@link Deflater#BEST_SPEED} to
+     * {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION &&
+            (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION))
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        _compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @return whether the gzip compression level adapts to the server load
+     * @see #setAdaptiveCompression(boolean)
+     */
+    @ManagedAttribute("Whether the gzip compression level adapts to the server load")
+    public boolean isAdaptiveCompression()
+    {
+        return _adaptiveCompression;
+    }
+
+    /**
+     * <p>Sets whether the gzip compression level adapts to the server load, decreasing from
+     * the {@link #getCompressionLevel() compression level} when the server is idle to the
+     * {@link #getMinCompressionLevel() minimum compression level} when it is saturated,
+     * and whether responses smaller than {@link #getAdaptiveMinGzipSize()} are not
+     * compressed while the server is low on resources.</p>
+     *
+     * @param adaptiveCompression whether the gzip compression level adapts to the server load
+     */
+    public void setAdaptiveCompression(boolean adaptiveCompression)
+    {
+        _adaptiveCompression = adaptiveCompression;
+    }
+
+    /**
+     * @return the gzip compression level used when the server is saturated and compression is adaptive
+     */
+    @ManagedAttribute("The gzip compression level used when the server is saturated and compression is adaptive")
+    public int getMinCompressionLevel()
+    {
+        return _minCompressionLevel;
+    }
+
+    public void setMinCompressionLevel(int minCompressionLevel)
+    {
+        if (minCompressionLevel < Deflater.NO_COMPRESSION || minCompressionLevel > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level " + minCompressionLevel);
+        _minCompressionLevel = minCompressionLevel;
+    }
+
+    /**
+     * @return the minimum response size to compress while the server is low on resources and compression is adaptive
+     */
+    @ManagedAttribute("The minimum response size to compress while the server is low on resources and compression is adaptive")
+    public int getAdaptiveMinGzipSize()
+    {
+        return _adaptiveMinGzipSize;
+    }
+
+    public void setAdaptiveMinGzipSize(int adaptiveMinGzipSize)
+    {
+        _adaptiveMinGzipSize = Math.max(0, adaptiveMinGzipSize);
+    }
+
+    @ManagedAttribute(value = "The gzip compression level for the current server load", readonly = true)
+    public int getCurrentCompressionLevel()
+    {
+        return _adaptiveCompression ? getCompressionLevel(getLoad()) : _compressionLevel;
+    }
+
+    @ManagedAttribute(value = "The number of compressed responses", readonly = true)
+    public long getCompressedResponses()
+    {
+        return _compressedResponses.sum();
+    }
+
+    @ManagedAttribute(value = "The number of responses not compressed because the server was low on resources", readonly = true)
+    public long getSkippedResponses()
+    {
+        return _skippedResponses.sum();
+    }
+
+    @ManagedAttribute(value = "The number of content bytes compressed", readonly = true)
+    public long getBytesIn()
+    {
+        return _bytesIn.sum();
+    }
+
+    @ManagedAttribute(value = "The number of compressed bytes produced", readonly = true)
+    public long getBytesOut()
+    {
+        return _bytesOut.sum();
+    }
+
+    @ManagedAttribute(value = "The number of bytes saved by compression", readonly = true)
+    public long getBytesSaved()
+    {
+        return getBytesIn() - getBytesOut();
+    }
+
+    @ManagedAttribute(value = "The time in ms spent compressing", readonly = true)
+    public long getCompressionTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_compressionNanos.sum());
+    }
+
+    @ManagedOperation(value = "Resets the compression statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _compressedResponses.reset();
+        _skippedResponses.reset();
+        _bytesIn.reset();
+        _bytesOut.reset();
+        _compressionNanos.reset();
     }
 
     @Override
@@ -965,4 +1332,76 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     {
         return String.format("%s@%x{%s,min=%s,inflate=%s}", getClass().getSimpleName(), hashCode(), getState(), _minGzipSize, _inflateBufferSize);
     }
+
+    /**
+     * An {@link ContentCoding.Encoder} that records the bytes and the time of the compression.
+     */
+    private class MeasuredEncoder implements ContentCoding.Encoder
+    {
+        private final ContentCoding.Encoder _encoder;
+        private long _in;
+        private long _out;
+        private long _nanos;
+
+        private MeasuredEncoder(ContentCoding.Encoder encoder)
+        {
+            _encoder = encoder;
+        }
+
+        @Override
+        public CompressedContentFormat getFormat()
+        {
+            return _encoder.getFormat();
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _in += input.remaining();
+            _encoder.setInput(input);
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return _encoder.needsInput();
+        }
+
+        @Override
+        public void finish()
+        {
+            _encoder.finish();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _encoder.isFinished();
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush)
+        {
+            long start = System.nanoTime();
+            int produced = _encoder.encode(output, flush);
+            _nanos += System.nanoTime() - start;
+            _out += produced;
+            return produced;
+        }
+
+        @Override
+        public void release()
+        {
+            _bytesIn.add(_in);
+            _bytesOut.add(_out);
+            _compressionNanos.add(_nanos);
+            _encoder.release();
+        }
+
+        @Override
+        public String toString()
+        {
+            return _encoder.toString();
+        }
+    }
 }
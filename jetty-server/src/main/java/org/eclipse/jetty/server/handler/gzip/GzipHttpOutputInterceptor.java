@@ -21,9 +21,9 @@ package org.eclipse.jetty.server.handler.gzip;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.zip.CRC32;
-import java.util.zip.Deflater;
 
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.ContentCoding;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
@@ -39,12 +39,9 @@ import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
-import static org.eclipse.jetty.http.CompressedContentFormat.GZIP;
-
 public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 {
     public static Logger LOG = Log.getLogger(GzipHttpOutputInterceptor.class);
-    private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
 
     public static final HttpField VARY_ACCEPT_ENCODING_USER_AGENT = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING + ", " + HttpHeader.USER_AGENT);
     public static final HttpField VARY_ACCEPT_ENCODING = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
@@ -55,7 +52,6 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     }
 
     private final AtomicReference<GZState> _state = new AtomicReference<>(GZState.MIGHT_COMPRESS);
-    private final CRC32 _crc = new CRC32();
 
     private final GzipFactory _factory;
     private final HttpOutput.Interceptor _interceptor;
@@ -64,7 +60,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private final int _bufferSize;
     private final boolean _syncFlush;
 
-    private Deflater _deflater;
+    private ContentCoding.Encoder _encoder;
     private ByteBuffer _buffer;
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
@@ -120,12 +116,6 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         }
     }
 
-    private void addTrailer()
-    {
-        BufferUtil.putIntLittleEndian(_buffer, (int)_crc.getValue());
-        BufferUtil.putIntLittleEndian(_buffer, _deflater.getTotalIn());
-    }
-
     private void gzip(ByteBuffer content, boolean complete, final Callback callback)
     {
         if (content.hasRemaining() || complete)
@@ -150,9 +140,15 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 String responseEtag = response.getHttpFields().get(HttpHeader.ETAG);
                 if (requestEtags != null && responseEtag != null)
                 {
-                    String responseEtagGzip = etagGzip(responseEtag);
-                    if (requestEtags.contains(responseEtagGzip))
-                        response.getHttpFields().put(HttpHeader.ETAG, responseEtagGzip);
+                    for (CompressedContentFormat format : _factory.getFormats())
+                    {
+                        String responseEtagCompressed = etag(responseEtag, format);
+                        if (requestEtags.contains(responseEtagCompressed))
+                        {
+                            response.getHttpFields().put(HttpHeader.ETAG, responseEtagCompressed);
+                            break;
+                        }
+                    }
                 }
             }
 
@@ -201,26 +197,26 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (contentLength < 0 && complete)
                 contentLength = content.remaining();
 
-            _deflater = _factory.getDeflater(_channel.getRequest(), contentLength);
+            _encoder = _factory.getEncoder(_channel.getRequest(), contentLength);
 
-            if (_deflater == null)
+            if (_encoder == null)
             {
-                LOG.debug("{} exclude no deflater", this);
+                LOG.debug("{} exclude no encoder", this);
                 _state.set(GZState.NOT_COMPRESSING);
                 _interceptor.write(content, complete, callback);
                 return;
             }
 
-            fields.put(GZIP._contentEncoding);
-            _crc.reset();
+            CompressedContentFormat format = _encoder.getFormat();
+            fields.put(format._contentEncoding);
 
             // Adjust headers
             response.setContentLength(-1);
             String etag = fields.get(HttpHeader.ETAG);
             if (etag != null)
-                fields.put(HttpHeader.ETAG, etagGzip(etag));
+                fields.put(HttpHeader.ETAG, etag(etag, format));
 
-            LOG.debug("{} compressing {}", this, _deflater);
+            LOG.debug("{} compressing {}", this, _encoder);
             _state.set(GZState.COMPRESSING);
 
             gzip(content, complete, callback);
@@ -229,10 +225,10 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             callback.failed(new WritePendingException());
     }
 
-    private String etagGzip(String etag)
+    private String etag(String etag, CompressedContentFormat format)
     {
         int end = etag.length() - 1;
-        return (etag.charAt(end) == '"') ? etag.substring(0, end) + GZIP._etag + '"' : etag + GZIP._etag;
+        return (etag.charAt(end) == '"') ? etag.substring(0, end) + format._etag + '"' : etag + format._etag;
     }
 
     public void noCompression()
@@ -283,9 +279,9 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 
     private class GzipBufferCB extends IteratingNestedCallback
     {
-        private ByteBuffer _copy;
         private final ByteBuffer _content;
         private final boolean _last;
+        private boolean _finishing;
 
         public GzipBufferCB(ByteBuffer content, boolean complete, Callback callback)
         {
@@ -297,16 +293,17 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         @Override
         protected void onCompleteFailure(Throwable x)
         {
-            _factory.recycle(_deflater);
-            _deflater = null;
+            if (_encoder != null)
+                _encoder.release();
+            _encoder = null;
             super.onCompleteFailure(x);
         }
 
         @Override
         protected Action process() throws Exception
         {
-            // If we have no deflator
-            if (_deflater == null)
+            // If we have no encoder
+            if (_encoder == null)
             {
                 // then the trailer has been generated and written below.
                 // we have finished compressing the entire content, so
@@ -316,20 +313,14 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                     _channel.getByteBufferPool().release(_buffer);
                     _buffer = null;
                 }
-                if (_copy != null)
-                {
-                    _channel.getByteBufferPool().release(_copy);
-                    _copy = null;
-                }
                 return Action.SUCCEEDED;
             }
 
             // If we have no buffer
             if (_buffer == null)
             {
-                // allocate a buffer and add the gzip header
+                // allocate a buffer, into which the encoder also writes any header.
                 _buffer = _channel.getByteBufferPool().acquire(_bufferSize, false);
-                BufferUtil.fill(_buffer, GZIP_HEADER, 0, GZIP_HEADER.length);
             }
             else
             {
@@ -337,83 +328,60 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 BufferUtil.clear(_buffer);
             }
 
-            // If the deflator is not finished, then compress more data
-            if (!_deflater.finished())
+            // If the encoder is not finished, then compress more data
+            if (!_encoder.isFinished())
             {
-                if (_deflater.needsInput())
+                if (_encoder.needsInput())
                 {
                     // if there is no more content available to compress
                     // then we are either finished all content or just the current write.
                     if (BufferUtil.isEmpty(_content))
                     {
-                        if (_last)
-                            _deflater.finish();
-                        else
+                        if (!_last)
                             return Action.SUCCEEDED;
                     }
                     else
                     {
-                        // If there is more content available to compress, we have to make sure
-                        // it is available in an array for the current deflator API, maybe slicing
-                        // of content.
-                        ByteBuffer slice;
-                        if (_content.hasArray())
-                            slice = _content;
-                        else
-                        {
-                            if (_copy == null)
-                                _copy = _channel.getByteBufferPool().acquire(_bufferSize, false);
-                            else
-                                BufferUtil.clear(_copy);
-                            slice = _copy;
-                            BufferUtil.append(_copy, _content);
-                        }
+                        // The encoder consumes the content, heap or direct, as it compresses it.
+                        _encoder.setInput(_content);
+                    }
 
-                        // transfer the data from the slice to the the deflator
-                        byte[] array = slice.array();
-                        int off = slice.arrayOffset() + slice.position();
-                        int len = slice.remaining();
-                        _crc.update(array, off, len);
-                        _deflater.setInput(array, off, len);  // TODO use ByteBuffer API in Jetty-10
-                        slice.position(slice.position() + len);
-                        if (_last && BufferUtil.isEmpty(_content))
-                            _deflater.finish();
+                    if (_last && !_finishing)
+                    {
+                        _finishing = true;
+                        _encoder.finish();
                     }
                 }
 
-                // deflate the content into the available space in the buffer
-                int off = _buffer.arrayOffset() + _buffer.limit();
-                int len = BufferUtil.space(_buffer);
-                int produced = _deflater.deflate(_buffer.array(), off, len, _syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
-                _buffer.limit(_buffer.limit() + produced);
+                // encode the content into the available space in the buffer
+                int pos = BufferUtil.flipToFill(_buffer);
+                _encoder.encode(_buffer, _syncFlush);
+                BufferUtil.flipToFlush(_buffer, pos);
             }
 
-            // If we have finished deflation and there is room for the trailer.
-            if (_deflater.finished() && BufferUtil.space(_buffer) >= 8)
+            // If we have finished encoding, including any trailer,
+            if (_encoder.isFinished())
             {
-                // add the trailer and recycle the deflator to flag that we will have had completeSuccess when
+                // then release the encoder to flag that we will have had completeSuccess when
                 // the write below completes.
-                addTrailer();
-                _factory.recycle(_deflater);
-                _deflater = null;
+                _encoder.release();
+                _encoder = null;
             }
 
             // write the compressed buffer.
-            _interceptor.write(_buffer, _deflater == null, this);
+            _interceptor.write(_buffer, _encoder == null, this);
             return Action.SCHEDULED;
         }
 
         @Override
         public String toString()
         {
-            return String.format("%s[content=%s last=%b copy=%s buffer=%s deflate=%s",
+            return String.format("%s[content=%s last=%b buffer=%s encoder=%s",
                 super.toString(),
                 BufferUtil.toDetailString(_content),
                 _last,
-                BufferUtil.toDetailString(_copy),
                 BufferUtil.toDetailString(_buffer),
-                _deflater,
-                _deflater != null && _deflater.finished() ? "(finished)" : "");
+                _encoder);
         }
     }
 }
@@ -22,10 +22,14 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpContent;
@@ -35,6 +39,9 @@ import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.resource.PathResource;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceCollection;
@@ -42,9 +49,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -346,6 +356,170 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testTinyLFUEvictionPolicy() throws Exception
+    {
+        Path basePath = createUtilTestResources(workDir.getEmptyPathDir());
+
+        Resource resource = new PathResource(basePath.resolve("three"));
+        CachedContentFactory cache = new CachedContentFactory(null, resource, new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(2);
+        cache.setEvictionPolicy(new CachedContentFactory.TinyLFUEvictionPolicy(2));
+
+        // Make two entries frequently used.
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals("2 - three", getContent(cache, "2.txt"));
+            assertEquals("3 - three", getContent(cache, "3.txt"));
+        }
+        assertEquals(2, cache.getCachedFiles());
+        assertEquals(6, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // Content accessed once is not admitted, so the frequently used entries are kept.
+        for (int i = 0; i < 3; i++)
+        {
+            assertThat(cache.getContent("dir/3.txt", 4096), is(not(instanceOf(CachedContentFactory.CachedHttpContent.class))));
+        }
+        assertEquals(2, cache.getCachedFiles());
+        assertEquals(3, cache.getRejections());
+        assertEquals(0, cache.getEvictions());
+        assertThat(cache.getContent("2.txt", 4096), instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertThat(cache.getContent("3.txt", 4096), instanceOf(CachedContentFactory.CachedHttpContent.class));
+
+        // Content accessed more frequently than the victim is eventually admitted.
+        for (int i = 0; i < 8; i++)
+        {
+            cache.getContent("dir/3.txt", 4096);
+        }
+        assertThat(cache.getContent("dir/3.txt", 4096), instanceOf(CachedContentFactory.CachedHttpContent.class));
+        assertEquals(2, cache.getCachedFiles());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testLRUEvictionPolicy() throws Exception
+    {
+        Path basePath = createUtilTestResources(workDir.getEmptyPathDir());
+
+        Resource resource = new PathResource(basePath.resolve("three"));
+        CachedContentFactory cache = new CachedContentFactory(null, resource, new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(2);
+
+        assertEquals("2 - three", getContent(cache, "2.txt"));
+        assertEquals("3 - three", getContent(cache, "3.txt"));
+        // More hits than a stripe of the hit buffer holds, so that it is also drained by the hits.
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("2 - three", getContent(cache, "2.txt"));
+        }
+        assertEquals(100, cache.getHits());
+
+        // The least recently used entry is evicted.
+        assertEquals("3 - three", getContent(cache, "dir/3.txt"));
+        assertEquals(2, cache.getCachedFiles());
+        assertEquals(1, cache.getEvictions());
+        assertEquals("2 - three", getContent(cache, "2.txt"));
+        assertEquals(101, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testSharedContentStore() throws Exception
+    {
+        Path basePath = createUtilTestResources(workDir.getEmptyPathDir());
+
+        SharedContentStore store = new SharedContentStore();
+        CachedContentFactory cache1 = new CachedContentFactory(null, new PathResource(basePath.resolve("three")), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache1.setContentStore(store);
+        CachedContentFactory cache2 = new CachedContentFactory(null, new PathResource(basePath.resolve("three")), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache2.setContentStore(store);
+
+        HttpContent content1 = cache1.getContent("2.txt", 4096);
+        HttpContent content2 = cache2.getContent("2.txt", 4096);
+        assertEquals("2 - three", BufferUtil.toString(content1.getDirectBuffer()));
+        assertEquals("2 - three", BufferUtil.toString(content2.getDirectBuffer()));
+
+        // The bytes are held once by the store, not by the caches.
+        assertEquals(1, store.getBuffers());
+        assertEquals(9, store.getSize());
+        assertEquals(1, store.getMisses());
+        assertEquals(1, store.getHits());
+        assertEquals("2 - three", BufferUtil.toString(content1.getIndirectBuffer()));
+        assertTrue(content1.getIndirectBuffer().isDirect());
+        assertEquals(1, store.getHits());
+        assertEquals(0, cache1.getCachedSize());
+        assertEquals(0, cache2.getCachedSize());
+
+        // The least recently used buffers are evicted to respect the maximum size.
+        assertEquals("3 - three", BufferUtil.toString(cache1.getContent("3.txt", 4096).getDirectBuffer()));
+        assertEquals(2, store.getBuffers());
+        store.setMaxSize(10);
+        assertEquals(1, store.getBuffers());
+        assertEquals(1, store.getEvictions());
+        assertEquals("3 - three", BufferUtil.toString(cache2.getContent("3.txt", 4096).getDirectBuffer()));
+        assertEquals(2, store.getHits());
+
+        // Evicted buffers are loaded again by the cached contents.
+        assertEquals("2 - three", BufferUtil.toString(content1.getDirectBuffer()));
+        assertEquals(3, store.getMisses());
+        assertEquals(1, store.getBuffers());
+        assertEquals(2, store.getEvictions());
+
+        store.flush();
+        assertEquals(0, store.getBuffers());
+        assertEquals(0, store.getSize());
+    }
+
+    @Test
+    public void testCompressContent() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        StringBuilder text = new StringBuilder();
+        // Larger than the compression buffers, so that the input buffer is refilled.
+        for (int i = 0; i < 1000; i++)
+        {
+            text.append("line ").append(i).append(" of some compressible text\n");
+        }
+        makeFile(basePath.resolve("text.txt"), text.toString());
+        makeFile(basePath.resolve("image.png"), text.toString());
+
+        CompressedContentFormat[] formats = {CompressedContentFormat.GZIP};
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, true, formats);
+        cache.setCompressContent(true);
+        assertTrue(cache.isCompressContent());
+        DeflaterPool deflaterPool = new DeflaterPool(CompressionPool.INFINITE_CAPACITY, Deflater.DEFAULT_COMPRESSION, true);
+        deflaterPool.start();
+        cache.setDeflaterPool(deflaterPool);
+
+        HttpContent content = cache.getContent("text.txt", 4096);
+        Map<CompressedContentFormat, ? extends HttpContent> variants = content.getPrecompressedContents();
+        assertThat(variants, is(not(nullValue())));
+        HttpContent compressed = variants.get(CompressedContentFormat.GZIP);
+        assertThat(compressed.getContentEncodingValue(), is("gzip"));
+        assertThat(compressed.getETagValue(), endsWith(CompressedContentFormat.GZIP._etagQuote));
+        assertTrue(compressed.getContentLengthValue() < content.getContentLengthValue());
+        try (InputStream in = new GZIPInputStream(compressed.getInputStream()))
+        {
+            assertEquals(text.toString(), IO.toString(in));
+        }
+        assertEquals(compressed.getContentLengthValue(), cache.getCachedSize());
+        assertEquals(1, deflaterPool.getSize());
+
+        // Subsequent requests are served the cached compressed bytes.
+        content = cache.getContent("text.txt", 4096);
+        assertThat(content.getPrecompressedContents().get(CompressedContentFormat.GZIP), sameInstance(compressed));
+        assertEquals(1, cache.getCompressions());
+
+        // Already compressed media types are not compressed.
+        assertThat(cache.getContent("image.png", 4096).getPrecompressedContents(), nullValue());
+        assertEquals(1, cache.getCompressions());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedSize());
+        deflaterPool.stop();
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
@@ -25,13 +25,20 @@ import java.lang.reflect.Field;
 import java.net.BindException;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Pipe;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -322,4 +329,74 @@ public class ServerConnectorTest
             assertThat(x.getMessage(), containsString("0.0.0.0:" + port));
         }
     }
+
+    @Test
+    public void testSelectorProvider() throws Exception
+    {
+        CountingSelectorProvider provider = new CountingSelectorProvider();
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, 1, 2);
+        connector.setSelectorProvider(provider);
+        server.addConnector(connector);
+        server.setHandler(new DefaultHandler());
+
+        server.start();
+        try
+        {
+            assertThat(provider.selectors.get(), is(2));
+            assertThat(provider.serverChannels.get(), is(1));
+
+            HttpURLConnection connection = (HttpURLConnection)new URI("http://localhost:" + connector.getLocalPort() + "/").toURL().openConnection();
+            assertThat(connection.getResponseCode(), is(404));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    private static class CountingSelectorProvider extends SelectorProvider
+    {
+        private final SelectorProvider provider = SelectorProvider.provider();
+        private final AtomicInteger selectors = new AtomicInteger();
+        private final AtomicInteger serverChannels = new AtomicInteger();
+
+        @Override
+        public DatagramChannel openDatagramChannel() throws IOException
+        {
+            return provider.openDatagramChannel();
+        }
+
+        @Override
+        public DatagramChannel openDatagramChannel(ProtocolFamily family) throws IOException
+        {
+            return provider.openDatagramChannel(family);
+        }
+
+        @Override
+        public Pipe openPipe() throws IOException
+        {
+            return provider.openPipe();
+        }
+
+        @Override
+        public AbstractSelector openSelector() throws IOException
+        {
+            selectors.incrementAndGet();
+            return provider.openSelector();
+        }
+
+        @Override
+        public ServerSocketChannel openServerSocketChannel() throws IOException
+        {
+            serverChannels.incrementAndGet();
+            return provider.openServerSocketChannel();
+        }
+
+        @Override
+        public SocketChannel openSocketChannel() throws IOException
+        {
+            return provider.openSocketChannel();
+        }
+    }
 }
@@ -30,7 +30,13 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
+import org.eclipse.jetty.http.tools.HttpTester;
 import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
@@ -41,8 +47,10 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -393,6 +401,51 @@ public class ContextHandlerTest
         assertEquals(fooA._scontext, foobarA._scontext.getContext("/foo/other"));
     }
 
+    @Test
+    public void testResponseHeaders() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.setConnectors(new Connector[]{connector});
+        HttpConfiguration config = connector.getConnectionFactory(HttpConnectionFactory.class).getHttpConfiguration();
+        config.setResponseHeaders(new PreEncodedHttpFields(new HttpField("X-Frame-Options", "DENY")));
+
+        ContextHandler context = new ContextHandler("/ctx");
+        context.setResponseHeaders(new PreEncodedHttpFields(
+            new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+            new HttpField("X-Content-Type-Options", "nosniff")));
+        context.setHandler(new IsHandledHandler());
+        server.setHandler(context);
+        server.start();
+
+        try
+        {
+            HttpTester.Response response = HttpTester.parseResponse(connector.getResponse("GET /ctx/ HTTP/1.0\n\n"));
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.getValuesList(HttpHeader.SERVER), contains(HttpConfiguration.SERVER_VERSION));
+            assertThat(response.get("X-Frame-Options"), is("DENY"));
+            assertThat(response.get("X-Content-Type-Options"), is("nosniff"));
+            assertThat(response.get(HttpHeader.CONTENT_TYPE), is("application/json"));
+
+            // The context block is only set on the responses of the context.
+            response = HttpTester.parseResponse(connector.getResponse("GET /other HTTP/1.0\n\n"));
+            assertThat(response.getStatus(), is(404));
+            assertThat(response.getValuesList(HttpHeader.SERVER), contains(HttpConfiguration.SERVER_VERSION));
+            assertThat(response.get("X-Frame-Options"), is("DENY"));
+            assertThat(response.get("X-Content-Type-Options"), nullValue());
+
+            // The Server field is only part of the block if it is sent.
+            config.setSendServerVersion(false);
+            response = HttpTester.parseResponse(connector.getResponse("GET /ctx/ HTTP/1.0\n\n"));
+            assertThat(response.get(HttpHeader.SERVER), nullValue());
+            assertThat(response.get("X-Frame-Options"), is("DENY"));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
     @Test
     public void testLifeCycle() throws Exception
     {
@@ -18,23 +18,33 @@
 
 package org.eclipse.jetty.server.handler;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.tools.HttpTester;
+import org.eclipse.jetty.io.AbstractEndPoint;
 import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
@@ -56,8 +66,11 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Resource Handler test
@@ -255,6 +268,99 @@ public class ResourceHandlerTest
         }
     }
 
+    @Test
+    public void testCongestedFileTransfer() throws Exception
+    {
+        // A sparse file much larger than the socket buffers, so that the
+        // transfer congests and falls back to writing buffered content.
+        long length = 32 * 1024 * 1024;
+        File huge = MavenTestingUtils.getTargetFile("test-classes/simple/huge.bin");
+        try (RandomAccessFile file = new RandomAccessFile(huge, "rw"))
+        {
+            file.setLength(length);
+        }
+
+        // Transferred content is not notified to listeners, only buffered content is.
+        AtomicReference<AbstractEndPoint> endPoint = new AtomicReference<>();
+        AtomicLong buffered = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        CountDownLatch complete = new CountDownLatch(1);
+        HttpChannel.Listener listener = new HttpChannel.Listener()
+        {
+            @Override
+            public void onResponseCommit(Request request)
+            {
+                endPoint.set((AbstractEndPoint)request.getHttpChannel().getEndPoint());
+            }
+
+            @Override
+            public void onResponseContent(Request request, ByteBuffer content)
+            {
+                buffered.addAndGet(content.remaining());
+            }
+
+            @Override
+            public void onComplete(Request request)
+            {
+                written.set(request.getHttpChannel().getBytesWritten());
+                complete.countDown();
+            }
+        };
+        _connector.addBean(listener);
+        _config.setMinFileTransferSize(1024 * 1024);
+
+        try (Socket socket = new Socket())
+        {
+            socket.setReceiveBufferSize(8192);
+            socket.connect(new InetSocketAddress("localhost", _connector.getLocalPort()));
+            socket.getOutputStream().write("GET /resource/huge.bin HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+
+            // Do not read until the transfer is congested and
+            // waits for a buffered write to complete.
+            long start = System.nanoTime();
+            while (endPoint.get() == null || !endPoint.get().getWriteFlusher().isPending())
+            {
+                assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), lessThan(15L));
+                Thread.sleep(100);
+            }
+
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            StringBuilder header = new StringBuilder();
+            while (header.indexOf("\r\n\r\n") < 0)
+            {
+                int b = input.read();
+                if (b < 0)
+                    break;
+                header.append((char)b);
+            }
+            assertThat(header.toString(), startsWith("HTTP/1.1 200 OK"));
+            assertThat(header.toString(), containsString("Content-Length: " + length));
+
+            long received = 0;
+            byte[] bytes = new byte[64 * 1024];
+            while (true)
+            {
+                int read = input.read(bytes);
+                if (read < 0)
+                    break;
+                received += read;
+            }
+            assertEquals(length, received);
+
+            assertTrue(complete.await(10, TimeUnit.SECONDS));
+            assertEquals(length, written.get());
+            // Both the transfer and the buffered fallback have been used.
+            assertThat(buffered.get(), greaterThan(0L));
+            assertThat(buffered.get(), lessThan(length));
+        }
+        finally
+        {
+            _config.setMinFileTransferSize(-1);
+            _connector.removeBean(listener);
+            assertTrue(huge.delete());
+        }
+    }
+
     @Test
     public void testWelcome() throws Exception
     {
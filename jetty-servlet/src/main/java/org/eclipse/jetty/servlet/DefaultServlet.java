@@ -21,8 +21,10 @@ package org.eclipse.jetty.servlet;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.zip.Deflater;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.UnavailableException;
@@ -40,8 +42,11 @@ import org.eclipse.jetty.server.CachedContentFactory;
 import org.eclipse.jetty.server.ResourceContentFactory;
 import org.eclipse.jetty.server.ResourceService;
 import org.eclipse.jetty.server.ResourceService.WelcomeFactory;
+import org.eclipse.jetty.server.SharedContentStore;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.resource.Resource;
@@ -107,6 +112,16 @@ import org.eclipse.jetty.util.resource.ResourceFactory;
  *  maxCacheSize      The maximum total size of the cache or 0 for no cache.
  *  maxCachedFileSize The maximum size of a file to cache
  *  maxCachedFiles    The maximum number of files to cache
+ *                    When the server has a SharedContentStore bean, a cache is always
+ *                    created and the cached files are held in the shared store.
+ *  cacheEvictionPolicy
+ *                    The policy to admit and evict cached files: "lru" (the default) to
+ *                    evict the least recently used file, or "tinylfu" to only admit files
+ *                    accessed more frequently than the file they would evict.
+ *  compressCachedContent
+ *                    If true, cached files without a precompressed gzip file are
+ *                    compressed on their first request and the compressed bytes are
+ *                    cached and served as a precompressed variant.
  *
  *  useFileMappedBuffer
  *                    If set to true, it will use mapped file buffer to serve static content
@@ -142,6 +157,7 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
 
     private Resource _resourceBase;
     private CachedContentFactory _cache;
+    private DeflaterPool _deflaterPool;
 
     private MimeTypes _mimeTypes;
     private String[] _welcomes;
@@ -253,17 +269,40 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
             _cache = (CachedContentFactory)_servletContext.getAttribute(resourceCache);
         }
 
+        boolean compressCachedContent = getInitBoolean("compressCachedContent", false);
+        if (compressCachedContent && Arrays.stream(_resourceService.getPrecompressedFormats()).noneMatch(f -> CompressedContentFormat.GZIP._encoding.equalsIgnoreCase(f._encoding)))
+        {
+            CompressedContentFormat[] formats = Arrays.copyOf(_resourceService.getPrecompressedFormats(), _resourceService.getPrecompressedFormats().length + 1);
+            formats[formats.length - 1] = CompressedContentFormat.GZIP;
+            _resourceService.setPrecompressedFormats(formats);
+        }
+
         try
         {
-            if (_cache == null && (maxCachedFiles != -2 || maxCacheSize != -2 || maxCachedFileSize != -2))
+            SharedContentStore contentStore = _contextHandler.getServer() == null ? null : _contextHandler.getServer().getBean(SharedContentStore.class);
+            if (_cache == null && (maxCachedFiles != -2 || maxCacheSize != -2 || maxCachedFileSize != -2 || contentStore != null || compressCachedContent))
             {
                 _cache = new CachedContentFactory(null, this, _mimeTypes, _useFileMappedBuffer, _resourceService.isEtags(), _resourceService.getPrecompressedFormats());
+                _cache.setContentStore(contentStore);
+                _cache.setCompressContent(compressCachedContent);
+                if (compressCachedContent)
+                {
+                    // The pool is stopped with the context, or when this servlet is destroyed.
+                    _deflaterPool = new DeflaterPool(CompressionPool.INFINITE_CAPACITY, Deflater.DEFAULT_COMPRESSION, true);
+                    _contextHandler.addManaged(_deflaterPool);
+                    _cache.setDeflaterPool(_deflaterPool);
+                }
                 if (maxCacheSize >= 0)
                     _cache.setMaxCacheSize(maxCacheSize);
                 if (maxCachedFileSize >= -1)
                     _cache.setMaxCachedFileSize(maxCachedFileSize);
                 if (maxCachedFiles >= -1)
                     _cache.setMaxCachedFiles(maxCachedFiles);
+                String evictionPolicy = getInitParameter("cacheEvictionPolicy");
+                if ("tinylfu".equalsIgnoreCase(evictionPolicy))
+                    _cache.setEvictionPolicy(new CachedContentFactory.TinyLFUEvictionPolicy(Math.max(1, _cache.getMaxCachedFiles())));
+                else if (evictionPolicy != null && !"lru".equalsIgnoreCase(evictionPolicy))
+                    throw new UnavailableException("Unknown cacheEvictionPolicy " + evictionPolicy);
                 _servletContext.setAttribute(resourceCache == null ? "resourceCache" : resourceCache, _cache);
             }
         }
@@ -486,6 +525,8 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
     {
         if (_cache != null)
             _cache.flushCache();
+        if (_deflaterPool != null)
+            _contextHandler.removeBean(_deflaterPool);
         super.destroy();
     }
 
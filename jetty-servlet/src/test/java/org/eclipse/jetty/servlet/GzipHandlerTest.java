@@ -28,6 +28,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.servlet.AsyncContext;
@@ -60,6 +61,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalToIgnoringCase;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
@@ -119,6 +121,7 @@ public class GzipHandlerTest
         servlets.addServletWithMapping(DumpServlet.class, "/dump/*");
         servlets.addServletWithMapping(AsyncServlet.class, "/async/*");
         servlets.addServletWithMapping(BufferServlet.class, "/buffer/*");
+        servlets.addServletWithMapping(FlushServlet.class, "/flush");
         servlets.addFilterWithMapping(CheckFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
 
         _server.start();
@@ -184,6 +187,21 @@ public class GzipHandlerTest
         }
     }
 
+    public static class FlushServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse response) throws ServletException, IOException
+        {
+            response.setContentType("text/plain");
+            ServletOutputStream out = response.getOutputStream();
+            for (int i = 0; i < 16; i++)
+            {
+                out.write(__bytes);
+                out.flush();
+            }
+        }
+    }
+
     public static class AsyncServlet extends HttpServlet
     {
         @Override
@@ -348,6 +366,35 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString("UTF8"));
     }
 
+    @Test
+    public void testFlushedResponse() throws Exception
+    {
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/flush");
+        request.setVersion("HTTP/1.1");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip");
+
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), Matchers.equalToIgnoringCase("gzip"));
+        assertThat(response.get("Transfer-Encoding"), Matchers.equalToIgnoringCase("chunked"));
+
+        // The GZIPInputStream checks the CRC and length of the trailer.
+        InputStream testIn = new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes()));
+        ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+        IO.copy(testIn, testOut);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 16; i++)
+        {
+            expected.append(__content);
+        }
+        assertEquals(expected.toString(), testOut.toString("UTF8"));
+    }
+
     @Test
     public void testAsyncResponse() throws Exception
     {
@@ -679,6 +726,63 @@ public class GzipHandlerTest
         assertThat("Included Paths", Arrays.asList(includedPaths), contains("/foo", "^/bar.*$"));
     }
 
+    @Test
+    public void testAdaptiveCompression() throws Exception
+    {
+        _server.stop();
+
+        AtomicReference<Double> load = new AtomicReference<>(0.0D);
+        GzipHandler gzipHandler = new GzipHandler()
+        {
+            @Override
+            protected double getLoad()
+            {
+                return load.get();
+            }
+        };
+        gzipHandler.setCompressionLevel(9);
+        gzipHandler.setMinCompressionLevel(1);
+        gzipHandler.setAdaptiveCompression(true);
+        ServletContextHandler context = new ServletContextHandler(gzipHandler, "/ctx");
+        context.getServletHandler().addServletWithMapping(TestServlet.class, "/content");
+        gzipHandler.setHandler(context);
+        _server.setHandler(gzipHandler);
+        _server.start();
+
+        assertThat(gzipHandler.getCurrentCompressionLevel(), is(9));
+        load.set(0.5D);
+        assertThat(gzipHandler.getCurrentCompressionLevel(), is(5));
+        load.set(1.0D);
+        assertThat(gzipHandler.getCurrentCompressionLevel(), is(1));
+
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip");
+
+        // The content is smaller than the adaptiveMinGzipSize, so it is not compressed when saturated.
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), nullValue());
+        assertThat(response.getContent(), is(__content));
+        assertThat(gzipHandler.getSkippedResponses(), is(1L));
+        assertThat(gzipHandler.getCompressedResponses(), is(0L));
+
+        load.set(0.0D);
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), equalToIgnoringCase("gzip"));
+        ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+        IO.copy(new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes())), testOut);
+        assertEquals(__content, testOut.toString("UTF8"));
+        assertThat(gzipHandler.getCompressedResponses(), is(1L));
+        assertThat(gzipHandler.getBytesIn(), is((long)__bytes.length));
+        assertThat(gzipHandler.getBytesOut(), is((long)response.getContentBytes().length));
+        assertThat(gzipHandler.getBytesSaved(), greaterThan(0L));
+    }
+
     @Test
     public void testGzipRequest() throws Exception
     {
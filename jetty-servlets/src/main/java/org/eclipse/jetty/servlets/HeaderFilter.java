@@ -20,7 +20,9 @@ package org.eclipse.jetty.servlets;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
@@ -29,6 +31,11 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -51,12 +58,17 @@ import org.eclipse.jetty.util.log.Logger;
  * setDate Expires: 31540000000,
  * addDate Date: 0
  * </pre>
+ * <p>
+ * When all the headers with a constant value are set with distinct names, they are
+ * pre-encoded as a {@link PreEncodedHttpFields} block, that is set on Jetty responses
+ * and generated with a single buffer copy.
  *
  * @see IncludeExcludeBasedFilter
  */
 public class HeaderFilter extends IncludeExcludeBasedFilter
 {
     private List<ConfiguredHeader> _configuredHeaders = new ArrayList<>();
+    private PreEncodedHttpFields _preEncodedHeaders;
     private static final Logger LOG = Log.getLogger(HeaderFilter.class);
 
     @Override
@@ -73,6 +85,7 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
                 _configuredHeaders.add(parseHeaderConfiguration(config));
             }
         }
+        _preEncodedHeaders = preEncodeHeaders(_configuredHeaders);
 
         if (LOG.isDebugEnabled())
             LOG.debug(this.toString());
@@ -86,6 +99,19 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
 
         if (super.shouldFilter(httpRequest, httpResponse))
         {
+            // Set the constant headers at once on an unwrapped Jetty response.
+            boolean preEncoded = false;
+            if (_preEncodedHeaders != null)
+            {
+                Request baseRequest = Request.getBaseRequest(request);
+                Response baseResponse = baseRequest == null ? null : baseRequest.getResponse();
+                if (baseResponse != null && baseResponse == response && !baseResponse.isIncluding())
+                {
+                    baseResponse.setHeaders(_preEncodedHeaders);
+                    preEncoded = true;
+                }
+            }
+
             for (ConfiguredHeader header : _configuredHeaders)
             {
                 if (header.isDate())
@@ -100,7 +126,7 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
                         httpResponse.setDateHeader(header.getName(), headerValue);
                     }
                 }
-                else // constant header value
+                else if (!preEncoded) // constant header value
                 {
                     if (header.isAdd())
                     {
@@ -131,6 +157,36 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
         return sb.toString();
     }
 
+    private PreEncodedHttpFields preEncodeHeaders(List<ConfiguredHeader> configuredHeaders)
+    {
+        // Only headers that are set, at most once, can be set as a block without changing the response.
+        List<HttpField> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (ConfiguredHeader header : configuredHeaders)
+        {
+            if (!names.add(StringUtil.asciiToLowerCase(header.getName())))
+                return null;
+            if (header.isDate())
+                continue;
+            if (header.isAdd() || HttpHeader.CONTENT_TYPE.is(header.getName()))
+                return null;
+            fields.add(new HttpField(header.getName(), header.getValue()));
+        }
+        if (fields.isEmpty())
+            return null;
+
+        try
+        {
+            return new PreEncodedHttpFields(fields);
+        }
+        catch (IllegalArgumentException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Headers not pre-encoded", x);
+            return null;
+        }
+    }
+
     private ConfiguredHeader parseHeaderConfiguration(String config)
     {
         String[] configTokens = config.trim().split(" ", 2);
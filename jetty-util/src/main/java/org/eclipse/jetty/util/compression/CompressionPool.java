@@ -18,19 +18,38 @@
 
 package org.eclipse.jetty.util.compression;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 
+/**
+ * <p>A pool of compression objects, such as {@link java.util.zip.Deflater}s, which hold native state.</p>
+ * <p>The pool is striped, with a stripe per available processor at most, and a thread
+ * acquires from and releases to the stripe of its thread id, so that a thread usually
+ * reuses the objects it released, whose native state is still in the caches of its core,
+ * and threads on different cores do not contend on the same queue. A thread only takes
+ * objects from the other stripes when its own stripe is empty.</p>
+ * <p>The capacity of the pool is divided among the stripes, so that the total number
+ * of pooled objects never exceeds the capacity.</p>
+ *
+ * @param <T> the type of the pooled objects
+ */
+@ManagedObject("A pool of compression objects")
 public abstract class CompressionPool<T> extends AbstractLifeCycle
 {
     public static final int INFINITE_CAPACITY = -1;
 
-    private final Queue<T> _pool;
-    private final AtomicInteger _numObjects = new AtomicInteger(0);
+    private final Stripe<T>[] _stripes;
     private final int _capacity;
+    private final LongAdder _created = new LongAdder();
+    private final LongAdder _reused = new LongAdder();
 
     /**
      * Create a Pool of {@link T} instances.
@@ -42,9 +61,36 @@ public abstract class CompressionPool<T> extends AbstractLifeCycle
      * @param capacity maximum number of Objects which can be contained in the pool
      */
     public CompressionPool(int capacity)
+    {
+        this(capacity, ProcessorUtils.availableProcessors());
+    }
+
+    /**
+     * Create a Pool of {@link T} instances.
+     *
+     * @param capacity maximum number of Objects which can be contained in the pool
+     * @param stripes the maximum number of stripes of the pool
+     * @see #CompressionPool(int)
+     */
+    @SuppressWarnings("unchecked")
+    public CompressionPool(int capacity, int stripes)
     {
         _capacity = capacity;
-        _pool = (_capacity == 0) ? null : new ConcurrentLinkedQueue<>();
+        if (_capacity == 0)
+        {
+            _stripes = null;
+        }
+        else
+        {
+            int count = Math.max(1, _capacity > 0 ? Math.min(stripes, _capacity) : stripes);
+            _stripes = new Stripe[count];
+            for (int i = 0; i < count; i++)
+            {
+                // Divide the capacity so that the sum of the stripe capacities is the pool capacity.
+                int stripeCapacity = _capacity < 0 ? INFINITE_CAPACITY : _capacity / count + (i < _capacity % count ? 1 : 0);
+                _stripes[i] = new Stripe<>(stripeCapacity);
+            }
+        }
     }
 
     protected abstract T newObject();
@@ -58,17 +104,27 @@ public abstract class CompressionPool<T> extends AbstractLifeCycle
      */
     public T acquire()
     {
-        T object;
+        T object = null;
 
-        if (_capacity == 0)
+        if (_stripes != null)
+        {
+            int index = stripeIndex();
+            for (int i = 0; i < _stripes.length; i++)
+            {
+                object = _stripes[(index + i) % _stripes.length].poll();
+                if (object != null)
+                    break;
+            }
+        }
+
+        if (object == null)
+        {
+            _created.increment();
             object = newObject();
+        }
         else
         {
-            object = _pool.poll();
-            if (object == null)
-                object = newObject();
-            else if (_capacity > 0)
-                _numObjects.decrementAndGet();
+            _reused.increment();
         }
 
         return object;
@@ -82,47 +138,143 @@ public abstract class CompressionPool<T> extends AbstractLifeCycle
         if (object == null)
             return;
 
-        if (_capacity == 0 || !isRunning())
+        if (_stripes == null || !isRunning())
         {
             end(object);
             return;
         }
-        else if (_capacity < 0)
+
+        Stripe<T> stripe = _stripes[stripeIndex()];
+        if (stripe.reserve())
         {
             reset(object);
-            _pool.add(object);
+            stripe.push(object);
         }
         else
         {
-            while (true)
+            end(object);
+        }
+    }
+
+    private int stripeIndex()
+    {
+        return (int)(Thread.currentThread().getId() % _stripes.length);
+    }
+
+    @ManagedAttribute("The maximum number of pooled objects, or -1 if unbounded")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    @ManagedAttribute(value = "The number of stripes of the pool", readonly = true)
+    public int getStripes()
+    {
+        return _stripes == null ? 0 : _stripes.length;
+    }
+
+    @ManagedAttribute(value = "The number of pooled objects", readonly = true)
+    public int getSize()
+    {
+        int size = 0;
+        if (_stripes != null)
+        {
+            for (Stripe<T> stripe : _stripes)
             {
-                int d = _numObjects.get();
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
 
-                if (d >= _capacity)
-                {
-                    end(object);
-                    break;
-                }
+    @ManagedAttribute(value = "The number of objects created because the pool was empty", readonly = true)
+    public long getCreated()
+    {
+        return _created.sum();
+    }
+
+    @ManagedAttribute(value = "The number of objects acquired from the pool", readonly = true)
+    public long getReused()
+    {
+        return _reused.sum();
+    }
 
-                if (_numObjects.compareAndSet(d, d + 1))
+    @ManagedOperation(value = "Resets the pool statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _created.reset();
+        _reused.reset();
+    }
+
+    @Override
+    public void doStop()
+    {
+        if (_stripes != null)
+        {
+            for (Stripe<T> stripe : _stripes)
+            {
+                T t = stripe.poll();
+                while (t != null)
                 {
-                    reset(object);
-                    _pool.add(object);
-                    break;
+                    end(t);
+                    t = stripe.poll();
                 }
             }
         }
     }
 
     @Override
-    public void doStop()
+    public String toString()
     {
-        T t = _pool.poll();
-        while (t != null)
+        return String.format("%s@%x{%s,size=%d,capacity=%d,stripes=%d}", getClass().getSimpleName(), hashCode(), getState(), getSize(), getCapacity(), getStripes());
+    }
+
+    private static class Stripe<T>
+    {
+        private final Deque<T> _objects = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger _size = new AtomicInteger();
+        private final int _capacity;
+
+        private Stripe(int capacity)
+        {
+            _capacity = capacity;
+        }
+
+        private boolean reserve()
+        {
+            if (_capacity < 0)
+            {
+                _size.incrementAndGet();
+                return true;
+            }
+
+            while (true)
+            {
+                int size = _size.get();
+                if (size >= _capacity)
+                    return false;
+                if (_size.compareAndSet(size, size + 1))
+                    return true;
+            }
+        }
+
+        private void push(T object)
+        {
+            // The most recently released object is acquired first, as its state is the most likely to be cached.
+            _objects.offerFirst(object);
+        }
+
+        private T poll()
+        {
+            T object = _objects.pollFirst();
+            if (object != null)
+                _size.decrementAndGet();
+            return object;
+        }
+
+        private int size()
         {
-            end(t);
-            t = _pool.poll();
+            return _size.get();
         }
-        _numObjects.set(0);
     }
 }
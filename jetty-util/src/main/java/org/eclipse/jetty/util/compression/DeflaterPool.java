@@ -20,6 +20,8 @@ package org.eclipse.jetty.util.compression;
 
 import java.util.zip.Deflater;
 
+import org.eclipse.jetty.util.ProcessorUtils;
+
 public class DeflaterPool extends CompressionPool<Deflater>
 {
     private final int compressionLevel;
@@ -38,7 +40,21 @@ public class DeflaterPool extends CompressionPool<Deflater>
      */
     public DeflaterPool(int capacity, int compressionLevel, boolean nowrap)
     {
-        super(capacity);
+        this(capacity, ProcessorUtils.availableProcessors(), compressionLevel, nowrap);
+    }
+
+    /**
+     * Create a Pool of {@link Deflater} instances.
+     *
+     * @param capacity maximum number of Deflaters which can be contained in the pool
+     * @param stripes the maximum number of stripes of the pool
+     * @param compressionLevel the default compression level for new Deflater objects
+     * @param nowrap if true then use GZIP compatible compression for all new Deflater objects
+     * @see #DeflaterPool(int, int, boolean)
+     */
+    public DeflaterPool(int capacity, int stripes, int compressionLevel, boolean nowrap)
+    {
+        super(capacity, stripes);
         this.compressionLevel = compressionLevel;
         this.nowrap = nowrap;
     }
@@ -59,5 +75,12 @@ public class DeflaterPool extends CompressionPool<Deflater>
     protected void reset(Deflater deflater)
     {
         deflater.reset();
+        // The level may have been changed by the user of the Deflater.
+        deflater.setLevel(compressionLevel);
+    }
+
+    public int getCompressionLevel()
+    {
+        return compressionLevel;
     }
 }
@@ -20,6 +20,8 @@ package org.eclipse.jetty.util.compression;
 
 import java.util.zip.Inflater;
 
+import org.eclipse.jetty.util.ProcessorUtils;
+
 public class InflaterPool extends CompressionPool<Inflater>
 {
     private final boolean nowrap;
@@ -36,7 +38,20 @@ public class InflaterPool extends CompressionPool<Inflater>
      */
     public InflaterPool(int capacity, boolean nowrap)
     {
-        super(capacity);
+        this(capacity, ProcessorUtils.availableProcessors(), nowrap);
+    }
+
+    /**
+     * Create a Pool of {@link Inflater} instances.
+     *
+     * @param capacity maximum number of Inflaters which can be contained in the pool
+     * @param stripes the maximum number of stripes of the pool
+     * @param nowrap if true then use GZIP compatible compression for all new Inflater objects
+     * @see #InflaterPool(int, boolean)
+     */
+    public InflaterPool(int capacity, int stripes, boolean nowrap)
+    {
+        super(capacity, stripes);
         this.nowrap = nowrap;
     }
 
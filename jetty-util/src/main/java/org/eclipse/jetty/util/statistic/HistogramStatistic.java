@@ -0,0 +1,164 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Statistics on the distribution of a sampled value.</p>
+ * <p>Samples are counted in buckets whose bounds are powers of two:
+ * bucket {@code 0} counts samples less than 1, bucket {@code i} counts
+ * samples in the range {@code [2^(i-1), 2^i)} and the last bucket counts
+ * all the larger samples.</p>
+ * <p>Recording a sample only increments a striped counter, so that this
+ * class can be used on hot paths by many threads without contention.</p>
+ */
+public class HistogramStatistic
+{
+    private final LongAdder[] _buckets;
+
+    /**
+     * @param buckets the number of buckets, at least 2
+     */
+    public HistogramStatistic(int buckets)
+    {
+        if (buckets < 2 || buckets > 64)
+            throw new IllegalArgumentException("Invalid number of buckets " + buckets);
+        _buckets = new LongAdder[buckets];
+        for (int i = 0; i < buckets; ++i)
+        {
+            _buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public void reset()
+    {
+        for (LongAdder bucket : _buckets)
+        {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * Records a sample value.
+     *
+     * @param sample the value to record.
+     */
+    public void record(long sample)
+    {
+        int index = sample <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(sample);
+        _buckets[Math.min(index, _buckets.length - 1)].increment();
+    }
+
+    /**
+     * Adds the counts of the given histogram to this histogram.
+     *
+     * @param histogram the histogram to add, with the same number of buckets
+     */
+    public void add(HistogramStatistic histogram)
+    {
+        if (histogram._buckets.length != _buckets.length)
+            throw new IllegalArgumentException("Incompatible histogram " + histogram);
+        for (int i = 0; i < _buckets.length; ++i)
+        {
+            _buckets[i].add(histogram._buckets[i].sum());
+        }
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    public int getBuckets()
+    {
+        return _buckets.length;
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the exclusive upper bound of the samples counted by the bucket,
+     * or {@link Long#MAX_VALUE} for the last bucket
+     */
+    public long getUpperBound(int bucket)
+    {
+        return bucket == _buckets.length - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the number of samples counted by the bucket
+     */
+    public long getCount(int bucket)
+    {
+        return _buckets[bucket].sum();
+    }
+
+    /**
+     * @return the number of samples recorded
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for (LongAdder bucket : _buckets)
+        {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of samples counted by each bucket
+     */
+    public long[] getCounts()
+    {
+        long[] counts = new long[_buckets.length];
+        for (int i = 0; i < counts.length; ++i)
+        {
+            counts[i] = _buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * @param unit the unit of the samples, appended to the bucket bounds
+     * @return a string with the bucket bounds and counts, for example
+     * {@code <1us=0,<2us=5,...,>=512us=1}
+     */
+    public String toHistogramString(String unit)
+    {
+        StringBuilder builder = new StringBuilder();
+        int last = _buckets.length - 1;
+        for (int i = 0; i < last; ++i)
+        {
+            builder.append('<').append(getUpperBound(i)).append(unit);
+            builder.append('=').append(getCount(i)).append(',');
+        }
+        builder.append(">=").append(getUpperBound(last - 1)).append(unit);
+        builder.append('=').append(getCount(last));
+        return builder.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s}", getClass().getSimpleName(), hashCode(), toHistogramString(""));
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -46,7 +47,7 @@ import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
 
 @ManagedObject("A thread pool")
-public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactory, SizedThreadPool, Dumpable, TryExecutor
+public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactory, SizedThreadPool, Dumpable, TryExecutor, VirtualThreads.Configurable
 {
     private static final Logger LOG = Log.getLogger(QueuedThreadPool.class);
     private static Runnable NOOP = () ->
@@ -74,12 +75,14 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
     private int _maxThreads;
     private int _minThreads;
     private int _reservedThreads = -1;
+    private boolean _reservedThreadsAdaptive;
     private TryExecutor _tryExecutor = TryExecutor.NO_TRY;
     private int _priority = Thread.NORM_PRIORITY;
     private boolean _daemon = false;
     private boolean _detailedDump = false;
     private int _lowThreadsThreshold = 1;
     private ThreadPoolBudget _budget;
+    private boolean _useVirtualThreads;
 
     public QueuedThreadPool()
     {
@@ -106,6 +109,24 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         this(maxThreads, minThreads, idleTimeout, null);
     }
 
+    /**
+     * <p>Creates a thread pool that, if {@code lockFreeQueue} is true, uses an unbounded
+     * lock-free {@link LinkedTransferQueue} as job queue.</p>
+     * <p>With such a queue, a job submitted while a thread is idle waiting for a job
+     * is handed off directly to that thread without being queued, and threads
+     * submitting and taking jobs never contend on a lock, which helps
+     * under very high job rates.</p>
+     *
+     * @param maxThreads the maximum number of threads
+     * @param minThreads the minimum number of threads
+     * @param idleTimeout the thread idle timeout in milliseconds
+     * @param lockFreeQueue whether to use a lock-free job queue rather than the default bounded {@link BlockingArrayQueue}
+     */
+    public QueuedThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads, @Name("idleTimeout") int idleTimeout, @Name("lockFreeQueue") boolean lockFreeQueue)
+    {
+        this(maxThreads, minThreads, idleTimeout, lockFreeQueue ? new LinkedTransferQueue<>() : null);
+    }
+
     public QueuedThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads, @Name("idleTimeout") int idleTimeout, @Name("queue") BlockingQueue<Runnable> queue)
     {
         this(maxThreads, minThreads, idleTimeout, queue, null);
@@ -170,6 +191,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         {
             ReservedThreadExecutor reserved = new ReservedThreadExecutor(this, _reservedThreads);
             reserved.setIdleTimeout(_idleTimeout, TimeUnit.MILLISECONDS);
+            reserved.setAdaptive(_reservedThreadsAdaptive);
             _tryExecutor = reserved;
         }
         addBean(_tryExecutor);
@@ -359,6 +381,20 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         _reservedThreads = reservedThreads;
     }
 
+    /**
+     * Set whether the number of reserved threads adapts to the observed demand,
+     * between 1 and the number of reserved threads.
+     *
+     * @param adaptive true to adapt the number of reserved threads to the demand
+     * @see ReservedThreadExecutor#setAdaptive(boolean)
+     */
+    public void setReservedThreadsAdaptive(boolean adaptive)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _reservedThreadsAdaptive = adaptive;
+    }
+
     /**
      * @param name Name of this thread pool to use when naming threads.
      */
@@ -435,6 +471,16 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         return _reservedThreads;
     }
 
+    /**
+     * @return whether the number of reserved threads adapts to the observed demand
+     * @see #setReservedThreadsAdaptive
+     */
+    @ManagedAttribute("whether the number of reserved threads adapts to demand")
+    public boolean isReservedThreadsAdaptive()
+    {
+        return _reservedThreadsAdaptive;
+    }
+
     /**
      * @return The name of the this thread pool
      */
@@ -489,6 +535,37 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         _detailedDump = detailedDump;
     }
 
+    /**
+     * @return whether blocking tasks, such as the handling of requests, are run in virtual threads
+     * @see #setUseVirtualThreads(boolean)
+     */
+    @Override
+    @ManagedAttribute("whether blocking tasks are run in virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _useVirtualThreads;
+    }
+
+    /**
+     * <p>Sets whether execution strategies that use this pool should run blocking
+     * tasks, such as the handling of requests, in virtual threads rather than in
+     * the threads of this pool.</p>
+     * <p>If the JVM does not support virtual threads, a warning is logged and
+     * blocking tasks are run in the threads of this pool as usual.</p>
+     *
+     * @param useVirtualThreads whether blocking tasks should be run in virtual threads
+     */
+    @Override
+    public void setUseVirtualThreads(boolean useVirtualThreads)
+    {
+        if (useVirtualThreads && !VirtualThreads.areSupported())
+        {
+            LOG.warn("Virtual threads not supported by the JVM, using platform threads for {}", this);
+            useVirtualThreads = false;
+        }
+        _useVirtualThreads = useVirtualThreads;
+    }
+
     @ManagedAttribute("threshold at which the pool is low on threads")
     public int getLowThreadsThreshold()
     {
@@ -23,11 +23,13 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 
 import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -41,6 +43,10 @@ import org.eclipse.jetty.util.log.Logger;
  * wrapped {@link Executor} when an execution fails.  If the {@link #setIdleTimeout(long, TimeUnit)}
  * is set to non zero (default 1 minute), then the reserved thread pool will shrink by 1 thread
  * whenever it has been idle for that period.
+ * <p>If {@link #setAdaptive(boolean) adaptive} mode is enabled, the number of threads
+ * kept reserved is adjusted between 1 and the capacity, based on the ratio of failed
+ * calls to {@link #tryExecute(Runnable)} observed over a window of calls: the reservation
+ * grows when too many calls miss a reserved thread and shrinks when no call misses.
  */
 @ManagedObject("A pool for reserved threads")
 public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExecutor
@@ -65,10 +71,18 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     private final ConcurrentLinkedDeque<ReservedThread> _stack;
     private final AtomicInteger _size = new AtomicInteger();
     private final AtomicInteger _pending = new AtomicInteger();
+    private final AtomicInteger _target = new AtomicInteger();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final AtomicInteger _windowCount = new AtomicInteger();
+    private final AtomicInteger _windowMisses = new AtomicInteger();
 
     private ThreadPoolBudget.Lease _lease;
     private long _idleTime = 1L;
     private TimeUnit _idleTimeUnit = TimeUnit.MINUTES;
+    private boolean _adaptive;
+    private int _windowSize = 128;
+    private int _growMissPercent = 10;
 
     /**
      * @param executor The executor to use to obtain threads
@@ -80,6 +94,7 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     {
         _executor = executor;
         _capacity = reservedThreads(executor, capacity);
+        _target.set(_capacity);
         _stack = new ConcurrentLinkedDeque<>();
         if (LOG.isDebugEnabled())
             LOG.debug("{}", this);
@@ -117,6 +132,12 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         return _capacity;
     }
 
+    @ManagedAttribute(value = "number of reserved threads currently targeted", readonly = true)
+    public int getTarget()
+    {
+        return _target.get();
+    }
+
     @ManagedAttribute(value = "available reserved threads", readonly = true)
     public int getAvailable()
     {
@@ -151,11 +172,94 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         _idleTimeUnit = idleTimeUnit;
     }
 
+    @ManagedAttribute(value = "whether the reservation adapts to demand", readonly = true)
+    public boolean isAdaptive()
+    {
+        return _adaptive;
+    }
+
+    /**
+     * Set whether the number of reserved threads is adapted to the observed demand.
+     * <p>When adaptive, the target number of reserved threads starts at the capacity
+     * and is then adjusted between 1 and the capacity after every window of
+     * {@link #tryExecute(Runnable)} calls.</p>
+     *
+     * @param adaptive true to adapt the number of reserved threads to the demand
+     * @see #setWindowSize(int)
+     * @see #setGrowMissPercent(int)
+     */
+    public void setAdaptive(boolean adaptive)
+    {
+        if (isRunning())
+            throw new IllegalStateException();
+        _adaptive = adaptive;
+    }
+
+    @ManagedAttribute(value = "number of tryExecute() calls per adaptive window", readonly = true)
+    public int getWindowSize()
+    {
+        return _windowSize;
+    }
+
+    /**
+     * @param windowSize the number of {@link #tryExecute(Runnable)} calls observed before
+     * the target number of reserved threads is adapted
+     */
+    public void setWindowSize(int windowSize)
+    {
+        if (isRunning())
+            throw new IllegalStateException();
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("Invalid window size " + windowSize);
+        _windowSize = windowSize;
+    }
+
+    @ManagedAttribute(value = "percentage of missed tryExecute() calls in a window that grows the reservation", readonly = true)
+    public int getGrowMissPercent()
+    {
+        return _growMissPercent;
+    }
+
+    /**
+     * @param growMissPercent the percentage of {@link #tryExecute(Runnable)} calls in a window
+     * that must miss a reserved thread for the target number of reserved threads to grow
+     */
+    public void setGrowMissPercent(int growMissPercent)
+    {
+        if (isRunning())
+            throw new IllegalStateException();
+        if (growMissPercent < 0 || growMissPercent > 100)
+            throw new IllegalArgumentException("Invalid grow miss percent " + growMissPercent);
+        _growMissPercent = growMissPercent;
+    }
+
+    @ManagedAttribute(value = "number of tryExecute() calls that found a reserved thread", readonly = true)
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute(value = "number of tryExecute() calls that found no reserved thread", readonly = true)
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedOperation(value = "resets the tryExecute() statistics", impact = "ACTION")
+    public void reset()
+    {
+        _hits.reset();
+        _misses.reset();
+    }
+
     @Override
     public void doStart() throws Exception
     {
         _lease = ThreadPoolBudget.leaseFrom(getExecutor(), this, _capacity);
         _size.set(0);
+        _target.set(_capacity);
+        _windowCount.set(0);
+        _windowMisses.set(0);
         super.doStart();
     }
 
@@ -212,19 +316,69 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         if (thread == null)
         {
             if (task != STOP)
+            {
+                _misses.increment();
+                if (_adaptive)
+                    sample(true);
                 startReservedThread();
+            }
             return false;
         }
 
         int size = _size.decrementAndGet();
         thread.offer(task);
 
-        if (size == 0 && task != STOP)
-            startReservedThread();
+        if (task != STOP)
+        {
+            _hits.increment();
+            if (_adaptive)
+                sample(false);
+            if (size == 0)
+                startReservedThread();
+        }
 
         return true;
     }
 
+    private void sample(boolean miss)
+    {
+        if (miss)
+            _windowMisses.incrementAndGet();
+        int count = _windowCount.incrementAndGet();
+        if (count < _windowSize)
+            return;
+
+        // Only the thread that closes the window adapts the target.
+        // Samples racing with the reset may be lost, which is acceptable.
+        if (!_windowCount.compareAndSet(count, 0))
+            return;
+        int misses = _windowMisses.getAndSet(0);
+
+        if (misses * 100L > (long)count * _growMissPercent)
+        {
+            int target = _target.get();
+            if (target < _capacity && _target.compareAndSet(target, target + 1))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} grow target {}/{} misses", this, misses, count);
+                startReservedThread();
+            }
+        }
+        else if (misses == 0)
+        {
+            int target = _target.get();
+            if (target > 1 && _target.compareAndSet(target, target - 1))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} shrink target {}/{} misses", this, misses, count);
+                // Stop an idle reserved thread in excess of the new target,
+                // busy reserved threads will exit when they next try to reserve.
+                if (_size.get() > target - 1)
+                    tryExecute(STOP);
+            }
+        }
+    }
+
     private void startReservedThread()
     {
         try
@@ -234,7 +388,7 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                 // Not atomic, but there is a re-check in ReservedThread.run().
                 int pending = _pending.get();
                 int size = _size.get();
-                if (pending + size >= _capacity)
+                if (pending + size >= _target.get())
                     return;
                 if (_pending.compareAndSet(pending, pending + 1))
                 {
@@ -254,10 +408,11 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     @Override
     public String toString()
     {
-        return String.format("%s@%x{s=%d/%d,p=%d}",
+        return String.format("%s@%x{s=%d/%d/%d,p=%d}",
             getClass().getSimpleName(),
             hashCode(),
             _size.get(),
+            _target.get(),
             _capacity,
             _pending.get());
     }
@@ -351,10 +506,11 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                     int size = _size.get();
                     if (size < 0)
                         return;
-                    if (size >= _capacity)
+                    int target = _target.get();
+                    if (size >= target)
                     {
                         if (LOG.isDebugEnabled())
-                            LOG.debug("{} size {} > capacity", this, size, _capacity);
+                            LOG.debug("{} size {} > target {}", this, size, target);
                         if (_starting)
                             _pending.decrementAndGet();
                         return;
@@ -0,0 +1,158 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>Utility class to use virtual threads when they are available in the JVM.</p>
+ * <p>Virtual threads are looked up reflectively, so that this class can be used
+ * with JVMs that do not support them, in which case {@link #areSupported()}
+ * returns {@code false} and components fall back to platform threads.</p>
+ *
+ * @see Configurable
+ */
+public class VirtualThreads
+{
+    private static final Logger LOG = Log.getLogger(VirtualThreads.class);
+    private static final Executor executor = probeVirtualThreadExecutor();
+    private static final Method isVirtualThread = probeIsVirtualThread();
+
+    private static Executor probeVirtualThreadExecutor()
+    {
+        try
+        {
+            return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (Throwable x)
+        {
+            // Not supported, or a preview feature that is not enabled.
+            LOG.ignore(x);
+            return null;
+        }
+    }
+
+    private static Method probeIsVirtualThread()
+    {
+        try
+        {
+            return Thread.class.getMethod("isVirtual");
+        }
+        catch (Throwable x)
+        {
+            LOG.ignore(x);
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the runtime supports virtual threads
+     */
+    public static boolean areSupported()
+    {
+        return executor != null;
+    }
+
+    /**
+     * <p>Runs the given task in a new virtual thread.</p>
+     *
+     * @param task the task to run in a virtual thread
+     * @throws UnsupportedOperationException if virtual threads are not supported
+     * @throws RejectedExecutionException if the virtual thread cannot be started
+     * @see #areSupported()
+     */
+    public static void executeOnVirtualThread(Runnable task)
+    {
+        if (executor == null)
+            throw new UnsupportedOperationException("Virtual threads not supported");
+        executor.execute(task);
+    }
+
+    /**
+     * @return whether the current thread is a virtual thread
+     */
+    public static boolean isVirtualThread()
+    {
+        if (isVirtualThread == null)
+            return false;
+        try
+        {
+            return (Boolean)isVirtualThread.invoke(Thread.currentThread());
+        }
+        catch (Throwable x)
+        {
+            LOG.ignore(x);
+            return false;
+        }
+    }
+
+    /**
+     * @return the executor that runs each task in a new virtual thread, or null if virtual threads are not supported
+     */
+    public static Executor getDefaultVirtualThreadsExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * @param executor the executor to test
+     * @return whether the given executor is {@link Configurable} to use virtual threads and is configured to do so
+     */
+    public static boolean isUseVirtualThreads(Executor executor)
+    {
+        if (executor instanceof Configurable)
+            return ((Configurable)executor).isUseVirtualThreads();
+        return false;
+    }
+
+    /**
+     * <p>Implementations of this interface can be configured to run blocking tasks
+     * in virtual threads rather than in their own platform threads.</p>
+     */
+    public interface Configurable
+    {
+        /**
+         * @return whether blocking tasks should be run in virtual threads
+         */
+        default boolean isUseVirtualThreads()
+        {
+            return false;
+        }
+
+        /**
+         * @param useVirtualThreads whether blocking tasks should be run in virtual threads
+         * @throws UnsupportedOperationException if the implementation does not support virtual threads
+         */
+        default void setUseVirtualThreads(boolean useVirtualThreads)
+        {
+            if (useVirtualThreads)
+                throw new UnsupportedOperationException();
+        }
+    }
+
+    private VirtualThreads()
+    {
+    }
+}
@@ -23,6 +23,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
@@ -31,9 +32,11 @@ import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.TryExecutor;
+import org.eclipse.jetty.util.thread.VirtualThreads;
 
 /**
  * <p>A strategy where the thread that produces will run the resulting task if it
@@ -52,11 +55,22 @@ import org.eclipse.jetty.util.thread.TryExecutor;
  * indicated it is non-blocking, then this strategy will dispatch the execution of
  * the task and immediately continue production. When operating in this pattern, the
  * sub-strategy is called ProduceExecuteConsume (PEC).</p>
+ * <p>If the executor is {@link VirtualThreads.Configurable configured} to use virtual
+ * threads, then blocking tasks are always run in a new virtual thread with the PEC
+ * sub-strategy, and production continues immediately without the need of a
+ * pending producer thread.</p>
+ * <p>The number of tasks run in each sub-strategy, the time spent producing and
+ * consuming tasks, and a histogram of the time taken to consume each task by the
+ * producing thread are recorded with striped counters and exposed via JMX.</p>
  */
 @ManagedObject("eat what you kill execution strategy")
 public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrategy, Runnable
 {
     private static final Logger LOG = Log.getLogger(EatWhatYouKill.class);
+    /**
+     * The number of buckets of the consume time histogram, in microseconds.
+     */
+    public static final int CONSUME_TIME_BUCKETS = 20;
 
     private enum State
     {
@@ -76,11 +90,15 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     private final LongAdder _picMode = new LongAdder();
     private final LongAdder _pecMode = new LongAdder();
     private final LongAdder _epcMode = new LongAdder();
+    private final LongAdder _produceNanos = new LongAdder();
+    private final LongAdder _consumeNanos = new LongAdder();
+    private final HistogramStatistic _consumeTimes = new HistogramStatistic(CONSUME_TIME_BUCKETS);
     private final Producer _producer;
     private final Executor _executor;
     private final TryExecutor _tryExecutor;
     private State _state = State.IDLE;
     private boolean _pending;
+    private volatile boolean _useVirtualThreads;
 
     public EatWhatYouKill(Producer producer, Executor executor)
     {
@@ -93,6 +111,13 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
             LOG.debug("{} created", this);
     }
 
+    @Override
+    protected void doStart() throws Exception
+    {
+        _useVirtualThreads = VirtualThreads.isUseVirtualThreads(_executor);
+        super.doStart();
+    }
+
     @Override
     public void dispatch()
     {
@@ -181,7 +206,9 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
 
     private boolean doProduce(boolean nonBlocking)
     {
+        long produceBegin = System.nanoTime();
         Runnable task = produceTask();
+        _produceNanos.add(System.nanoTime() - produceBegin);
 
         if (task == null)
         {
@@ -236,7 +263,13 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
 
                 case BLOCKING:
                     // The task is blocking, so PC is not an option. Thus we choose
-                    // between EPC and PEC based on the availability of a reserved thread.
+                    // between EPC and PEC based on the availability of a reserved thread,
+                    // unless virtual threads are used, in which case PEC is always possible.
+                    if (_useVirtualThreads)
+                    {
+                        mode = Mode.PRODUCE_EXECUTE_CONSUME;
+                        break;
+                    }
                     synchronized (this)
                     {
                         if (_pending)
@@ -295,12 +328,12 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         {
             case PRODUCE_CONSUME:
                 _pcMode.increment();
-                runTask(task);
+                consumeTask(task, false);
                 return true;
 
             case PRODUCE_INVOKE_CONSUME:
                 _picMode.increment();
-                invokeTask(task);
+                consumeTask(task, true);
                 return true;
 
             case PRODUCE_EXECUTE_CONSUME:
@@ -310,7 +343,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
 
             case EXECUTE_PRODUCE_CONSUME:
                 _epcMode.increment();
-                runTask(task);
+                consumeTask(task, false);
 
                 // Try to produce again?
                 synchronized (this)
@@ -329,6 +362,18 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
+    private void consumeTask(Runnable task, boolean invoke)
+    {
+        long begin = System.nanoTime();
+        if (invoke)
+            invokeTask(task);
+        else
+            runTask(task);
+        long elapsed = System.nanoTime() - begin;
+        _consumeNanos.add(elapsed);
+        _consumeTimes.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+    }
+
     private void runTask(Runnable task)
     {
         try
@@ -370,7 +415,10 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     {
         try
         {
-            _executor.execute(task);
+            if (_useVirtualThreads)
+                VirtualThreads.executeOnVirtualThread(task);
+            else
+                _executor.execute(task);
         }
         catch (RejectedExecutionException e)
         {
@@ -417,6 +465,33 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         return _epcMode.longValue();
     }
 
+    @ManagedAttribute(value = "total time spent producing tasks, including the time the producer blocks, in ns", readonly = true)
+    public long getProduceTimeNanos()
+    {
+        return _produceNanos.sum();
+    }
+
+    @ManagedAttribute(value = "total time spent consuming tasks in ns", readonly = true)
+    public long getConsumeTimeNanos()
+    {
+        return _consumeNanos.sum();
+    }
+
+    /**
+     * @return the histogram of the run duration, in microseconds, of each task
+     * consumed in PC, PIC or EPC mode (tasks executed in PEC mode are not recorded)
+     */
+    public HistogramStatistic getConsumeTimes()
+    {
+        return _consumeTimes;
+    }
+
+    @ManagedAttribute(value = "histogram of the time taken to consume a task", readonly = true)
+    public String getConsumeTimeHistogram()
+    {
+        return _consumeTimes.toHistogramString("us");
+    }
+
     @ManagedAttribute(value = "whether this execution strategy is idle", readonly = true)
     public boolean isIdle()
     {
@@ -426,13 +501,16 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
-    @ManagedOperation(value = "resets the task counts", impact = "ACTION")
+    @ManagedOperation(value = "resets the task counts and times", impact = "ACTION")
     public void reset()
     {
         _pcMode.reset();
         _epcMode.reset();
         _pecMode.reset();
         _picMode.reset();
+        _produceNanos.reset();
+        _consumeNanos.reset();
+        _consumeTimes.reset();
     }
 
     @Override
@@ -0,0 +1,107 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DeflaterPoolTest
+{
+    @Test
+    public void testNotPooledWhenNotRunning()
+    {
+        DeflaterPool pool = new DeflaterPool(10, Deflater.DEFAULT_COMPRESSION, true);
+        Deflater deflater = pool.acquire();
+        pool.release(deflater);
+        assertThat(pool.getSize(), is(0));
+        assertThat(pool.getCreated(), is(1L));
+    }
+
+    @Test
+    public void testReuseFromSameThread() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool(10, 4, Deflater.DEFAULT_COMPRESSION, true);
+        pool.start();
+
+        Deflater deflater = pool.acquire();
+        pool.release(deflater);
+        assertThat(pool.getSize(), is(1));
+        assertThat(pool.acquire(), sameInstance(deflater));
+        assertThat(pool.getCreated(), is(1L));
+        assertThat(pool.getReused(), is(1L));
+
+        pool.stop();
+    }
+
+    @Test
+    public void testAcquireFromOtherStripe() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool(10, 4, Deflater.DEFAULT_COMPRESSION, true);
+        pool.start();
+
+        // Release from a thread that may use another stripe.
+        AtomicReference<Deflater> released = new AtomicReference<>();
+        Thread thread = new Thread(() ->
+        {
+            Deflater deflater = pool.acquire();
+            released.set(deflater);
+            pool.release(deflater);
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(pool.acquire(), sameInstance(released.get()));
+        assertThat(pool.getSize(), is(0));
+
+        pool.stop();
+    }
+
+    @Test
+    public void testCapacity() throws Exception
+    {
+        DeflaterPool pool = new DeflaterPool(5, 4, Deflater.DEFAULT_COMPRESSION, true);
+        pool.start();
+        assertThat(pool.getStripes(), is(4));
+
+        // Release from many threads, so that all the stripes are used.
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++)
+        {
+            Thread thread = new Thread(() -> pool.release(new Deflater(Deflater.DEFAULT_COMPRESSION, true)));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertThat(pool.getSize() <= 5, is(true));
+
+        pool.stop();
+        assertThat(pool.getSize(), is(0));
+    }
+}
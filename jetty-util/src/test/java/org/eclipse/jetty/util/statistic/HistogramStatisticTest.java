@@ -0,0 +1,70 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testBuckets()
+    {
+        HistogramStatistic histogram = new HistogramStatistic(4);
+        histogram.record(-1);
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record(1000);
+
+        assertThat(histogram.getCount(0), is(2L));
+        assertThat(histogram.getCount(1), is(1L));
+        assertThat(histogram.getCount(2), is(2L));
+        assertThat(histogram.getCount(3), is(2L));
+        assertThat(histogram.getCount(), is(7L));
+        assertThat(histogram.getUpperBound(2), is(4L));
+        assertThat(histogram.getUpperBound(3), is(Long.MAX_VALUE));
+        assertThat(histogram.toHistogramString("us"), is("<1us=2,<2us=1,<4us=2,>=4us=2"));
+
+        histogram.reset();
+        assertThat(histogram.getCount(), is(0L));
+    }
+
+    @Test
+    public void testAdd()
+    {
+        HistogramStatistic histogram1 = new HistogramStatistic(3);
+        histogram1.record(1);
+        HistogramStatistic histogram2 = new HistogramStatistic(3);
+        histogram2.record(1);
+        histogram2.record(10);
+
+        HistogramStatistic total = new HistogramStatistic(3);
+        total.add(histogram1);
+        total.add(histogram2);
+        assertThat(total.getCounts(), is(new long[]{0, 2, 1}));
+
+        assertThrows(IllegalArgumentException.class, () -> total.add(new HistogramStatistic(4)));
+    }
+}
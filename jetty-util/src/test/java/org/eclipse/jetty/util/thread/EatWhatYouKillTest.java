@@ -30,6 +30,8 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class EatWhatYouKillTest
 {
@@ -123,6 +125,30 @@ public class EatWhatYouKillTest
         }
     }
 
+    @Test
+    public void testBlockingTaskRunsInVirtualThread() throws Exception
+    {
+        assumeTrue(VirtualThreads.areSupported());
+
+        QueuedThreadPool executor = new QueuedThreadPool();
+        executor.setUseVirtualThreads(true);
+        BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+        ewyk = new EatWhatYouKill(tasks::poll, executor);
+        ewyk.start();
+
+        AtomicReference<Boolean> virtual = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        tasks.offer(new Task(() ->
+        {
+            virtual.set(VirtualThreads.isVirtualThread());
+            latch.countDown();
+        }, Invocable.InvocationType.BLOCKING));
+        ewyk.produce();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(virtual.get());
+    }
+
     private static class Task implements Runnable, Invocable
     {
         private final Runnable task;
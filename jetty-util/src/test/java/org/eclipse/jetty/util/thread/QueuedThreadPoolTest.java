@@ -20,6 +20,7 @@ package org.eclipse.jetty.util.thread;
 
 import java.io.Closeable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -31,8 +32,10 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -833,6 +836,43 @@ public class QueuedThreadPoolTest extends AbstractThreadPoolTest
         assertThat(count(dump, "QueuedThreadPoolTest.lambda$testDump$"), is(1));
     }
 
+    @Test
+    public void testLockFreeQueue() throws Exception
+    {
+        QueuedThreadPool pool = new QueuedThreadPool(4, 2, 60000, true);
+        assertThat(pool.getQueue(), instanceOf(LinkedTransferQueue.class));
+        pool.start();
+        try
+        {
+            int jobs = 1000;
+            CountDownLatch latch = new CountDownLatch(jobs);
+            for (int i = 0; i < jobs; ++i)
+            {
+                pool.execute(latch::countDown);
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertThat(pool.getThreads(), lessThanOrEqualTo(4));
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void testUseVirtualThreads()
+    {
+        QueuedThreadPool pool = new QueuedThreadPool();
+        try (StacklessLogging stackless = new StacklessLogging(QueuedThreadPool.class))
+        {
+            pool.setUseVirtualThreads(true);
+        }
+        // Falls back to platform threads if virtual threads are not supported.
+        assertThat(pool.isUseVirtualThreads(), is(VirtualThreads.areSupported()));
+        pool.setUseVirtualThreads(false);
+        assertFalse(pool.isUseVirtualThreads());
+    }
+
     private int count(String s, String p)
     {
         int c = 0;
@@ -183,6 +183,60 @@ public class ReservedThreadExecutorTest
         assertThat(_reservedExecutor.getAvailable(), is(0));
     }
 
+    @Test
+    public void testAdaptive() throws Exception
+    {
+        _reservedExecutor.stop();
+        _reservedExecutor.setAdaptive(true);
+        _reservedExecutor.setWindowSize(SIZE);
+        _reservedExecutor.start();
+        assertThat(_reservedExecutor.getTarget(), is(SIZE));
+
+        // A window of misses cannot grow beyond the capacity.
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertThat(_reservedExecutor.tryExecute(NOOP), is(false));
+        }
+        assertThat(_reservedExecutor.getMisses(), is((long)SIZE));
+        assertThat(_reservedExecutor.getTarget(), is(SIZE));
+
+        for (int i = 0; i < SIZE; i++)
+        {
+            _executor.startThread();
+        }
+        waitForAllAvailable();
+
+        // A window of hits shrinks the reservation.
+        Task[] tasks = new Task[SIZE];
+        for (int i = 0; i < SIZE; i++)
+        {
+            tasks[i] = new Task();
+            assertThat(_reservedExecutor.tryExecute(tasks[i]), is(true));
+        }
+        assertThat(_reservedExecutor.getHits(), is((long)SIZE));
+        assertThat(_reservedExecutor.getTarget(), is(SIZE - 1));
+
+        for (int i = 0; i < SIZE; i++)
+        {
+            tasks[i]._ran.await(10, TimeUnit.SECONDS);
+            tasks[i]._complete.countDown();
+        }
+        waitForAvailable(SIZE - 1);
+
+        // A window with too many misses grows the reservation.
+        int queued = _executor._queue.size();
+        Task task = new Task();
+        assertThat(_reservedExecutor.tryExecute(task), is(true));
+        assertThat(_reservedExecutor.tryExecute(NOOP), is(false));
+        assertThat(_reservedExecutor.getTarget(), is(SIZE));
+        assertThat(_executor._queue.size(), is(queued + 1));
+        task._complete.countDown();
+
+        _reservedExecutor.reset();
+        assertThat(_reservedExecutor.getHits(), is(0L));
+        assertThat(_reservedExecutor.getMisses(), is(0L));
+    }
+
     protected void waitForAvailable(int size) throws InterruptedException
     {
         long started = System.nanoTime();
@@ -23,7 +23,9 @@ import javax.servlet.ServletContext;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.util.DecoratedObjectFactory;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
@@ -34,8 +36,11 @@ import org.eclipse.jetty.util.compression.InflaterPool;
  *
  * These components should be accessed through {@link WebSocketComponents#ensureWebSocketComponents} so that
  * the instance can be shared by being stored as a bean on the ContextHandler.
+ *
+ * The {@link InflaterPool} and {@link DeflaterPool} are beans of the components, so that
+ * they are started and stopped with the components by their owner.
  */
-public class WebSocketComponents
+public class WebSocketComponents extends ContainerLifeCycle
 {
     public static final String WEBSOCKET_COMPONENTS_ATTRIBUTE = WebSocketComponents.class.getName();
 
@@ -47,6 +52,9 @@ public class WebSocketComponents
         {
             components = new WebSocketComponents();
             servletContext.setAttribute(WEBSOCKET_COMPONENTS_ATTRIBUTE, components);
+            ContextHandler contextHandler = ContextHandler.getContextHandler(servletContext);
+            if (contextHandler != null)
+                contextHandler.addManaged(components);
         }
 
         return components;
@@ -67,6 +75,9 @@ public class WebSocketComponents
         this.bufferPool = bufferPool;
         this.deflaterPool = deflaterPool;
         this.inflaterPool = inflaterPool;
+        // The pools only retain released objects while they are running.
+        addBean(inflaterPool);
+        addBean(deflaterPool);
     }
 
     private DecoratedObjectFactory objectFactory;
@@ -51,6 +51,8 @@ public class WebSocketCoreClient extends ContainerLifeCycle
     public WebSocketCoreClient()
     {
         this(null, new WebSocketComponents());
+        // The components are only stopped with this client if it created them.
+        manage(components);
     }
 
     public WebSocketCoreClient(WebSocketComponents webSocketComponents)
@@ -66,6 +68,8 @@ public class WebSocketCoreClient extends ContainerLifeCycle
         this.httpClient = httpClient;
         this.components = webSocketComponents;
         addBean(httpClient);
+        // The components may be shared, so they are not stopped with this client.
+        addBean(webSocketComponents, false);
     }
 
     public CompletableFuture<FrameHandler.CoreSession> connect(FrameHandler frameHandler, URI wsUri) throws IOException
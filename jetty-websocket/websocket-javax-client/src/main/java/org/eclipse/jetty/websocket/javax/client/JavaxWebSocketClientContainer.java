@@ -61,6 +61,7 @@ public class JavaxWebSocketClientContainer extends JavaxWebSocketContainer imple
     public JavaxWebSocketClientContainer()
     {
         this(new WebSocketComponents());
+        addBean(components);
     }
 
     /**
@@ -78,6 +79,7 @@ public class JavaxWebSocketClientContainer extends JavaxWebSocketContainer imple
             coreClient.getHttpClient().setName("Javax-WebSocketClient@" + Integer.toHexString(coreClient.getHttpClient().hashCode()));
             return coreClient;
         });
+        addBean(components);
     }
 
     public JavaxWebSocketClientContainer(WebSocketComponents components)
@@ -118,6 +118,7 @@ public class JavaxWebSocketServerContainer extends JavaxWebSocketClientContainer
     public JavaxWebSocketServerContainer(WebSocketMapping webSocketMapping)
     {
         this(webSocketMapping, new WebSocketComponents());
+        addBean(components);
     }
 
     public JavaxWebSocketServerContainer(WebSocketMapping webSocketMapping, WebSocketComponents components)
@@ -84,6 +84,7 @@ public class WebSocketClient extends ContainerLifeCycle implements WebSocketPoli
      */
     public WebSocketClient(HttpClient httpClient)
     {
+        addBean(components);
         coreClient = new WebSocketCoreClient(httpClient, components);
         addManaged(coreClient);
 
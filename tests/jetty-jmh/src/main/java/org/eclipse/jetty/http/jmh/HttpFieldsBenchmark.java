@@ -0,0 +1,120 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Adds the headers of a request to a {@link HttpFields} and then looks up
+ * headers as the servlet layer and an application would do, for typical
+ * header counts below and above {@link HttpFields#INDEX_THRESHOLD}.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpFieldsBenchmark
+{
+    @Param({"8", "16", "40", "80"})
+    public int headers;
+
+    private List<HttpField> _fields;
+    private HttpFields _httpFields;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        _fields = new ArrayList<>();
+        _fields.add(new HttpField(HttpHeader.HOST, "api.example.com"));
+        _fields.add(new HttpField(HttpHeader.USER_AGENT, "example-client/4.2.1"));
+        _fields.add(new HttpField(HttpHeader.ACCEPT, "application/json"));
+        _fields.add(new HttpField(HttpHeader.ACCEPT_ENCODING, "gzip"));
+        _fields.add(new HttpField(HttpHeader.AUTHORIZATION, "Bearer 0123456789abcdef"));
+        _fields.add(new HttpField(HttpHeader.CONTENT_TYPE, "application/json"));
+        _fields.add(new HttpField(HttpHeader.CONTENT_LENGTH, "42"));
+        _fields.add(new HttpField(HttpHeader.COOKIE, "session=0123456789"));
+        // Headers added by gateways and proxies.
+        for (int i = _fields.size(); i < headers; i++)
+        {
+            _fields.add(new HttpField("X-Gateway-Header-" + i, "value-" + i));
+        }
+        _httpFields = new HttpFields();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void testAddAndLookup(Blackhole blackhole)
+    {
+        HttpFields fields = _httpFields;
+        fields.clear();
+        for (HttpField field : _fields)
+        {
+            fields.add(field);
+        }
+
+        // Lookups of the servlet layer.
+        blackhole.consume(fields.get(HttpHeader.HOST));
+        blackhole.consume(fields.get(HttpHeader.CONTENT_TYPE));
+        blackhole.consume(fields.get(HttpHeader.CONTENT_LENGTH));
+        blackhole.consume(fields.get(HttpHeader.CONTENT_ENCODING));
+        blackhole.consume(fields.get(HttpHeader.TRANSFER_ENCODING));
+        blackhole.consume(fields.getField(HttpHeader.COOKIE));
+        blackhole.consume(fields.contains(HttpHeader.EXPECT));
+        blackhole.consume(fields.getQualityCSV(HttpHeader.ACCEPT_ENCODING));
+        blackhole.consume(fields.getValuesList(HttpHeader.X_FORWARDED_FOR));
+
+        // Lookups of an application, by name.
+        blackhole.consume(fields.get("Authorization"));
+        blackhole.consume(fields.get("x-gateway-header-" + (headers - 1)));
+        blackhole.consume(fields.get("X-Request-Id"));
+        blackhole.consume(fields.containsKey("X-Tenant"));
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpFieldsBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
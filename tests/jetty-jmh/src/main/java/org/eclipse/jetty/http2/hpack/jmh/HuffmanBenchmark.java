@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.Huffman;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Huffman encodes and decodes header values of typical lengths, from
+ * short values such as {@code no-cache} to long values such as a browser
+ * {@code user-agent} or {@code cookie}, in heap and direct buffers.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HuffmanBenchmark
+{
+    private static final String[] VALUES =
+        {
+            "no-cache",
+            "gzip, deflate, br",
+            "application/json; charset=utf-8",
+            "Mon, 21 Oct 2013 20:13:21 GMT",
+            "https://www.example.com/shop/products/1234",
+            "en-GB,en-US;q=0.9,en;q=0.8",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/86.0.4240.111 Safari/537.36",
+            "JSESSIONID=node01t3pkmc1fgezh1x7cd1y6g3w1e0.node0; _ga=GA1.2.1366411478.1602930221; " +
+                "_gid=GA1.2.1880744516.1602930221; consent=analytics%3Dtrue%26marketing%3Dfalse; theme=dark"
+        };
+
+    @Param({"8", "32", "128"})
+    public int length;
+
+    @Param({"HEAP", "DIRECT"})
+    public String buffer;
+
+    private String[] _values;
+    private ByteBuffer[] _encoded;
+    private ByteBuffer _buffer;
+    private int _value;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        switch (buffer)
+        {
+            case "HEAP":
+                _buffer = ByteBuffer.allocate(4096);
+                break;
+            case "DIRECT":
+                _buffer = ByteBuffer.allocateDirect(4096);
+                break;
+            default:
+                throw new IllegalStateException("Unknown buffer Parameter");
+        }
+
+        // The values repeated or truncated to the length.
+        _values = new String[VALUES.length];
+        _encoded = new ByteBuffer[VALUES.length];
+        for (int i = 0; i < VALUES.length; i++)
+        {
+            StringBuilder value = new StringBuilder(VALUES[i]);
+            while (value.length() < length)
+            {
+                value.append(' ').append(VALUES[i]);
+            }
+            _values[i] = value.substring(0, length);
+            _buffer.clear();
+            Huffman.encode(_buffer, _values[i]);
+            _buffer.flip();
+            _encoded[i] = ByteBuffer.allocate(_buffer.remaining()).put(_buffer).flip();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ByteBuffer testEncode()
+    {
+        String value = _values[_value++ % _values.length];
+        ByteBuffer buffer = _buffer;
+        buffer.clear();
+        Huffman.encode(buffer, value);
+        return buffer;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String testDecode() throws HpackException.CompressionException
+    {
+        ByteBuffer encoded = _encoded[_value++ % _encoded.length];
+        ByteBuffer buffer = _buffer;
+        buffer.clear();
+        buffer.put(encoded.duplicate()).flip();
+        return Huffman.decode(buffer);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HuffmanBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,132 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.io.StripedByteBufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class ByteBufferPoolBenchmark
+{
+    public enum Type
+    {
+        ARRAY, MAPPED, STRIPED
+    }
+
+    @Param({"ARRAY", "MAPPED", "STRIPED"})
+    Type type;
+
+    @Param({"true", "false"})
+    boolean direct;
+
+    ByteBufferPool pool;
+
+    @Setup
+    public void buildPool()
+    {
+        switch (type)
+        {
+            case ARRAY:
+                pool = new ArrayByteBufferPool();
+                break;
+            case MAPPED:
+                pool = new MappedByteBufferPool();
+                break;
+            case STRIPED:
+                pool = new StripedByteBufferPool();
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @TearDown
+    public void clearPool()
+    {
+        pool = null;
+    }
+
+    long acquireRelease()
+    {
+        // Sizes between 8 KiB and 32 KiB, typical of selector and worker threads.
+        int size = 8192 + ThreadLocalRandom.current().nextInt(24 * 1024);
+        ByteBuffer buffer = pool.acquire(size, direct);
+        long result = buffer.capacity();
+        pool.release(buffer);
+        return result;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(1)
+    public long testFew()
+    {
+        return acquireRelease();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(8)
+    public long testSome()
+    {
+        return acquireRelease();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(64)
+    public long testMany()
+    {
+        return acquireRelease();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(ByteBufferPoolBenchmark.class.getSimpleName())
+            .forks(1)
+            // .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,198 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SelectorManager;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Drives interest changes of {@link SocketChannelEndPoint}s, each of which
+ * submits a selector update, to measure the cost of selector updates and wakeups.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class SelectorUpdateBenchmark
+{
+    @Param({"1", "16"})
+    int connections;
+
+    QueuedThreadPool threadPool;
+    Scheduler scheduler;
+    SelectorManager selectorManager;
+    ServerSocketChannel server;
+    List<SocketChannel> clients = new CopyOnWriteArrayList<>();
+    List<BenchmarkEndPoint> endPoints = new CopyOnWriteArrayList<>();
+
+    @Setup
+    public void startSelector() throws Exception
+    {
+        threadPool = new QueuedThreadPool();
+        threadPool.start();
+        scheduler = new ScheduledExecutorScheduler();
+        scheduler.start();
+        selectorManager = new SelectorManager(threadPool, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey selectionKey)
+            {
+                BenchmarkEndPoint endPoint = new BenchmarkEndPoint((SocketChannel)channel, selector, selectionKey, getScheduler());
+                endPoints.add(endPoint);
+                return endPoint;
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endPoint, Object attachment)
+            {
+                return new AbstractConnection(endPoint, getExecutor())
+                {
+                    @Override
+                    public void onFillable()
+                    {
+                    }
+                };
+            }
+        };
+        selectorManager.start();
+
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("localhost", 0));
+        for (int i = 0; i < connections; ++i)
+        {
+            clients.add(SocketChannel.open(server.getLocalAddress()));
+            SocketChannel channel = server.accept();
+            channel.configureBlocking(false);
+            selectorManager.accept(channel);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (endPoints.size() < connections)
+        {
+            if (System.nanoTime() > deadline)
+                throw new IllegalStateException("Endpoints not created");
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void stopSelector() throws Exception
+    {
+        System.err.printf("%nselects=%d wakeups=%d updates=%d wakeups/select=%.2f%n",
+            selectorManager.getSelects(),
+            selectorManager.getWakeups(),
+            selectorManager.getUpdatesSubmitted(),
+            selectorManager.getWakeupsPerSelect());
+        selectorManager.stop();
+        clients.forEach(IO::close);
+        IO.close(server);
+        scheduler.stop();
+        threadPool.stop();
+        clients.clear();
+        endPoints.clear();
+    }
+
+    void changeInterests()
+    {
+        // Each interest change submits a selector update, unless one is already
+        // pending, and the write interest is then selected and cleared immediately.
+        BenchmarkEndPoint endPoint = endPoints.get(ThreadLocalRandom.current().nextInt(connections));
+        endPoint.writeInterested();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(1)
+    public void testFew()
+    {
+        changeInterests();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(8)
+    public void testSome()
+    {
+        changeInterests();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(64)
+    public void testMany()
+    {
+        changeInterests();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(SelectorUpdateBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    private static class BenchmarkEndPoint extends SocketChannelEndPoint
+    {
+        private BenchmarkEndPoint(SocketChannel channel, ManagedSelector selector, SelectionKey key, Scheduler scheduler)
+        {
+            super(channel, selector, key, scheduler);
+        }
+
+        private void writeInterested()
+        {
+            onIncompleteFlush();
+        }
+    }
+}
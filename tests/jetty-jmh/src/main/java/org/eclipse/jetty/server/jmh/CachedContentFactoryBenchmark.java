@@ -0,0 +1,183 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.CachedContentFactory;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Looks up static content with Zipf distributed paths, comparing the
+ * throughput and the hit ratio of the cache eviction policies.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class CachedContentFactoryBenchmark
+{
+    private static final int FILES = 2000;
+    private static final int FILE_SIZE = 2048;
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"LRU", "TINYLFU"})
+    public static String policy;
+
+    @Param({"0.8", "1.0"})
+    public static double exponent;
+
+    @Param({"100"})
+    public static int maxCachedFiles;
+
+    private Path _directory;
+    private CachedContentFactory _cache;
+    private String[] _paths;
+    private final AtomicInteger _index = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _directory = Files.createTempDirectory("jmh-cache-");
+        byte[] bytes = new byte[FILE_SIZE];
+        Arrays.fill(bytes, (byte)'x');
+        for (int i = 0; i < FILES; i++)
+        {
+            Files.write(_directory.resolve(i + ".txt"), bytes);
+        }
+
+        _cache = new CachedContentFactory(null, new PathResource(_directory), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        _cache.setMaxCachedFiles(maxCachedFiles);
+        switch (policy)
+        {
+            case "LRU":
+                _cache.setEvictionPolicy(new CachedContentFactory.LRUEvictionPolicy());
+                break;
+
+            case "TINYLFU":
+                _cache.setEvictionPolicy(new CachedContentFactory.TinyLFUEvictionPolicy(maxCachedFiles));
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown policy Parameter");
+        }
+
+        // Rank the files by popularity in a random order, so that the
+        // popular files are not also the first created.
+        Random random = new Random(1234);
+        int[] ranks = new int[FILES];
+        for (int i = 0; i < FILES; i++)
+        {
+            ranks[i] = i;
+        }
+        for (int i = FILES - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int rank = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = rank;
+        }
+
+        // The cumulative distribution of a Zipf distribution.
+        double[] cumulative = new double[FILES];
+        double sum = 0;
+        for (int i = 0; i < FILES; i++)
+        {
+            sum += 1.0D / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+
+        _paths = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++)
+        {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            if (index < 0)
+                index = -index - 1;
+            _paths[i] = ranks[Math.min(index, FILES - 1)] + ".txt";
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        _cache.resetStatistics();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopIteration()
+    {
+        long hits = _cache.getHits();
+        long lookups = hits + _cache.getMisses();
+        System.err.printf("%n%s exponent=%.1f hit ratio=%.2f%% evictions=%d rejections=%d%n",
+            policy, exponent, lookups == 0 ? 0D : 100D * hits / lookups, _cache.getEvictions(), _cache.getRejections());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTrial() throws Exception
+    {
+        _cache.flushCache();
+        IO.delete(_directory.toFile());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public long testGetContent() throws Exception
+    {
+        String path = _paths[_index.getAndIncrement() & (SAMPLES - 1)];
+        HttpContent content = _cache.getContent(path, FILE_SIZE);
+        long length = content.getIndirectBuffer().remaining();
+        content.release();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(CachedContentFactoryBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
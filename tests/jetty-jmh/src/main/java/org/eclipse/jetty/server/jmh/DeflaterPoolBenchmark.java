@@ -21,6 +21,7 @@ package org.eclipse.jetty.server.jmh;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.Deflater;
 
+import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -52,6 +53,13 @@ public class DeflaterPoolBenchmark
     @Param({"NO_POOL", "DEFLATER_POOL_10", "DEFLATER_POOL_20", "DEFLATER_POOL_50"})
     public static String poolType;
 
+    /**
+     * The number of stripes of the pool, where 1 is a single queue shared by all the threads
+     * and 0 is the default of a stripe per available processor.
+     */
+    @Param({"1", "0"})
+    public static int stripes;
+
     @Setup(Level.Trial)
     public void setupTrial() throws Exception
     {
@@ -79,12 +87,14 @@ public class DeflaterPoolBenchmark
                 throw new IllegalStateException("Unknown poolType Parameter");
         }
 
-        _pool = new DeflaterPool(capacity, Deflater.DEFAULT_COMPRESSION, true);
+        _pool = new DeflaterPool(capacity, stripes > 0 ? stripes : ProcessorUtils.availableProcessors(), Deflater.DEFAULT_COMPRESSION, true);
+        _pool.start();
     }
 
     @TearDown(Level.Trial)
-    public static void stopTrial() throws Exception
+    public void stopTrial() throws Exception
     {
+        _pool.stop();
     }
 
     @Benchmark
@@ -105,16 +115,20 @@ public class DeflaterPoolBenchmark
 
     public static void main(String[] args) throws RunnerException
     {
-        Options opt = new OptionsBuilder()
-            .include(DeflaterPoolBenchmark.class.getSimpleName())
-            .warmupIterations(20)
-            .measurementIterations(10)
-            .addProfiler(GCProfiler.class)
-            .forks(1)
-            .threads(100)
-            .build();
-
-        new Runner(opt).run();
+        // Measure the contention on the pool from 1 to 64 threads.
+        for (int threads = 1; threads <= 64; threads *= 2)
+        {
+            Options opt = new OptionsBuilder()
+                .include(DeflaterPoolBenchmark.class.getSimpleName())
+                .warmupIterations(20)
+                .measurementIterations(10)
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .threads(threads)
+                .build();
+
+            new Runner(opt).run();
+        }
     }
 }
 
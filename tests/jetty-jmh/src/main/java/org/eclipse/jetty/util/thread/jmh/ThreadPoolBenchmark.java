@@ -20,6 +20,7 @@ package org.eclipse.jetty.util.thread.jmh;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -28,10 +29,12 @@ import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutorThreadPool;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.VirtualThreads;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -51,16 +54,21 @@ public class ThreadPoolBenchmark
 {
     public enum Type
     {
-        QTP, ETP, LQTP, LETP, AQTP, AETP;
+        QTP, ETP, LQTP, LETP, AQTP, AETP, TQTP, VQTP;
     }
 
-    @Param({"QTP", "ETP" /*, "LQTP", "LETP", "AQTP", "AETP" */})
+    @Param({"QTP", "ETP", "TQTP" /*, "LQTP", "LETP", "AQTP", "AETP", "VQTP" */})
     Type type;
 
     @Param({"200"})
     int size;
 
+    private static final Runnable NOOP = () ->
+    {
+    };
+
     ThreadPool pool;
+    Executor executor;
 
     @Setup // (Level.Iteration)
     public void buildPool()
@@ -103,10 +111,30 @@ public class ThreadPoolBenchmark
                 pool = new ExecutorThreadPool(size, size, new ArrayBlockingQueue<>(32768));
                 break;
 
+            case TQTP:
+            {
+                // Lock-free queue with direct handoff to idle threads.
+                QueuedThreadPool qtp = new QueuedThreadPool(size, size, 60000, true);
+                qtp.setReservedThreads(0);
+                pool = qtp;
+                break;
+            }
+
+            case VQTP:
+            {
+                // Blocking jobs run in virtual threads, if supported by the JVM.
+                QueuedThreadPool qtp = new QueuedThreadPool(size, size, new BlockingArrayQueue<>(32768, 32768));
+                qtp.setReservedThreads(0);
+                qtp.setUseVirtualThreads(true);
+                pool = qtp;
+                break;
+            }
+
             default:
                 throw new IllegalStateException();
         }
         LifeCycle.start(pool);
+        executor = VirtualThreads.isUseVirtualThreads(pool) ? VirtualThreads.getDefaultVirtualThreadsExecutor() : pool;
     }
 
     @Benchmark
@@ -133,17 +161,42 @@ public class ThreadPoolBenchmark
         doJob();
     }
 
+    /**
+     * Samples the time to hand a job to the pool, reported as percentiles.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public void testEnqueueLatency()
+    {
+        executor.execute(NOOP);
+    }
+
+    /**
+     * Samples the time from handing a job to the pool to the job having run, reported as percentiles.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(4)
+    public void testHandoffLatency() throws Exception
+    {
+        doJob();
+    }
+
     @TearDown // (Level.Iteration)
     public void shutdownPool()
     {
         LifeCycle.stop(pool);
         pool = null;
+        executor = null;
     }
 
     void doJob() throws Exception
     {
         CountDownLatch latch = new CountDownLatch(1);
-        pool.execute(latch::countDown);
+        executor.execute(latch::countDown);
         latch.await();
     }
 